@@ -0,0 +1,116 @@
+package com.your.projectroot;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.lib.ObjectId;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Benchmarks reading the base versions of a change set from git: looking up the blob ids of the changed files
+ * in the base tree and reading the blobs, in a repository of synthetic classes committed in a temporary directory.
+ */
+@State(Scope.Benchmark)
+public class GitBlobReadBenchmark {
+
+    private static final int METHODS_PER_CLASS = 50;
+
+    @Param({"10", "100", "1000"})
+    public int changedFileCount;
+
+    private Path repositoryDirectory;
+    private GitRepositorySession gitSession;
+    private List<String> changedFiles;
+    private List<ObjectId> baseBlobIds;
+
+    /**
+     * Creates and commits the repository and opens a session on it.
+     *
+     * @throws IOException     If the files cannot be written.
+     * @throws GitAPIException If the repository cannot be created.
+     */
+    @Setup
+    public void setUp() throws IOException, GitAPIException {
+        repositoryDirectory = Files.createTempDirectory("blob-read-benchmark");
+        changedFiles = new ArrayList<>();
+        Path sourceDirectory = repositoryDirectory.resolve("src/main/java/com/example/generated");
+        Files.createDirectories(sourceDirectory);
+        for (int i = 0; i < changedFileCount; i++) {
+            String className = "Generated" + i;
+            Files.writeString(sourceDirectory.resolve(className + ".java"),
+                    SyntheticSources.generateClass(className, METHODS_PER_CLASS, false), StandardCharsets.UTF_8);
+            changedFiles.add("src/main/java/com/example/generated/" + className + ".java");
+        }
+        try (Git git = Git.init().setDirectory(repositoryDirectory.toFile()).call()) {
+            git.add().addFilepattern(".").call();
+            git.commit().setMessage("Generated classes").setSign(false)
+                    .setAuthor("Benchmark", "benchmark@example.com")
+                    .setCommitter("Benchmark", "benchmark@example.com").call();
+        }
+        gitSession = GitRepositorySession.open(repositoryDirectory.toFile());
+        baseBlobIds = new ArrayList<>(gitSession.findBaseBlobIds(changedFiles).values());
+    }
+
+    /**
+     * Closes the session and deletes the repository.
+     *
+     * @throws IOException If the repository cannot be deleted.
+     */
+    @TearDown
+    public void tearDown() throws IOException {
+        gitSession.close();
+        try (Stream<Path> paths = Files.walk(repositoryDirectory)) {
+            paths.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+
+    /**
+     * Looks up the base blob ids of all changed files in a single tree walk.
+     *
+     * @return The blob ids by file.
+     * @throws IOException If the tree cannot be read.
+     */
+    @Benchmark
+    public Map<String, ObjectId> findBaseBlobIds() throws IOException {
+        return gitSession.findBaseBlobIds(changedFiles);
+    }
+
+    /**
+     * Reads the content of all base blobs.
+     *
+     * @param blackhole The sink of the contents.
+     * @throws IOException If a blob cannot be read.
+     */
+    @Benchmark
+    public void readBlobs(Blackhole blackhole) throws IOException {
+        for (ObjectId blobId : baseBlobIds) {
+            blackhole.consume(gitSession.readBlob(blobId));
+        }
+    }
+
+    /**
+     * Opens a session, looks up and reads the base versions of all changed files, like a run does.
+     *
+     * @param blackhole The sink of the contents.
+     * @throws IOException If the repository cannot be read.
+     */
+    @Benchmark
+    public void readChangeSet(Blackhole blackhole) throws IOException {
+        try (GitRepositorySession session = GitRepositorySession.open(repositoryDirectory.toFile())) {
+            for (ObjectId blobId : session.findBaseBlobIds(changedFiles).values()) {
+                blackhole.consume(session.readBlob(blobId));
+            }
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.your.projectroot;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Benchmarks the comparison of two versions of a file: extracting the method fingerprints with JavaParser
+ * and with the {@link MethodBoundaryScanner}, and merging the fingerprint tables into the changed methods.
+ */
+@State(Scope.Benchmark)
+public class MethodDiffBenchmark {
+
+    private static final String CLASS_NAME = SyntheticSources.PACKAGE_NAME + ".Generated";
+    private static final ChangedLineRanges.LineFilter ALL_LINES = (beginLine, endLine) -> true;
+
+    @Param({"10", "100", "1000"})
+    public int methodCount;
+
+    private String oldContent;
+    private String newContent;
+    private MethodFingerprints oldFingerprints;
+    private MethodFingerprints newFingerprints;
+
+    /**
+     * Generates the two versions of the class and their fingerprints.
+     */
+    @Setup
+    public void setUp() {
+        oldContent = SyntheticSources.generateClass("Generated", methodCount, false);
+        newContent = SyntheticSources.generateClass("Generated", methodCount, true);
+        oldFingerprints = SourceMethodFingerprinter.parse(CLASS_NAME, oldContent, ALL_LINES);
+        newFingerprints = SourceMethodFingerprinter.parse(CLASS_NAME, newContent, ALL_LINES);
+    }
+
+    /**
+     * Fingerprints every method of a file with JavaParser.
+     *
+     * @return The fingerprints.
+     */
+    @Benchmark
+    public MethodFingerprints extractMethodsWithParser() {
+        return SourceMethodFingerprinter.parse(CLASS_NAME, newContent, ALL_LINES);
+    }
+
+    /**
+     * Fingerprints every method of a file with the method boundary scanner.
+     *
+     * @return The fingerprints.
+     */
+    @Benchmark
+    public MethodFingerprints extractMethodsWithScanner() {
+        return SourceMethodFingerprinter.scan(CLASS_NAME, newContent, ALL_LINES);
+    }
+
+    /**
+     * Merges the fingerprint tables of the two versions.
+     *
+     * @return The signatures of the changed methods.
+     */
+    @Benchmark
+    public Set<String> compareMethods() {
+        Set<String> changes = new HashSet<>();
+        SourceMethodFingerprinter.collectChangedMethods(oldFingerprints, newFingerprints, changes);
+        return changes;
+    }
+
+    /**
+     * Compares the two versions like a run does: diffing the lines, then fingerprinting and comparing
+     * only the methods overlapping the changed lines.
+     *
+     * @return The signatures of the changed methods.
+     */
+    @Benchmark
+    public Set<String> compareChangedLines() {
+        ChangedLineRanges changedLines = ChangedLineRanges.compute(oldContent, newContent);
+        Set<String> changes = new HashSet<>();
+        SourceMethodFingerprinter.collectChangedMethods(
+                SourceMethodFingerprinter.scan(CLASS_NAME, oldContent, changedLines::overlapsOld),
+                SourceMethodFingerprinter.scan(CLASS_NAME, newContent, changedLines::overlapsNew), changes);
+        return changes;
+    }
+}
@@ -0,0 +1,63 @@
+package com.your.projectroot;
+
+import com.github.javaparser.StaticJavaParser;
+import com.github.javaparser.ast.body.CallableDeclaration;
+import com.github.javaparser.ast.body.MethodDeclaration;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+
+/**
+ * Benchmarks building the "className.methodName(parameterTypes)" signatures of parsed methods
+ * and splitting them back into their parameter types, for all methods of a synthetic class.
+ */
+@State(Scope.Benchmark)
+public class SignatureBenchmark {
+
+    private static final String CLASS_NAME = SyntheticSources.PACKAGE_NAME + ".Generated";
+
+    @Param({"10", "100", "1000"})
+    public int methodCount;
+
+    private List<CallableDeclaration.Signature> declarationSignatures;
+    private List<String> signatures;
+
+    /**
+     * Parses a synthetic class and computes the signatures of its methods.
+     */
+    @Setup
+    public void setUp() {
+        String content = SyntheticSources.generateClass("Generated", methodCount, false);
+        declarationSignatures = StaticJavaParser.parse(content).findAll(MethodDeclaration.class).stream()
+                .map(MethodDeclaration::getSignature)
+                .toList();
+        signatures = declarationSignatures.stream()
+                .map(signature -> MethodSignatures.getSignOfMethodDeclaration(signature, CLASS_NAME))
+                .toList();
+    }
+
+    /**
+     * Builds the signatures of all methods.
+     *
+     * @param blackhole The sink of the signatures.
+     */
+    @Benchmark
+    public void getSignOfMethodDeclaration(Blackhole blackhole) {
+        for (CallableDeclaration.Signature signature : declarationSignatures) {
+            blackhole.consume(MethodSignatures.getSignOfMethodDeclaration(signature, CLASS_NAME));
+        }
+    }
+
+    /**
+     * Splits all signatures into their parameter types.
+     *
+     * @param blackhole The sink of the parameter types.
+     */
+    @Benchmark
+    public void extractParameterTypes(Blackhole blackhole) {
+        for (String signature : signatures) {
+            blackhole.consume(MethodSignatures.extractParameterTypes(signature));
+        }
+    }
+}
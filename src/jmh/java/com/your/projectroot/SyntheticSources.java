@@ -0,0 +1,67 @@
+package com.your.projectroot;
+
+import java.util.Random;
+
+/**
+ * Generates the synthetic Java classes the benchmarks run on. The classes mix methods of different sizes,
+ * parameter lists with generic types, string literals and comments, and can be generated in a modified version
+ * in which every tenth method body changed, like a typical working copy.
+ */
+final class SyntheticSources {
+
+    static final String PACKAGE_NAME = "com.example.generated";
+
+    private SyntheticSources() {
+    }
+
+    /**
+     * Generates the source of a class.
+     *
+     * @param className   The simple name of the class.
+     * @param methodCount The number of methods of the class.
+     * @param modified    Whether every tenth method body should be changed.
+     * @return The source of the class.
+     */
+    static String generateClass(String className, int methodCount, boolean modified) {
+        Random random = new Random(className.hashCode());
+        StringBuilder source = new StringBuilder();
+        source.append("package ").append(PACKAGE_NAME).append(";\n\n")
+                .append("import java.util.*;\n\n")
+                .append("/**\n * Generated class ").append(className).append(".\n */\n")
+                .append("public class ").append(className).append(" {\n\n")
+                .append("    private final Map<String, List<Integer>> values = new HashMap<>();\n\n");
+        for (int method = 0; method < methodCount; method++) {
+            appendMethod(source, method, 1 + random.nextInt(30), modified && method % 10 == 0);
+        }
+        return source.append("}\n").toString();
+    }
+
+    /**
+     * Appends a method with the given number of statements.
+     *
+     * @param source         The source being generated.
+     * @param index          The index of the method, used in its name.
+     * @param statementCount The number of statements of the body.
+     * @param modified       Whether the body should be changed.
+     */
+    private static void appendMethod(StringBuilder source, int index, int statementCount, boolean modified) {
+        source.append("    /**\n     * Computes value ").append(index).append(".\n     */\n");
+        switch (index % 3) {
+            case 0 -> source.append("    public int compute").append(index).append("(int first, String second) {\n");
+            case 1 -> source.append("    protected List<String> compute").append(index)
+                    .append("(Map<String, List<Integer>> input, int... extra) {\n");
+            default -> source.append("    private static long compute").append(index).append("() {\n");
+        }
+        source.append("        int total = ").append(modified ? index + 1 : index).append(";\n");
+        for (int statement = 0; statement < statementCount; statement++) {
+            source.append("        // step ").append(statement).append('\n')
+                    .append("        total += \"value").append(statement).append("\".length() * ").append(statement).append(";\n");
+        }
+        switch (index % 3) {
+            case 0 -> source.append("        return total + first + second.length();\n");
+            case 1 -> source.append("        return new ArrayList<>(input.keySet());\n");
+            default -> source.append("        return total;\n");
+        }
+        source.append("    }\n\n");
+    }
+}
@@ -0,0 +1,329 @@
+package com.your.projectroot;
+
+import com.github.javaparser.JavaParser;
+import com.github.javaparser.ast.CompilationUnit;
+import org.eclipse.jgit.lib.ObjectId;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+
+/**
+ * Headless entry point selecting the tests affected by the changes of a branch, e.g. on CI.
+ * It compares the working tree with the merge-base of HEAD and a base ref like the plugin does,
+ * follows the callers of the changed methods through a {@link SourceCallGraph} built with the JavaParser
+ * symbol solver, and writes the affected JUnit 5 tests as "className.methodName" lines,
+ * which can be passed to Gradle's --tests option.
+ * <p>
+ * Usage: {@code ChangeTrackingCli --repo <dir> [--base <ref>] [--depth <n>] [--output <file>] [--source-root <dir>]...}
+ * <p>
+ * Exit codes: 0 if the tests were selected, 2 for invalid arguments and 3 if the changes could not be analyzed,
+ * in which case the whole test suite should be run.
+ */
+public final class ChangeTrackingCli {
+
+    private static final int EXIT_OK = 0;
+    private static final int EXIT_USAGE = 2;
+    private static final int EXIT_NOT_ANALYZED = 3;
+    private static final int DEFAULT_DEPTH = 2;
+    private static final Set<String> SKIPPED_DIRECTORIES = Set.of("build", "out", "target", "node_modules");
+
+    private Path repo;
+    private String baseRef = "";
+    private int depth = DEFAULT_DEPTH;
+    private Path output;
+    private final List<Path> SOURCE_ROOTS = new ArrayList<>();
+
+    private ChangeTrackingCli() {
+    }
+
+    /**
+     * Runs the test selection and exits with its exit code.
+     *
+     * @param args The command line arguments.
+     */
+    public static void main(String[] args) {
+        System.exit(run(args));
+    }
+
+    /**
+     * Runs the test selection.
+     *
+     * @param args The command line arguments.
+     * @return The exit code.
+     */
+    public static int run(String[] args) {
+        ChangeTrackingCli cli = new ChangeTrackingCli();
+        String error = cli.parseArguments(args);
+        if (error != null) {
+            System.err.println(error);
+            System.err.println("Usage: ChangeTrackingCli --repo <dir> [--base <ref>] [--depth <n>] [--output <file>] [--source-root <dir>]...");
+            return EXIT_USAGE;
+        }
+        try {
+            return cli.selectTests();
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Cannot analyze the changes: " + e);
+            return EXIT_NOT_ANALYZED;
+        }
+    }
+
+    /**
+     * Parses the command line arguments.
+     *
+     * @param args The command line arguments.
+     * @return An error message, or null if the arguments are valid.
+     */
+    private String parseArguments(String[] args) {
+        for (int i = 0; i < args.length; i++) {
+            if (i + 1 == args.length) {
+                return "Missing value of " + args[i];
+            }
+            String value = args[++i];
+            switch (args[i - 1]) {
+                case "--repo" -> repo = Paths.get(value).toAbsolutePath().normalize();
+                case "--base" -> baseRef = value;
+                case "--output" -> output = Paths.get(value);
+                case "--source-root" -> SOURCE_ROOTS.add(Paths.get(value));
+                case "--depth" -> {
+                    try {
+                        depth = Integer.parseInt(value);
+                    } catch (NumberFormatException e) {
+                        return "Invalid depth: " + value;
+                    }
+                }
+                default -> {
+                    return "Unknown option: " + args[i - 1];
+                }
+            }
+        }
+        if (repo == null) {
+            return "The repository is required";
+        }
+        for (int i = 0; i < SOURCE_ROOTS.size(); i++) {
+            SOURCE_ROOTS.set(i, repo.resolve(SOURCE_ROOTS.get(i)).toAbsolutePath().normalize());
+        }
+        return null;
+    }
+
+    /**
+     * Finds the changed methods, follows their callers and writes the affected tests.
+     *
+     * @return The exit code.
+     * @throws IOException If the repository or the sources cannot be read.
+     */
+    private int selectTests() throws IOException {
+        try (GitRepositorySession gitSession = GitRepositorySession.open(repo.toFile(), baseRef)) {
+            Set<String> changedFiles = new LinkedHashSet<>(gitSession.findJavaFilesChangedSinceBase());
+            changedFiles.addAll(gitSession.findUncommittedJavaFiles());
+            changedFiles.addAll(gitSession.findDeletedJavaFiles());
+            if (changedFiles.isEmpty()) {
+                writeTests(Collections.emptySet());
+                return EXIT_OK;
+            }
+
+            if (SOURCE_ROOTS.isEmpty()) {
+                SOURCE_ROOTS.addAll(findSourceRoots());
+            }
+            SourceCallGraph callGraph = SourceCallGraph.build(SOURCE_ROOTS);
+
+            Set<String> changes = new HashSet<>();
+            Map<String, ObjectId> baseBlobIds = gitSession.findBaseBlobIds(changedFiles);
+            for (String relativePath : changedFiles) {
+                ObjectId baseBlobId = baseBlobIds.get(relativePath);
+                Path file = repo.resolve(relativePath);
+                if (!Files.isRegularFile(file)) {
+                    // Deleted files have no working tree version, so all methods of their base version are changed
+                    if (baseBlobId != null && !collectDeletedMethods(relativePath, gitSession.readBlob(baseBlobId), changes)) {
+                        System.err.println("Cannot parse " + relativePath);
+                        return EXIT_NOT_ANALYZED;
+                    }
+                    continue;
+                }
+                String className = callGraph.getClassName(file);
+                if (className == null) {
+                    System.err.println("Skipping file outside of the source roots: " + relativePath);
+                    continue;
+                }
+                // New, renamed and copied files have no base version, so all their methods are changed
+                String oldContent = baseBlobId == null ? null : gitSession.readBlob(baseBlobId);
+                if (!compareFile(className, oldContent, Files.readString(file, StandardCharsets.UTF_8), changes)) {
+                    System.err.println("Cannot parse " + relativePath);
+                    return EXIT_NOT_ANALYZED;
+                }
+            }
+
+            Set<String> tests = findAffectedTests(callGraph, changes);
+            writeTests(tests);
+            System.err.println(changes.size() + " changed methods, " + tests.size() + " affected tests");
+            return EXIT_OK;
+        }
+    }
+
+    /**
+     * Compares the methods overlapping the changed lines of a file and adds the changed ones to the changes.
+     * If the file has no base version, all of its methods are added.
+     *
+     * @param className  The class name of the file.
+     * @param oldContent The content of the base version, or null if the file is new.
+     * @param newContent The content of the working tree version.
+     * @param changes    The set receiving the signatures of the changed methods.
+     * @return False if one of the versions cannot be parsed, true otherwise.
+     */
+    private static boolean compareFile(String className, String oldContent, String newContent, Set<String> changes) {
+        if (oldContent == null) {
+            MethodFingerprints newFingerprints = fingerprint(className, newContent, (beginLine, endLine) -> true);
+            if (newFingerprints == null) {
+                return false;
+            }
+            for (int i = 0; i < newFingerprints.size(); i++) {
+                changes.add(newFingerprints.getSignature(i));
+            }
+            return true;
+        }
+        ChangedLineRanges changedLines = ChangedLineRanges.compute(oldContent, newContent);
+        if (changedLines.isEmpty()) {
+            return true;
+        }
+        MethodFingerprints oldFingerprints = fingerprint(className, oldContent, changedLines::overlapsOld);
+        MethodFingerprints newFingerprints = fingerprint(className, newContent, changedLines::overlapsNew);
+        if (oldFingerprints == null || newFingerprints == null) {
+            return false;
+        }
+        SourceMethodFingerprinter.collectChangedMethods(oldFingerprints, newFingerprints, changes);
+        return true;
+    }
+
+    /**
+     * Adds all methods of the base version of a deleted file to the changes.
+     * The file is no longer part of the call graph, so its class name is taken from its package declaration and name.
+     *
+     * @param relativePath The repository-relative path of the deleted file.
+     * @param oldContent   The content of the base version.
+     * @param changes      The set receiving the signatures of the deleted methods.
+     * @return False if the base version cannot be parsed, true otherwise.
+     */
+    private static boolean collectDeletedMethods(String relativePath, String oldContent, Set<String> changes) {
+        CompilationUnit compilationUnit = new JavaParser().parse(oldContent).getResult().orElse(null);
+        if (compilationUnit == null) {
+            return false;
+        }
+        String simpleName = MethodSignatures.getClassNameFromFilePath(relativePath);
+        String className = compilationUnit.getPackageDeclaration()
+                .map(packageDeclaration -> packageDeclaration.getNameAsString() + "." + simpleName)
+                .orElse(simpleName);
+        MethodFingerprints oldFingerprints = fingerprint(className, oldContent, (beginLine, endLine) -> true);
+        if (oldFingerprints == null) {
+            return false;
+        }
+        for (int i = 0; i < oldFingerprints.size(); i++) {
+            changes.add(oldFingerprints.getSignature(i));
+        }
+        return true;
+    }
+
+    /**
+     * Fingerprints the methods of a file version with the scanner, falling back to JavaParser.
+     *
+     * @param className  The class name of the file.
+     * @param content    The content of the file version.
+     * @param lineFilter The filter selecting the lines of the methods to fingerprint.
+     * @return The fingerprints, or null if the content cannot be parsed.
+     */
+    private static MethodFingerprints fingerprint(String className, String content, ChangedLineRanges.LineFilter lineFilter) {
+        MethodFingerprints fingerprints = SourceMethodFingerprinter.scan(className, content, lineFilter);
+        return fingerprints != null ? fingerprints : SourceMethodFingerprinter.parse(className, content, lineFilter);
+    }
+
+    /**
+     * Follows the callers of the changed methods level by level up to the configured depth
+     * and collects the test methods that were reached.
+     *
+     * @param callGraph The call graph of the sources.
+     * @param changes   The signatures of the changed methods.
+     * @return The affected tests as "className.methodName".
+     */
+    private Set<String> findAffectedTests(SourceCallGraph callGraph, Set<String> changes) {
+        Set<String> reached = new HashSet<>(changes);
+        List<String> frontier = new ArrayList<>(changes);
+        Set<String> tests = new TreeSet<>();
+        for (int currentDepth = 0; currentDepth <= depth && !frontier.isEmpty(); currentDepth++) {
+            List<String> nextFrontier = new ArrayList<>();
+            for (String method : frontier) {
+                if (callGraph.isTestMethod(method)) {
+                    tests.add(MethodSignatures.extractClassName(method) + "." + MethodSignatures.extractMethodName(method));
+                }
+                if (currentDepth < depth) {
+                    for (String caller : callGraph.getCallers(method)) {
+                        if (reached.add(caller)) {
+                            nextFrontier.add(caller);
+                        }
+                    }
+                }
+            }
+            frontier = nextFrontier;
+        }
+        return tests;
+    }
+
+    /**
+     * Finds the Maven and Gradle style source roots ("src/&lt;sourceSet&gt;/java") of the repository.
+     *
+     * @return The source roots.
+     * @throws IOException If the repository cannot be listed.
+     */
+    private List<Path> findSourceRoots() throws IOException {
+        List<Path> sourceRoots = new ArrayList<>();
+        Files.walkFileTree(repo, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path directory, BasicFileAttributes attributes) {
+                String name = directory.getFileName() == null ? "" : directory.getFileName().toString();
+                if (!directory.equals(repo) && (name.startsWith(".") || SKIPPED_DIRECTORIES.contains(name))) {
+                    return FileVisitResult.SKIP_SUBTREE;
+                }
+                if (isSourceRoot(repo.relativize(directory))) {
+                    sourceRoots.add(directory);
+                    return FileVisitResult.SKIP_SUBTREE;
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        return sourceRoots;
+    }
+
+    /**
+     * Checks if a directory is a source root.
+     *
+     * @param relativePath The path of the directory relative to the repository.
+     * @return True if the directory is named "java" and located in "src/&lt;sourceSet&gt;".
+     */
+    private static boolean isSourceRoot(Path relativePath) {
+        int count = relativePath.getNameCount();
+        return count >= 3 && relativePath.getName(count - 1).toString().equals("java")
+                && relativePath.getName(count - 3).toString().equals("src");
+    }
+
+    /**
+     * Writes the selected tests to the output file, or to the standard output if no file is given.
+     *
+     * @param tests The selected tests.
+     * @throws IOException If the output file cannot be written.
+     */
+    private void writeTests(Set<String> tests) throws IOException {
+        if (output == null) {
+            tests.forEach(System.out::println);
+            return;
+        }
+        Path parent = output.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        Files.write(output, tests, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,177 @@
+package com.your.projectroot;
+
+import com.intellij.openapi.options.Configurable;
+import com.intellij.openapi.project.Project;
+import com.intellij.ui.JBIntSpinner;
+import com.intellij.ui.TitledSeparator;
+import com.intellij.ui.components.JBCheckBox;
+import com.intellij.ui.components.JBTextField;
+import com.intellij.util.ui.FormBuilder;
+import org.jetbrains.annotations.Nls;
+import org.jetbrains.annotations.NotNull;
+
+import javax.swing.*;
+import java.util.Objects;
+
+/**
+ * Settings page of the change tracking plugin under Settings | Tools, editing the project's {@link ChangeTrackingSettings}.
+ * Watch mode is started or stopped as soon as the settings are applied.
+ */
+public class ChangeTrackingConfigurable implements Configurable {
+
+    private final Project project;
+    private JBCheckBox persistFingerprintCache;
+    private JBIntSpinner fingerprintCacheSize;
+    private JBCheckBox useMethodBoundaryScanner;
+    private JBCheckBox diffChangedLinesOnly;
+    private JBCheckBox usePsiForWorkingCopy;
+    private JBCheckBox useParallelTraversal;
+    private JBTextField baseRef;
+    private JBCheckBox watchMode;
+    private JBIntSpinner watchDepth;
+    private JBIntSpinner testForkCount;
+    private JBIntSpinner testTimeBudgetSeconds;
+    private JBCheckBox useCoverageMap;
+
+    /**
+     * Constructs the settings page of the specified project.
+     *
+     * @param project The IntelliJ project instance.
+     */
+    public ChangeTrackingConfigurable(Project project) {
+        this.project = project;
+    }
+
+    @Override
+    public @Nls String getDisplayName() {
+        return "Change Tracking";
+    }
+
+    /**
+     * Creates the components of the page, grouped by the phase of a run they affect.
+     *
+     * @return The settings panel.
+     */
+    @Override
+    public JComponent createComponent() {
+        persistFingerprintCache = new JBCheckBox("Keep method fingerprints between sessions");
+        fingerprintCacheSize = new JBIntSpinner(2000, 1, 1_000_000, 100);
+        useMethodBoundaryScanner = new JBCheckBox("Find methods with the boundary scanner before parsing the file");
+        diffChangedLinesOnly = new JBCheckBox("Only compare methods overlapping the changed lines");
+        usePsiForWorkingCopy = new JBCheckBox("Fingerprint the working copy from the in-memory PSI");
+        baseRef = new JBTextField();
+        baseRef.getEmptyText().setText("Compare local changes with HEAD");
+        useParallelTraversal = new JBCheckBox("Search the callers of each level concurrently");
+        useCoverageMap = new JBCheckBox("Look up tests in the recorded coverage map");
+        useCoverageMap.setToolTipText("Coverage is recorded from runs with coverage and per-test tracking enabled, "
+                + "and dropped at the next commit or checkout until it is recorded again");
+        watchMode = new JBCheckBox("Keep the affected tests up to date while editing");
+        watchDepth = new JBIntSpinner(2, 0, 100);
+        testForkCount = new JBIntSpinner(2, 1, 64);
+        testTimeBudgetSeconds = new JBIntSpinner(0, 0, 24 * 60 * 60, 10);
+        testTimeBudgetSeconds.setToolTipText("0 runs all affected tests");
+
+        JPanel panel = FormBuilder.createFormBuilder()
+                .addComponent(new TitledSeparator("Comparing Changes"))
+                .addLabeledComponent("Base ref (e.g. origin/main):", baseRef)
+                .addComponent(diffChangedLinesOnly)
+                .addComponent(useMethodBoundaryScanner)
+                .addComponent(usePsiForWorkingCopy)
+                .addComponent(persistFingerprintCache)
+                .addLabeledComponent("Fingerprint cache size (file versions):", fingerprintCacheSize)
+                .addComponent(new TitledSeparator("Finding Affected Tests"))
+                .addComponent(useParallelTraversal)
+                .addComponent(useCoverageMap)
+                .addComponent(watchMode)
+                .addLabeledComponent("Watch mode depth level:", watchDepth)
+                .addComponent(new TitledSeparator("Running Tests"))
+                .addLabeledComponent("Concurrent test configurations:", testForkCount)
+                .addLabeledComponent("Time budget (seconds):", testTimeBudgetSeconds)
+                .addComponentFillVertically(new JPanel(), 0)
+                .getPanel();
+        reset();
+        return panel;
+    }
+
+    /**
+     * Checks if any component differs from the stored settings.
+     *
+     * @return True if the settings were edited, false otherwise.
+     */
+    @Override
+    public boolean isModified() {
+        ChangeTrackingSettings.State state = getSettings().getState();
+        return persistFingerprintCache.isSelected() != state.persistFingerprintCache
+                || fingerprintCacheSize.getNumber() != state.fingerprintCacheSize
+                || useMethodBoundaryScanner.isSelected() != state.useMethodBoundaryScanner
+                || diffChangedLinesOnly.isSelected() != state.diffChangedLinesOnly
+                || usePsiForWorkingCopy.isSelected() != state.usePsiForWorkingCopy
+                || useParallelTraversal.isSelected() != state.useParallelTraversal
+                || !baseRef.getText().trim().equals(getSettings().getBaseRef())
+                || watchMode.isSelected() != state.watchMode
+                || watchDepth.getNumber() != state.watchDepth
+                || testForkCount.getNumber() != state.testForkCount
+                || testTimeBudgetSeconds.getNumber() != state.testTimeBudgetSeconds
+                || useCoverageMap.isSelected() != state.useCoverageMap;
+    }
+
+    /**
+     * Stores the edited settings and starts, restarts or stops the watcher to match them.
+     */
+    @Override
+    public void apply() {
+        ChangeTrackingSettings.State state = getSettings().getState();
+        boolean watcherChanged = watchMode.isSelected() != state.watchMode || watchDepth.getNumber() != state.watchDepth
+                || !Objects.equals(baseRef.getText().trim(), getSettings().getBaseRef());
+        state.persistFingerprintCache = persistFingerprintCache.isSelected();
+        state.fingerprintCacheSize = fingerprintCacheSize.getNumber();
+        state.useMethodBoundaryScanner = useMethodBoundaryScanner.isSelected();
+        state.diffChangedLinesOnly = diffChangedLinesOnly.isSelected();
+        state.usePsiForWorkingCopy = usePsiForWorkingCopy.isSelected();
+        state.useParallelTraversal = useParallelTraversal.isSelected();
+        state.baseRef = baseRef.getText().trim();
+        state.watchMode = watchMode.isSelected();
+        state.watchDepth = watchDepth.getNumber();
+        state.testForkCount = testForkCount.getNumber();
+        state.testTimeBudgetSeconds = testTimeBudgetSeconds.getNumber();
+        state.useCoverageMap = useCoverageMap.isSelected();
+
+        if (watcherChanged) {
+            ChangeTrackingWatcher watcher = project.getService(ChangeTrackingWatcher.class);
+            watcher.stop();
+            if (state.watchMode) {
+                watcher.start(getSettings().getWatchDepth());
+            }
+        }
+    }
+
+    /**
+     * Loads the stored settings into the components.
+     */
+    @Override
+    public void reset() {
+        ChangeTrackingSettings settings = getSettings();
+        ChangeTrackingSettings.State state = settings.getState();
+        persistFingerprintCache.setSelected(state.persistFingerprintCache);
+        fingerprintCacheSize.setNumber(settings.getFingerprintCacheSize());
+        useMethodBoundaryScanner.setSelected(state.useMethodBoundaryScanner);
+        diffChangedLinesOnly.setSelected(state.diffChangedLinesOnly);
+        usePsiForWorkingCopy.setSelected(state.usePsiForWorkingCopy);
+        useParallelTraversal.setSelected(state.useParallelTraversal);
+        baseRef.setText(settings.getBaseRef());
+        watchMode.setSelected(state.watchMode);
+        watchDepth.setNumber(settings.getWatchDepth());
+        testForkCount.setNumber(settings.getTestForkCount());
+        testTimeBudgetSeconds.setNumber(settings.getTestTimeBudgetSeconds());
+        useCoverageMap.setSelected(state.useCoverageMap);
+    }
+
+    /**
+     * Returns the settings of the project.
+     *
+     * @return The settings.
+     */
+    private @NotNull ChangeTrackingSettings getSettings() {
+        return project.getService(ChangeTrackingSettings.class);
+    }
+}
@@ -1,37 +1,38 @@
 package com.your.projectroot;
 
-import com.github.javaparser.JavaParser;
-import com.github.javaparser.ast.CompilationUnit;
-import com.github.javaparser.ast.body.ClassOrInterfaceDeclaration;
-import com.github.javaparser.ast.body.MethodDeclaration;
-import com.github.javaparser.ast.visitor.VoidVisitorAdapter;
+import com.intellij.concurrency.JobLauncher;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.application.ReadAction;
 import com.intellij.openapi.components.Service;
 import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.editor.Document;
+import com.intellij.openapi.fileEditor.FileDocumentManager;
+import com.intellij.openapi.progress.ProcessCanceledException;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.progress.util.ProgressIndicatorUtils;
 import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.text.StringUtil;
 import com.intellij.openapi.vcs.changes.Change;
 import com.intellij.openapi.vcs.changes.ChangeListManager;
 import com.intellij.openapi.vcs.changes.LocalChangeList;
+import com.intellij.openapi.vfs.LocalFileSystem;
 import com.intellij.openapi.vfs.VirtualFile;
 import com.intellij.psi.*;
 import com.intellij.psi.search.GlobalSearchScope;
-import com.intellij.psi.search.PsiShortNamesCache;
+import com.intellij.psi.search.SearchScope;
 import com.intellij.psi.search.searches.ReferencesSearch;
 import com.intellij.psi.util.PsiTreeUtil;
-import org.eclipse.jgit.api.Git;
+import com.intellij.util.concurrency.AppExecutorUtil;
 import org.eclipse.jgit.lib.ObjectId;
-import org.eclipse.jgit.lib.ObjectReader;
-import org.eclipse.jgit.lib.Repository;
-import org.eclipse.jgit.revwalk.RevCommit;
-import org.eclipse.jgit.revwalk.RevWalk;
-import org.eclipse.jgit.treewalk.TreeWalk;
-import org.eclipse.jgit.treewalk.filter.PathFilter;
-
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
+
 import java.io.File;
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.IntConsumer;
 
 /**
  * This class contains the main logic of the plugin for tracking code changes and running relevant tests.
@@ -43,10 +44,109 @@ public final class ChangeTrackingService {
 
     private static final Logger logger = Logger.getInstance(ChangeTrackingService.class);
     private final Project project;
-    public static final List<String> CHANGES = new ArrayList<>();
-    private final Map<String, Integer> AFFECTED_METHODS = new HashMap<>();
-    private final Set<PsiMethod> PRIVATE_METHODS = new HashSet<>();
-    private final Set<PsiMethod> PUBLIC_METHOD_TESTS = new HashSet<>();
+    private static final ExecutorService DIFF_EXECUTOR = AppExecutorUtil.createBoundedApplicationPoolExecutor(
+            "ChangeTrackingDiff", Runtime.getRuntime().availableProcessors());
+    private static final MethodFingerprints NO_METHODS = MethodFingerprints.of(Collections.emptyMap());
+
+    /**
+     * The tests affected by a changed method.
+     *
+     * @param testMethods    The test methods reached from the changed method.
+     * @param privateMethods The private methods reached from the changed method, whose tests are found by name.
+     */
+    public record AffectedTests(Set<PsiMethod> testMethods, Set<PsiMethod> privateMethods) {
+    }
+
+    /**
+     * The state of one search for affected methods. Every run and every batch of the {@link ChangeTrackingWatcher}
+     * uses its own search, so that they can run at the same time without sharing or clearing each other's results.
+     * A search can record the callers and declarations of every method it reached, so that the tests affected by
+     * each changed method can be read back after a single traversal from all of them.
+     */
+    private static final class UsageSearch {
+        private final MethodSymbolTable METHOD_SYMBOLS = new MethodSymbolTable();
+        private final Set<PsiMethod> PRIVATE_METHODS = ConcurrentHashMap.newKeySet();
+        private final Set<PsiMethod> PUBLIC_METHOD_TESTS = ConcurrentHashMap.newKeySet();
+        private final Map<Integer, Set<Integer>> CALLER_IDS;
+        private final Map<Integer, Set<PsiMethod>> DECLARATIONS;
+        private final ProgressIndicator reportIndicator;
+        private MethodCallGraphIndex callGraph;
+
+        /**
+         * Constructs a search.
+         *
+         * @param reportIndicator      The indicator on which found tests are reported, or null if they are not reported.
+         * @param recordReachedMethods Whether the callers and declarations of the reached methods are recorded.
+         */
+        private UsageSearch(ProgressIndicator reportIndicator, boolean recordReachedMethods) {
+            this.reportIndicator = reportIndicator;
+            this.CALLER_IDS = recordReachedMethods ? new ConcurrentHashMap<>() : null;
+            this.DECLARATIONS = recordReachedMethods ? new ConcurrentHashMap<>() : null;
+        }
+
+        /**
+         * Records a declaration a reached method resolved to, if the search records reached methods.
+         *
+         * @param methodId The id of the reached method.
+         * @param method   The declaration.
+         */
+        private void recordDeclaration(int methodId, PsiMethod method) {
+            if (DECLARATIONS != null) {
+                DECLARATIONS.computeIfAbsent(methodId, key -> ConcurrentHashMap.newKeySet()).add(method);
+            }
+        }
+
+        /**
+         * Records a caller of a reached method, if the search records reached methods.
+         *
+         * @param methodId The id of the reached method.
+         * @param callerId The id of its caller.
+         */
+        private void recordCaller(int methodId, int callerId) {
+            if (CALLER_IDS != null) {
+                CALLER_IDS.computeIfAbsent(methodId, key -> ConcurrentHashMap.newKeySet()).add(callerId);
+            }
+        }
+
+        /**
+         * Collects the tests affected by one of the changed methods the search started from, by walking the recorded
+         * callers up to the given depth. Every method is first reached by the search at its lowest depth from any
+         * changed method, so its recorded callers cover the depth left for each changed method reaching it.
+         *
+         * @param changedMethod The signature of the changed method.
+         * @param maxDepth      The maximum depth for method usage search.
+         * @return The tests affected by the changed method.
+         */
+        private AffectedTests collectAffectedTests(String changedMethod, int maxDepth) {
+            Set<PsiMethod> testMethods = new HashSet<>();
+            Set<PsiMethod> privateMethods = new HashSet<>();
+            int changeId = METHOD_SYMBOLS.intern(changedMethod);
+            Set<Integer> reached = new HashSet<>(List.of(changeId));
+            List<Integer> level = List.of(changeId);
+            for (int depth = 0; depth <= maxDepth && !level.isEmpty(); depth++) {
+                List<Integer> nextLevel = new ArrayList<>();
+                for (int methodId : level) {
+                    for (PsiMethod method : DECLARATIONS.getOrDefault(methodId, Collections.emptySet())) {
+                        if (PUBLIC_METHOD_TESTS.contains(method)) {
+                            testMethods.add(method);
+                        }
+                        if (PRIVATE_METHODS.contains(method)) {
+                            privateMethods.add(method);
+                        }
+                    }
+                    if (depth < maxDepth) {
+                        for (int callerId : CALLER_IDS.getOrDefault(methodId, Collections.emptySet())) {
+                            if (reached.add(callerId)) {
+                                nextLevel.add(callerId);
+                            }
+                        }
+                    }
+                }
+                level = nextLevel;
+            }
+            return new AffectedTests(testMethods, privateMethods);
+        }
+    }
 
     /**
      * Constructs a ChangeTrackingService instance for the specified project.
@@ -57,207 +157,613 @@ public final class ChangeTrackingService {
         this.project = project;
     }
 
+    private static final double DIFF_PHASE_END = 0.4;
+    private static final double TRAVERSAL_PHASE_END = 0.8;
+
     /**
      * Tracks changes in the project files, identifies affected methods, and runs relevant tests.
+     * Must be called from a background thread; each phase reports its progress to the indicator
+     * and the run stops as soon as the indicator is cancelled.
+     *
+     * @param maxDepth  The maximum depth for method usage search.
+     * @param indicator The progress indicator of the run.
+     * @return The number of tests that were started.
+     */
+    public int trackChangesAndRunTests(int maxDepth, ProgressIndicator indicator) {
+        UsageSearch search = new UsageSearch(indicator, false);
+        indicator.setIndeterminate(false);
+
+        // Get the list of locally changed files, and of the files changed on the branch when a base ref is set
+        indicator.setText("Comparing changed files with the base commit");
+        List<VirtualFile> changedFiles = collectChangedFiles();
+
+        // Compare every changed file against its base version
+        Set<String> changes = ConcurrentHashMap.newKeySet();
+        identifyChangedMethodsByComparing(changedFiles, changes, indicator);
+        indicator.setFraction(DIFF_PHASE_END);
+
+        // Tests of methods with recorded coverage are looked up directly, the others are searched
+        indicator.setText("Looking up the recorded coverage of changed methods");
+        Map<String, Set<PsiMethod>> coveringTests = findTestsByCoverage(changes, indicator);
+        coveringTests.values().forEach(search.PUBLIC_METHOD_TESTS::addAll);
+        List<String> uncoveredChanges = new ArrayList<>(changes);
+        uncoveredChanges.removeAll(coveringTests.keySet());
+
+        //DFS Traversal to get Usages, affected tests are reported as soon as they are found
+        indicator.setText("Finding usages of changed methods");
+        findMethodUsages(search, uncoveredChanges, maxDepth, indicator);
+        indicator.setFraction(TRAVERSAL_PHASE_END);
+
+        //Running the Tests
+        indicator.setText("Selecting affected tests");
+        return runningPrivateAndPublicMethodsTests(search.PUBLIC_METHOD_TESTS, search.PRIVATE_METHODS, indicator);
+    }
+
+    /**
+     * Runs the tests of an already computed affected-test set, e.g. the one kept up to date by the
+     * {@link ChangeTrackingWatcher}. Must be called from a background thread.
+     *
+     * @param affectedTests The affected tests.
+     * @param indicator     The progress indicator of the run.
+     * @return The number of tests that were started.
+     */
+    public int runAffectedTests(AffectedTests affectedTests, ProgressIndicator indicator) {
+        indicator.setText("Selecting affected tests");
+        return runningPrivateAndPublicMethodsTests(affectedTests.testMethods(), affectedTests.privateMethods(), indicator);
+    }
+
+    /**
+     * Finds the methods of each of the given files that differ from their base version, e.g. for one batch of
+     * the {@link ChangeTrackingWatcher}. The repository is opened and the base commit resolved once for the batch,
+     * and the base blobs of all files are looked up in a single tree walk. Must be called from a background thread.
+     *
+     * @param files The virtual files to be compared.
+     * @return The signatures of the changed methods of every compared file, all methods for files that are not
+     * in the base commit, empty for files that are invalid or outside the project. Files that cannot be compared,
+     * e.g. because their base version or working copy cannot be read, are left out, so that the caller can keep
+     * their previous result.
+     */
+    public Map<VirtualFile, Set<String>> findChangedMethods(Collection<VirtualFile> files) {
+        Map<VirtualFile, Set<String>> changesByFile = new HashMap<>();
+        Map<String, VirtualFile> filesByRelativePath = new HashMap<>();
+        String projectBasePath = project.getBasePath();
+        for (VirtualFile file : files) {
+            if (projectBasePath != null && file.isValid() && file.getPath().startsWith(projectBasePath + "/")) {
+                filesByRelativePath.put(CustomUtil.getRelativeFilePath(file, projectBasePath), file);
+            } else {
+                changesByFile.put(file, new HashSet<>());
+            }
+        }
+        if (filesByRelativePath.isEmpty()) {
+            return changesByFile;
+        }
+
+        boolean diffChangedLinesOnly = project.getService(ChangeTrackingSettings.class).isDiffChangedLinesOnly();
+        try (GitRepositorySession gitSession = openGitSession(projectBasePath)) {
+            Map<String, ObjectId> baseBlobIds = gitSession.findBaseBlobIds(filesByRelativePath.keySet());
+            for (Map.Entry<String, VirtualFile> entry : filesByRelativePath.entrySet()) {
+                ProgressManager.checkCanceled();
+                VirtualFile file = entry.getValue();
+                FileComparison comparison = prepareComparison(gitSession, file, baseBlobIds.get(entry.getKey()),
+                        diffChangedLinesOnly);
+                Set<String> changes = comparison == null ? null : identifyChangedMethodsByComparing(comparison);
+                if (changes != null) {
+                    changesByFile.put(file, changes);
+                }
+            }
+        } catch (IOException e) {
+            logger.info("Cannot read the base commit", e);
+        }
+        return changesByFile;
+    }
+
+    /**
+     * Finds the tests affected by each of the given changed methods, so that the results can be combined
+     * and updated per method. The tests of methods with recorded coverage are looked up in the {@link CoverageMap};
+     * the other methods are searched in one traversal, whose reached methods are shared by all of them,
+     * and their affected tests are read back from it. Must be called from a background thread.
+     *
+     * @param changedMethods The signatures of the changed methods.
+     * @param maxDepth       The maximum depth for method usage search.
+     * @param indicator      The progress indicator of the search.
+     * @return The affected tests of every changed method.
+     */
+    public Map<String, AffectedTests> findAffectedTests(Collection<String> changedMethods, int maxDepth,
+                                                        ProgressIndicator indicator) {
+        Map<String, AffectedTests> affectedTests = new HashMap<>();
+        Map<String, Set<PsiMethod>> coveringTests = findTestsByCoverage(changedMethods, indicator);
+        List<String> uncoveredChanges = new ArrayList<>();
+        for (String changedMethod : changedMethods) {
+            Set<PsiMethod> testMethods = coveringTests.get(changedMethod);
+            if (testMethods != null) {
+                affectedTests.put(changedMethod, new AffectedTests(testMethods, Set.of()));
+            } else {
+                uncoveredChanges.add(changedMethod);
+            }
+        }
+
+        UsageSearch search = new UsageSearch(null, true);
+        findMethodUsages(search, uncoveredChanges, maxDepth, indicator);
+        for (String changedMethod : uncoveredChanges) {
+            affectedTests.put(changedMethod, search.collectAffectedTests(changedMethod, maxDepth));
+        }
+        return affectedTests;
+    }
+
+    /**
+     * Looks up the tests that executed the changed methods according to the {@link CoverageMap}.
+     * Coverage is not limited by the search depth and needs no reference search.
+     *
+     * @param changedMethods The signatures of the changed methods.
+     * @param indicator      The progress indicator of the run.
+     * @return The test methods covering each changed method with recorded coverage, empty if the coverage map is not used.
+     */
+    private Map<String, Set<PsiMethod>> findTestsByCoverage(Collection<String> changedMethods, ProgressIndicator indicator) {
+        CoverageMap coverageMap = project.getService(CoverageMap.class);
+        if (!project.getService(ChangeTrackingSettings.class).isUseCoverageMap() || !coverageMap.isAvailable()) {
+            return Collections.emptyMap();
+        }
+        Map<String, Set<String>> testsByChange = new HashMap<>();
+        for (String changedMethod : changedMethods) {
+            Set<String> tests = coverageMap.getTests(changedMethod);
+            if (tests != null) {
+                testsByChange.put(changedMethod, tests);
+            }
+        }
+        Map<String, Set<PsiMethod>> coveringTests = ReadAction.nonBlocking(() -> {
+                    Map<String, Set<PsiMethod>> testMethodsByChange = new HashMap<>();
+                    Map<String, List<PsiMethod>> testMethodsByTest = new HashMap<>();
+                    testsByChange.forEach((changedMethod, tests) -> {
+                        Set<PsiMethod> testMethods = new HashSet<>();
+                        for (String test : tests) {
+                            testMethods.addAll(testMethodsByTest.computeIfAbsent(test, key -> {
+                                int separator = key.indexOf(',');
+                                return CustomUtil.findTestMethods(project, key.substring(0, separator), key.substring(separator + 1));
+                            }));
+                        }
+                        testMethodsByChange.put(changedMethod, testMethods);
+                    });
+                    return testMethodsByChange;
+                })
+                .inSmartMode(project)
+                .wrapProgress(indicator)
+                .executeSynchronously();
+        logger.info(coveringTests.size() + " changed methods found by coverage, "
+                + (changedMethods.size() - coveringTests.size()) + " changed methods without coverage");
+        return coveringTests;
+    }
+
+    /**
+     * Opens a git session comparing against the configured base ref, or against HEAD if none is set.
      *
-     * @param maxDepth The maximum depth for method usage search.
+     * @param projectBasePath The base path of the project, the root of the repository.
+     * @return The opened session.
+     * @throws IOException If the repository, HEAD or the base commit cannot be read.
      */
-    public void trackChangesAndRunTests(int maxDepth) {
+    private GitRepositorySession openGitSession(String projectBasePath) throws IOException {
+        return GitRepositorySession.open(new File(projectBasePath), project.getService(ChangeTrackingSettings.class).getBaseRef());
+    }
+
+    /**
+     * Collects the files of all local changes. When a base ref is set, the Java files changed by the commits
+     * since the merge-base are added, found with a single tree-to-tree diff.
+     *
+     * @return The list of changed virtual files.
+     */
+    public List<VirtualFile> collectChangedFiles() {
         final ChangeListManager changeListManager = ChangeListManager.getInstance(project);
 
         // Get the list of local changes
         final List<LocalChangeList> changes = changeListManager.getChangeLists();
 
-        // Iterate over changes and process them
+        Set<VirtualFile> changedFiles = new LinkedHashSet<>();
         for (LocalChangeList changeList : changes) {
             for (Change change : changeList.getChanges()) {
                 VirtualFile file = change.getVirtualFile();
                 if (file != null) {
-                    identifyChangedMethodsByComparing(file);
+                    changedFiles.add(file);
                 } else {
                     logger.info("File is null");
                 }
             }
         }
+        changedFiles.addAll(collectFilesChangedSinceBase());
+        return new ArrayList<>(changedFiles);
+    }
 
-        //DFS Traversal to get Usages
-        findMethodUsages(maxDepth);
-
-        //Running the Tests
-        runningPrivateAndPublicMethodsTests();
+    /**
+     * Collects the Java files changed by the commits between the merge-base of the configured base ref and HEAD.
+     *
+     * @return The list of changed virtual files, empty if no base ref is set.
+     */
+    private List<VirtualFile> collectFilesChangedSinceBase() {
+        List<VirtualFile> modifiedFiles = new ArrayList<>();
+        String projectBasePath = project.getBasePath();
+        if (projectBasePath == null || project.getService(ChangeTrackingSettings.class).getBaseRef().isEmpty()) {
+            return modifiedFiles;
+        }
+        try (GitRepositorySession gitSession = openGitSession(projectBasePath)) {
+            LocalFileSystem fileSystem = LocalFileSystem.getInstance();
+            for (String relativePath : gitSession.findJavaFilesChangedSinceBase()) {
+                VirtualFile file = fileSystem.findFileByPath(projectBasePath + "/" + relativePath);
+                if (file != null) {
+                    modifiedFiles.add(file);
+                } else {
+                    logger.info("File was deleted locally: " + relativePath);
+                }
+            }
+        } catch (IOException e) {
+            logger.info("Cannot compare HEAD with the base ref", e);
+        }
+        return modifiedFiles;
     }
 
     /**
-     * Updates the list of changed methods by comparing the old and new versions of a given file.
+     * Updates the list of changed methods by comparing the old and new versions of the given files.
+     * The repository is opened once and the base blobs of all files are looked up in a single tree walk.
+     * Base blobs are read on the calling thread, while parsing and comparing the files runs on a worker pool
+     * bounded by the number of cores.
      *
-     * @param file The virtual file to be compared.
+     * @param files     The virtual files to be compared.
+     * @param changes   The set receiving the signatures of the changed methods.
+     * @param indicator The progress indicator of the run.
      */
-    private void identifyChangedMethodsByComparing(VirtualFile file) {
-        final String sourceFilePath = file.getPath();
+    private void identifyChangedMethodsByComparing(List<VirtualFile> files, Set<String> changes, ProgressIndicator indicator) {
+        String projectBasePath = project.getBasePath();
+        if (projectBasePath == null) {
+            logger.info("Project's base path is null");
+            return;
+        }
 
-        String className = CustomUtil.getClassNameFromFilePath(sourceFilePath);
+        Map<String, VirtualFile> filesByRelativePath = new LinkedHashMap<>();
+        for (VirtualFile file : files) {
+            if (file.getPath().startsWith(projectBasePath + "/")) {
+                filesByRelativePath.put(CustomUtil.getRelativeFilePath(file, projectBasePath), file);
+            } else {
+                logger.info("File is outside of the project: " + file.getPath());
+            }
+        }
 
-        // Get old and new content of the file
-        String oldContent = getFileContent(file, this::getOldFileContent);
-        String newContent = getFileContent(file, this::getNewFileContent);
+        boolean diffChangedLinesOnly = project.getService(ChangeTrackingSettings.class).isDiffChangedLinesOnly();
+        List<Future<?>> comparisons = new ArrayList<>();
+        try (GitRepositorySession gitSession = openGitSession(projectBasePath)) {
+            Map<String, ObjectId> baseBlobIds = gitSession.findBaseBlobIds(filesByRelativePath.keySet());
+            for (Map.Entry<String, VirtualFile> entry : filesByRelativePath.entrySet()) {
+                indicator.checkCanceled();
+                FileComparison comparison = prepareComparison(gitSession, entry.getValue(),
+                        baseBlobIds.get(entry.getKey()), diffChangedLinesOnly);
+                if (comparison == null) {
+                    continue;
+                }
+                comparisons.add(DIFF_EXECUTOR.submit(() -> {
+                    Set<String> fileChanges = identifyChangedMethodsByComparing(comparison);
+                    if (fileChanges != null) {
+                        changes.addAll(fileChanges);
+                    }
+                }));
+            }
+        } catch (IOException e) {
+            logger.info("Cannot read the base commit", e);
+        } catch (ProcessCanceledException e) {
+            comparisons.forEach(future -> future.cancel(true));
+            throw e;
+        }
+        awaitComparisons(comparisons, indicator);
+    }
 
-        if (oldContent != null) {
-            compareFileContents(oldContent, newContent, className);
-        } else {
-            logger.info("Past Commit Content is null");
+    /**
+     * The base version of a file, as far as it is needed to compare the file with it.
+     *
+     * @param file            The virtual file to be compared.
+     * @param className       The name of the class declared by the file.
+     * @param baseBlobId      The id of the file's blob in the base commit, or null if the file is not in the base commit.
+     * @param oldFingerprints The cached fingerprints of the base version, or null if they are not cached.
+     * @param oldContent      The content of the base version, or null if it was not read.
+     */
+    private record FileComparison(VirtualFile file, String className, ObjectId baseBlobId,
+                                  MethodFingerprints oldFingerprints, String oldContent) {
+    }
+
+    /**
+     * Looks up what is needed to compare a file with its base version. Runs on the thread holding the git session.
+     * The base blob only needs to be read if its fingerprints are not cached yet or the lines are diffed.
+     * A file without base version, e.g. a new or renamed one, is compared against a version without methods.
+     *
+     * @param gitSession           The git session of the comparison.
+     * @param file                 The virtual file to be compared.
+     * @param baseBlobId           The id of the file's blob in the base commit, or null if the file is not in the base commit.
+     * @param diffChangedLinesOnly Whether only the methods overlapping the changed lines are compared.
+     * @return The base version of the file, or null if it cannot be read.
+     */
+    private FileComparison prepareComparison(GitRepositorySession gitSession, VirtualFile file, ObjectId baseBlobId,
+                                             boolean diffChangedLinesOnly) {
+        String className = getQualifiedClassName(file);
+        MethodFingerprints oldFingerprints = baseBlobId == null
+                ? NO_METHODS : project.getService(MethodFingerprintCache.class).get(className, baseBlobId);
+        String oldContent = null;
+        if (baseBlobId != null && (oldFingerprints == null || diffChangedLinesOnly)) {
+            oldContent = getOldFileContent(gitSession, baseBlobId);
+            if (oldContent == null) {
+                logger.info("Past Commit Content is null");
+                return null;
+            }
         }
+        return new FileComparison(file, className, baseBlobId, oldFingerprints, oldContent);
     }
 
     /**
-     * Retrieves the content of the file using the provided content retriever.
+     * Returns the fully qualified name of the class declared by a file, so that changed methods
+     * can be resolved with {@link JavaPsiFacade#findClass}. The package is taken from the file's PSI.
      *
-     * @param file The virtual file whose content is to be retrieved.
-     * @param contentRetriever The content retriever function.
-     * @return The content of the file as a string.
+     * @param file The virtual file.
+     * @return The qualified class name, or the simple class name if the file has no Java PSI.
      */
-    private String getFileContent(VirtualFile file, ContentRetriever contentRetriever) {
-        try {
-            return contentRetriever.retrieve(file);
-        } catch (IOException | RuntimeException e) {
-            String message = e instanceof IOException ? "OLD" : "NEW";
-            logger.info("Cannot get " + message + " file content");
-            return null;
+    private String getQualifiedClassName(VirtualFile file) {
+        String className = MethodSignatures.getClassNameFromFilePath(file.getPath());
+        String packageName = ReadAction.compute(() -> file.isValid()
+                && PsiManager.getInstance(project).findFile(file) instanceof PsiJavaFile javaFile
+                ? javaFile.getPackageName() : "");
+        return packageName.isEmpty() ? className : packageName + "." + className;
+    }
+
+    /**
+     * Waits for all submitted file comparisons to complete, reporting the diff phase progress.
+     * The remaining comparisons are cancelled if the indicator is cancelled.
+     *
+     * @param comparisons The futures of the submitted comparisons.
+     * @param indicator   The progress indicator of the run.
+     */
+    private void awaitComparisons(List<Future<?>> comparisons, ProgressIndicator indicator) {
+        for (int i = 0; i < comparisons.size(); i++) {
+            try {
+                ProgressIndicatorUtils.awaitWithCheckCanceled(comparisons.get(i), indicator);
+            } catch (ProcessCanceledException e) {
+                comparisons.forEach(future -> future.cancel(true));
+                throw e;
+            } catch (RuntimeException e) {
+                logger.info("Comparing file contents failed", e);
+            }
+            indicator.setFraction(DIFF_PHASE_END * (i + 1) / comparisons.size());
         }
     }
 
     /**
-     * Compares the contents of the old and new versions of a file.
+     * Finds the changed methods of a file by comparing its working copy with its base version.
+     * Can run on a worker thread of the diff pool.
+     * When only changed lines are diffed, the changed hunks are computed first and only the methods
+     * overlapping them are compared.
      *
-     * @param oldContent The content of the old version of the file.
-     * @param newContent The content of the new version of the file.
-     * @param className The name of the class containing the methods.
+     * @param comparison The file and its base version.
+     * @return The signatures of the changed methods, or null if the working copy cannot be read
+     * or one of the versions cannot be parsed.
      */
-    private void compareFileContents(String oldContent, String newContent, String className) {
-        JavaParser parser = new JavaParser();
-        CompilationUnit oldCompilationUnit = parseContent(parser, oldContent);
-        CompilationUnit newCompilationUnit = parseContent(parser, newContent);
+    private Set<String> identifyChangedMethodsByComparing(FileComparison comparison) {
+        WorkingCopy workingCopy = readWorkingCopy(comparison.file());
+        if (workingCopy == null) {
+            return null;
+        }
+        Set<String> changes = new HashSet<>();
+        String className = comparison.className();
+        String oldContent = comparison.oldContent();
+        String newContent = workingCopy.content();
+        ObjectId newContentId = GitRepositorySession.computeBlobId(newContent);
+        if (newContentId.equals(comparison.baseBlobId())) {
+            // Working copy is identical to the base version
+            return changes;
+        }
 
-        // Compare methods
-        compareMethods(oldCompilationUnit, newCompilationUnit, className);
+        MethodFingerprints oldFingerprints = comparison.oldFingerprints();
+        if (oldFingerprints == null) {
+            oldFingerprints = getFingerprints(className, comparison.baseBlobId(), oldContent);
+        }
+        if (oldContent == null) {
+            // Compare all methods
+            MethodFingerprints newFingerprints = getWorkingCopyFingerprints(className, newContentId, workingCopy, null);
+            return compareMethods(oldFingerprints, newFingerprints, changes) ? changes : null;
+        }
+
+        ChangedLineRanges changedLines = ChangedLineRanges.compute(oldContent, newContent);
+        if (changedLines.isEmpty()) {
+            return changes;
+        }
+        MethodFingerprints newFingerprints = getWorkingCopyFingerprints(className, newContentId, workingCopy,
+                changedLines::overlapsNew);
+        if (oldFingerprints != null) {
+            oldFingerprints = oldFingerprints.restrictTo(changedLines::overlapsOld);
+        }
+
+        // Compare methods overlapping the changed lines
+        return compareMethods(oldFingerprints, newFingerprints, changes) ? changes : null;
     }
 
     /**
-     * Parses the content of a file into a CompilationUnit.
+     * The content of the working copy of a file, together with its PSI if the methods are fingerprinted from it.
      *
-     * @param parser The JavaParser instance.
-     * @param content The content to be parsed.
-     * @return The parsed CompilationUnit.
+     * @param content           The content of the file, with the file's line separators.
+     * @param psiFile           The PSI of the file, or null if the content has to be parsed.
+     * @param document          The document the content was taken from, or null if it was read from disk.
+     * @param modificationStamp The modification stamp of the document when the content was taken.
      */
-    private CompilationUnit parseContent(JavaParser parser, String content) {
-        return parser.parse(new ByteArrayInputStream(content.getBytes())).getResult().orElse(null);
+    private record WorkingCopy(String content, PsiJavaFile psiFile, Document document, long modificationStamp) {
     }
 
     /**
-     * Functional interface for content retrievers.
+     * Reads the working copy of a file. In PSI mode the content is taken from the in-memory document
+     * under a read action, otherwise the file is read from disk.
+     *
+     * @param file The virtual file to be read.
+     * @return The working copy, or null if it cannot be read.
      */
-    @FunctionalInterface
-    private interface ContentRetriever {
-        String retrieve(VirtualFile file) throws IOException;
+    private WorkingCopy readWorkingCopy(VirtualFile file) {
+        if (project.getService(ChangeTrackingSettings.class).isUsePsiForWorkingCopy()) {
+            WorkingCopy workingCopy = ReadAction.compute(() -> readWorkingCopyFromPsi(file));
+            if (workingCopy != null) {
+                return workingCopy;
+            }
+        }
+        String content = getFileContent(file, this::getNewFileContent);
+        return content == null ? null : new WorkingCopy(content, null, null, 0);
     }
 
     /**
-     * Retrieves the content of the file from the last commit.
+     * Takes the content of a file from its document if the PSI of the file is up-to-date. Must be called under a read action.
      *
-     * @param file The virtual file whose content is to be retrieved.
-     * @return The content of the file as a string.
-     * @throws IOException If an I/O error occurs.
+     * @param file The virtual file to be read.
+     * @return The working copy, or null if there is no committed Java PSI for the file.
      */
-    private String getOldFileContent(VirtualFile file) throws IOException {
-        String projectBasePath = project.getBasePath();
-        if (projectBasePath == null) {
-            logger.info("Project's base path is null");
-            throw new IOException("Project's base path is null");
+    private WorkingCopy readWorkingCopyFromPsi(VirtualFile file) {
+        if (!file.isValid()) {
+            return null;
+        }
+        FileDocumentManager fileDocumentManager = FileDocumentManager.getInstance();
+        Document document = fileDocumentManager.getDocument(file);
+        if (document == null || !PsiDocumentManager.getInstance(project).isCommitted(document)) {
+            return null;
+        }
+        if (!(PsiManager.getInstance(project).findFile(file) instanceof PsiJavaFile psiFile)) {
+            return null;
         }
+        // Documents always use \n, convert back so that the content matches the blob in the repository
+        String content = StringUtil.convertLineSeparators(document.getText(), fileDocumentManager.getLineSeparator(file, project));
+        return new WorkingCopy(content, psiFile, document, document.getModificationStamp());
+    }
 
-        String relativeFilePath = CustomUtil.getRelativeFilePath(file, projectBasePath);
-        File repoDir = new File(projectBasePath);
+    /**
+     * Returns the method fingerprints of the working copy of a file. Cached fingerprints are used if present,
+     * otherwise the methods are fingerprinted from the PSI, falling back to parsing the content.
+     * Only complete tables are cached.
+     *
+     * @param className   The name of the class declared by the file.
+     * @param contentId   The git blob id of the working copy.
+     * @param workingCopy The working copy.
+     * @param lineFilter  The filter selecting the lines of the methods to fingerprint, or null to fingerprint all methods.
+     * @return The fingerprints of the selected methods, or null if the content cannot be parsed.
+     */
+    private MethodFingerprints getWorkingCopyFingerprints(String className, ObjectId contentId, WorkingCopy workingCopy,
+                                                          ChangedLineRanges.LineFilter lineFilter) {
+        MethodFingerprintCache fingerprintCache = project.getService(MethodFingerprintCache.class);
+        MethodFingerprints fingerprints = fingerprintCache.get(className, contentId);
+        if (fingerprints != null) {
+            return lineFilter == null ? fingerprints : fingerprints.restrictTo(lineFilter);
+        }
 
-        try (Git git = Git.open(repoDir)) {
-            Repository repository = git.getRepository();
-            ObjectId headId = resolveHead(repository);
-            return getFileContentFromHeadCommit(repository, headId, relativeFilePath);
+        ChangedLineRanges.LineFilter methodFilter = lineFilter == null ? (beginLine, endLine) -> true : lineFilter;
+        Map<String, MethodFingerprints.Fingerprint> methodsMap = null;
+        if (workingCopy.psiFile() != null) {
+            methodsMap = ReadAction.compute(() -> fingerprintPsi(workingCopy, className, methodFilter));
+        }
+        fingerprints = methodsMap != null
+                ? MethodFingerprints.of(methodsMap)
+                : extractFingerprints(className, workingCopy.content(), methodFilter);
+        if (fingerprints != null && lineFilter == null) {
+            fingerprintCache.put(className, contentId, fingerprints);
         }
+        return fingerprints;
     }
 
+    /**
+     * Fingerprints the methods of a working copy from its PSI. Must be called under a read action.
+     *
+     * @param workingCopy The working copy taken from the document.
+     * @param className   The name of the class declared by the file.
+     * @param lineFilter  The filter selecting the lines of the methods to fingerprint.
+     * @return A map of method signatures to fingerprints, or null if the document changed in the meantime
+     * or the PSI cannot be fingerprinted.
+     */
+    private Map<String, MethodFingerprints.Fingerprint> fingerprintPsi(WorkingCopy workingCopy, String className,
+                                                                       ChangedLineRanges.LineFilter lineFilter) {
+        Document document = workingCopy.document();
+        if (!workingCopy.psiFile().isValid() || document.getModificationStamp() != workingCopy.modificationStamp()
+                || !PsiDocumentManager.getInstance(project).isCommitted(document)) {
+            return null;
+        }
+        Map<String, MethodFingerprints.Fingerprint> methodsMap = PsiMethodFingerprinter.fingerprint(
+                workingCopy.psiFile(), document, className, lineFilter);
+        if (methodsMap == null) {
+            logger.info("Falling back to JavaParser for the working copy of " + className);
+        }
+        return methodsMap;
+    }
 
     /**
-     * Resolves the HEAD commit object ID.
+     * Retrieves the content of the file from the base commit.
      *
-     * @param repository The repository to resolve the HEAD commit from.
-     * @return The ObjectId of the HEAD commit.
-     * @throws IOException If the HEAD commit cannot be resolved.
+     * @param gitSession The git session of the current run.
+     * @param baseBlobId The id of the file's blob in the base commit.
+     * @return The content of the file as a string, or null if it cannot be read.
      */
-    private ObjectId resolveHead(Repository repository) throws IOException {
-        ObjectId headId = repository.resolve("HEAD");
-        if (headId == null) {
-            throw new IOException("Couldn't resolve HEAD");
+    private String getOldFileContent(GitRepositorySession gitSession, ObjectId baseBlobId) {
+        try {
+            return gitSession.readBlob(baseBlobId);
+        } catch (IOException e) {
+            logger.info("Cannot get OLD file content");
+            return null;
         }
-        return headId;
     }
 
     /**
-     * Retrieves the content of the specified file from the HEAD commit.
+     * Retrieves the content of the file using the provided content retriever.
      *
-     * @param repository The repository to retrieve the file content from.
-     * @param headId The ObjectId of the HEAD commit.
-     * @param relativeFilePath The relative path of the file to retrieve.
+     * @param file The virtual file whose content is to be retrieved.
+     * @param contentRetriever The content retriever function.
      * @return The content of the file as a string.
-     * @throws IOException If an I/O error occurs or the file is not found.
      */
-    private String getFileContentFromHeadCommit(Repository repository, ObjectId headId, String relativeFilePath) throws IOException {
-        try (RevWalk revWalk = new RevWalk(repository)) {
-            RevCommit headCommit = revWalk.parseCommit(headId);
-            ObjectId treeId = headCommit.getTree().getId();
-
-            return findFileContentInTree(repository, treeId, relativeFilePath);
+    private String getFileContent(VirtualFile file, ContentRetriever contentRetriever) {
+        try {
+            return contentRetriever.retrieve(file);
+        } catch (IOException | RuntimeException e) {
+            String message = e instanceof IOException ? "OLD" : "NEW";
+            logger.info("Cannot get " + message + " file content");
+            return null;
         }
     }
 
     /**
-     * Finds the content of the specified file in the given tree.
+     * Returns the method fingerprints of a file version, parsing the content only if they are not cached.
      *
-     * @param repository The repository to search.
-     * @param treeId The ObjectId of the tree to search in.
-     * @param relativeFilePath The relative path of the file to find.
-     * @return The content of the file as a string.
-     * @throws IOException If an I/O error occurs or the file is not found.
-     */
-    private String findFileContentInTree(Repository repository, ObjectId treeId, String relativeFilePath) throws IOException {
-        try (TreeWalk treeWalk = new TreeWalk(repository)) {
-            treeWalk.addTree(treeId);
-            treeWalk.setRecursive(true);
-            treeWalk.setFilter(PathFilter.create(relativeFilePath));
-
-            while (treeWalk.next()) {
-                String path = treeWalk.getPathString();
-                if (path.equals(relativeFilePath)) {
-                    return getFileContentFromObjectId(repository, treeWalk.getObjectId(0));
-                }
+     * @param className The name of the class declared by the file.
+     * @param contentId The git blob id of the content.
+     * @param content   The content of the file version.
+     * @return The fingerprints of the file's methods, or null if the content cannot be parsed.
+     */
+    private MethodFingerprints getFingerprints(String className, ObjectId contentId, String content) {
+        MethodFingerprintCache fingerprintCache = project.getService(MethodFingerprintCache.class);
+        MethodFingerprints fingerprints = fingerprintCache.get(className, contentId);
+        if (fingerprints == null) {
+            fingerprints = extractFingerprints(className, content, (beginLine, endLine) -> true);
+            if (fingerprints != null) {
+                fingerprintCache.put(className, contentId, fingerprints);
             }
-
-            throw new IOException("File not found in the HEAD commit: " + relativeFilePath);
         }
+        return fingerprints;
     }
 
     /**
-     * Retrieves the content of the file represented by the given ObjectId.
+     * Extracts the fingerprints of the methods of a file version whose declaration overlaps the given lines.
      *
-     * @param repository The repository to read the file from.
-     * @param objectId The ObjectId of the file.
-     * @return The content of the file as a string.
-     * @throws IOException If an I/O error occurs.
+     * @param className  The name of the class declared by the file.
+     * @param content    The content of the file version.
+     * @param lineFilter The filter selecting the lines of the methods to fingerprint.
+     * @return The fingerprints of the selected methods, or null if the content cannot be parsed.
      */
-    private String getFileContentFromObjectId(Repository repository, ObjectId objectId) throws IOException {
-        try (ObjectReader objectReader = repository.newObjectReader();
-             ByteArrayOutputStream outputStream = new ByteArrayOutputStream()) {
-            objectReader.open(objectId).copyTo(outputStream);
-            return outputStream.toString(StandardCharsets.UTF_8);
+    private MethodFingerprints extractFingerprints(String className, String content,
+                                                   ChangedLineRanges.LineFilter lineFilter) {
+        if (project.getService(ChangeTrackingSettings.class).isUseMethodBoundaryScanner()) {
+            MethodFingerprints fingerprints = SourceMethodFingerprinter.scan(className, content, lineFilter);
+            if (fingerprints != null) {
+                return fingerprints;
+            }
+            logger.info("Falling back to JavaParser for " + className);
         }
+        return SourceMethodFingerprinter.parse(className, content, lineFilter);
+    }
+
+    /**
+     * Functional interface for content retrievers.
+     */
+    @FunctionalInterface
+    private interface ContentRetriever {
+        String retrieve(VirtualFile file) throws IOException;
     }
 
     /**
@@ -269,7 +775,7 @@ public final class ChangeTrackingService {
     private String getNewFileContent(VirtualFile file) {
         try {
             byte[] content = file.contentsToByteArray();
-            return new String(content);
+            return new String(content, file.getCharset());
         } catch (IOException e) {
             logger.info("Error reading new file content");
             throw new RuntimeException("Error reading new file content", e);
@@ -277,211 +783,360 @@ public final class ChangeTrackingService {
     }
 
     /**
-     * Compares the methods in the old and new versions of a compilation unit.
+     * Compares the methods in the old and new versions of a file and adds the changed ones to the changes.
      *
-     * @param oldCompilationUnit The old compilation unit.
-     * @param newCompilationUnit The new compilation unit.
-     * @param className          The name of the class containing the methods.
+     * @param oldFingerprints The fingerprints of the old version.
+     * @param newFingerprints The fingerprints of the new version.
+     * @param changes         The set receiving the signatures of the changed methods.
+     * @return True if the methods were compared, false if one of the versions could not be parsed.
      */
-    private void compareMethods(CompilationUnit oldCompilationUnit, CompilationUnit newCompilationUnit, String className) {
-        if (oldCompilationUnit == null || newCompilationUnit == null) {
-            logCompilationUnitStatus(oldCompilationUnit, newCompilationUnit);
-            return;
+    private boolean compareMethods(MethodFingerprints oldFingerprints, MethodFingerprints newFingerprints, Set<String> changes) {
+        if (oldFingerprints == null || newFingerprints == null) {
+            logFingerprintStatus(oldFingerprints, newFingerprints);
+            return false;
         }
-
-        Map<String, MethodDeclaration> oldMethodsMap = extractMethodsToMap(oldCompilationUnit, className);
-        List<MethodDeclaration> newMethods = extractMethods(newCompilationUnit);
-
-        for (MethodDeclaration newMethod : newMethods) {
-            String methodSignature = CustomUtil.getSignOfMethodDeclaration(newMethod.getSignature(), className);
-            if (!oldMethodsMap.containsKey(methodSignature)) {
-                CHANGES.add(methodSignature);
-            } else {
-                MethodDeclaration oldMethod = oldMethodsMap.get(methodSignature);
-                if (!oldMethod.getBody().equals(newMethod.getBody())) {
-                    CHANGES.add(methodSignature);
-                }
-                oldMethodsMap.remove(methodSignature);
-            }
-        }
-
-        // Add removed methods to changes
-        CHANGES.addAll(oldMethodsMap.keySet());
+        SourceMethodFingerprinter.collectChangedMethods(oldFingerprints, newFingerprints, changes);
+        return true;
     }
 
     /**
-     * Logs the status of the compilation units.
+     * Logs the status of the fingerprint tables.
      *
-     * @param oldCompilationUnit The old compilation unit.
-     * @param newCompilationUnit The new compilation unit.
+     * @param oldFingerprints The fingerprints of the old version.
+     * @param newFingerprints The fingerprints of the new version.
      */
-    private void logCompilationUnitStatus(CompilationUnit oldCompilationUnit, CompilationUnit newCompilationUnit) {
-        if (oldCompilationUnit == null) {
+    private void logFingerprintStatus(MethodFingerprints oldFingerprints, MethodFingerprints newFingerprints) {
+        if (oldFingerprints == null) {
             logger.info("Getting Old Compilation as null");
         }
-        if (newCompilationUnit == null) {
+        if (newFingerprints == null) {
             logger.info("Getting New Compilation as null");
         }
     }
 
     /**
-     * Extracts methods from the compilation unit and maps them by their signature.
+     * Finds the usages of changed methods and updates the affected methods map.
+     * The search from every changed method runs in its own non-blocking read action, which is restarted
+     * from the state before it whenever a write action interrupts it, so the IDE stays responsive.
      *
-     * @param compilationUnit The compilation unit to extract methods from.
-     * @param className       The name of the class containing the methods.
-     * @return A map of method signatures to method declarations.
+     * @param search         The search receiving the reached methods.
+     * @param changedMethods The signatures of the changed methods to search from.
+     * @param maxDepth       The maximum depth for method usage search.
+     * @param indicator      The progress indicator of the run.
      */
-    private Map<String, MethodDeclaration> extractMethodsToMap(CompilationUnit compilationUnit, String className) {
-        List<MethodDeclaration> methods = extractMethods(compilationUnit);
-        Map<String, MethodDeclaration> methodsMap = new HashMap<>();
-        for (MethodDeclaration method : methods) {
-            String methodSignature = CustomUtil.getSignOfMethodDeclaration(method.getSignature(), className);
-            methodsMap.put(methodSignature, method);
+    private void findMethodUsages(UsageSearch search, Collection<String> changedMethods, int maxDepth,
+                                  ProgressIndicator indicator) {
+        MethodCallGraphIndex callGraphIndex = project.getService(MethodCallGraphIndex.class);
+        boolean callGraphAvailable = ReadAction.nonBlocking(callGraphIndex::ensureUpToDate)
+                .inSmartMode(project)
+                .wrapProgress(indicator)
+                .executeSynchronously();
+        search.callGraph = callGraphAvailable ? callGraphIndex : null;
+
+        if (project.getService(ChangeTrackingSettings.class).isUseParallelTraversal()) {
+            findMethodUsagesBreadthFirst(search, changedMethods, maxDepth, indicator);
+            return;
         }
-        return methodsMap;
+
+        List<String> changes = new ArrayList<>(changedMethods);
+        for (int i = 0; i < changes.size(); i++) {
+            String change = changes.get(i);
+            indicator.setText2(change);
+            int changeId = search.METHOD_SYMBOLS.intern(change);
+            int[] depthsBefore = search.METHOD_SYMBOLS.snapshotDepths();
+            ReadAction.nonBlocking(() -> {
+                        search.METHOD_SYMBOLS.restoreDepths(depthsBefore);
+                        findUsagesForMethod(search, changeId, maxDepth, 0);
+                        return null;
+                    })
+                    .inSmartMode(project)
+                    .wrapProgress(indicator)
+                    .executeSynchronously();
+            indicator.setFraction(DIFF_PHASE_END + (TRAVERSAL_PHASE_END - DIFF_PHASE_END) * (i + 1) / changes.size());
+        }
+        indicator.setText2(null);
     }
 
     /**
-     * Extracts methods from the compilation unit.
+     * Finds the usages of changed methods level by level, starting from all changed methods at depth 0.
+     * The methods of a level are expanded concurrently, each in its own non-blocking read action,
+     * and their callers form the next level. Since every method is first reached at its minimum depth,
+     * it is expanded only once. Levels are int arrays of method ids, split into batches for the workers,
+     * and the next level is read back from the depths recorded in the symbol table.
      *
-     * @param compilationUnit The compilation unit to extract methods from.
-     * @return A list of method declarations.
+     * @param search         The search receiving the reached methods.
+     * @param changedMethods The signatures of the changed methods to search from.
+     * @param maxDepth       The maximum depth for method usage search.
+     * @param indicator      The progress indicator of the run.
      */
-    private List<MethodDeclaration> extractMethods(CompilationUnit compilationUnit) {
-        List<MethodDeclaration> methods = new ArrayList<>();
-        compilationUnit.accept(new MethodVisitor(), methods);
-        return methods;
+    private void findMethodUsagesBreadthFirst(UsageSearch search, Collection<String> changedMethods, int maxDepth,
+                                              ProgressIndicator indicator) {
+        MethodSymbolTable methodSymbols = search.METHOD_SYMBOLS;
+        for (String change : changedMethods) {
+            methodSymbols.markReached(methodSymbols.intern(change), 0);
+        }
+        int[] frontier = methodSymbols.getReachedAt(0);
+
+        for (int depth = 0; depth <= maxDepth && frontier.length > 0; depth++) {
+            int currentDepth = depth;
+            indicator.setText2(frontier.length + " methods at depth " + depth);
+            JobLauncher.getInstance().invokeConcurrentlyUnderProgress(splitIntoBatches(frontier), indicator, batch -> {
+                for (int methodId : batch) {
+                    ReadAction.nonBlocking(() -> {
+                                expandMethod(search, methodId, currentDepth < maxDepth,
+                                        callerId -> methodSymbols.markReached(callerId, currentDepth + 1));
+                                return null;
+                            })
+                            .inSmartMode(project)
+                            .wrapProgress(indicator)
+                            .executeSynchronously();
+                }
+                return true;
+            });
+            indicator.checkCanceled();
+            indicator.setFraction(DIFF_PHASE_END + (TRAVERSAL_PHASE_END - DIFF_PHASE_END) * (depth + 1) / (maxDepth + 1));
+            frontier = methodSymbols.getReachedAt(depth + 1);
+        }
+        indicator.setText2(null);
     }
 
     /**
-     * Visitor class for extracting method declarations from a compilation unit.
+     * Splits the method ids of a level into batches, a few per worker, so that the level is expanded concurrently
+     * without boxing every id.
+     *
+     * @param methodIds The method ids of the level.
+     * @return The batches of ids.
      */
-    private static class MethodVisitor extends VoidVisitorAdapter<List<MethodDeclaration>> {
-        @Override
-        public void visit(ClassOrInterfaceDeclaration classOrInterfaceDeclaration, List<MethodDeclaration> collector) {
-            super.visit(classOrInterfaceDeclaration, collector);
-            classOrInterfaceDeclaration.getMembers().forEach(member -> {
-                if (member instanceof MethodDeclaration method) {
-                    collector.add(method);
-                }
-            });
+    private static List<int[]> splitIntoBatches(int[] methodIds) {
+        int batchCount = Math.min(methodIds.length, Runtime.getRuntime().availableProcessors() * 4);
+        List<int[]> batches = new ArrayList<>(batchCount);
+        for (int batch = 0; batch < batchCount; batch++) {
+            batches.add(Arrays.copyOfRange(methodIds, methodIds.length * batch / batchCount,
+                    methodIds.length * (batch + 1) / batchCount));
         }
+        return batches;
     }
 
     /**
-     * Finds the usages of changed methods and updates the affected methods map.
+     * Adds the declarations of a method to the relevant sets and passes the ids of its callers to a consumer.
+     * The consumer is called on the expanding thread once the search for a declaration has completed,
+     * possibly more than once for the same caller, so it has to deduplicate them.
+     * Restarting the expansion only reports callers again. Must be called under a read action.
      *
-     * @param maxDepth The maximum depth for method usage search.
+     * @param search         The search receiving the reached methods.
+     * @param methodId       The id of the method to be expanded.
+     * @param findCallers    Whether the callers should be searched, false on the last level.
+     * @param callerConsumer The consumer receiving the ids of the callers.
      */
-    private void findMethodUsages(int maxDepth) {
-        for (String change : CHANGES) {
-            findUsagesForMethod(change, maxDepth, 0, new HashSet<>());
+    private void expandMethod(UsageSearch search, int methodId, boolean findCallers, IntConsumer callerConsumer) {
+        GlobalSearchScope scope = GlobalSearchScope.projectScope(project);
+        List<PsiMethod> psiMethods = resolveMethods(search.METHOD_SYMBOLS, methodId, scope);
+        IntConsumer recordingConsumer = callerId -> {
+            search.recordCaller(methodId, callerId);
+            callerConsumer.accept(callerId);
+        };
+
+        for (PsiMethod method : psiMethods) {
+            addMethodToRelevantSets(search, methodId, method);
+            if (findCallers && search.callGraph == null) {
+                findCallers(search.METHOD_SYMBOLS, method, scope, recordingConsumer);
+            }
+        }
+        if (findCallers && search.callGraph != null) {
+            for (String callee : getCalleeSignatures(search.METHOD_SYMBOLS, methodId, psiMethods)) {
+                for (String caller : search.callGraph.getCallers(callee)) {
+                    recordingConsumer.accept(search.METHOD_SYMBOLS.intern(caller));
+                }
+            }
         }
     }
 
     /**
-     * Recursively finds the usages of a given method up to the specified depth.
+     * Finds the usages of a given method up to the specified depth. The callers of a method are collected first
+     * and expanded once their search has completed, so no search is started from inside another one and the stack
+     * only grows with the depth. A method is expanded again only if it is reached at a lower depth than before,
+     * which also stops the search on cycles. Callers are read from the {@link MethodCallGraphIndex}
+     * when it is available, otherwise they are found with a ReferencesSearch.
      *
-     * @param callingMethod The method whose usages are to be found.
-     * @param maxDepth      The maximum depth for method usage search.
-     * @param currentDepth  The current depth of the search.
-     * @param currentPath   The set of methods visited in the current path to detect cycles.
+     * @param search       The search receiving the reached methods.
+     * @param methodId     The id of the method whose usages are to be found.
+     * @param maxDepth     The maximum depth for method usage search.
+     * @param currentDepth The current depth of the search.
      */
-    private void findUsagesForMethod(String callingMethod, int maxDepth, int currentDepth, Set<String> currentPath) {
-        if (shouldStopSearch(callingMethod, maxDepth, currentDepth, currentPath)) {
+    private void findUsagesForMethod(UsageSearch search, int methodId, int maxDepth, int currentDepth) {
+        ProgressManager.checkCanceled();
+        if (currentDepth > maxDepth || !search.METHOD_SYMBOLS.markReachedBelow(methodId, currentDepth)) {
             return;
         }
+        expandMethod(search, methodId, currentDepth < maxDepth,
+                callerId -> findUsagesForMethod(search, callerId, maxDepth, currentDepth + 1));
+    }
 
-        currentPath.add(callingMethod);
-        AFFECTED_METHODS.put(callingMethod, currentDepth);
-
-        GlobalSearchScope scope = GlobalSearchScope.projectScope(project);
-        PsiShortNamesCache shortNamesCache = PsiShortNamesCache.getInstance(project);
-
-        String methodName = CustomUtil.extractMethodName(callingMethod);
-        String className = CustomUtil.extractClassName(callingMethod);
-        String[] parameterTypes = CustomUtil.extractParameterTypes(callingMethod);
-        PsiMethod[] psiMethods = shortNamesCache.getMethodsByName(methodName, scope);
+    /**
+     * Resolves a method signature to the declarations it denotes. The class is looked up by its qualified name
+     * and the method by name and parameter types. Methods of nested classes, whose changes are recorded
+     * under the name of the top-level class, are searched when the class itself has no matching method.
+     * Must be called under a read action.
+     *
+     * @param methodSymbols The symbol table of the search.
+     * @param methodId      The id of the method signature.
+     * @param scope         The scope in which the class is looked up.
+     * @return The matching methods, or an empty list if the class or method does not exist.
+     */
+    private List<PsiMethod> resolveMethods(MethodSymbolTable methodSymbols, int methodId, GlobalSearchScope scope) {
+        List<PsiMethod> methods = new ArrayList<>();
+        PsiClass psiClass = JavaPsiFacade.getInstance(project).findClass(methodSymbols.getClassName(methodId), scope);
+        if (psiClass != null) {
+            collectMatchingMethods(psiClass, methodSymbols.getMethodName(methodId),
+                    methodSymbols.getParameterTypes(methodId), methods);
+        }
+        return methods;
+    }
 
-        for (PsiMethod method : psiMethods) {
+    /**
+     * Collects the methods of a class matching a name and parameter types,
+     * falling back to its nested classes if the class itself has none.
+     *
+     * @param psiClass       The class to search.
+     * @param methodName     The name of the method.
+     * @param parameterTypes The parameter types of the method.
+     * @param methods        The list receiving the matching methods.
+     */
+    private void collectMatchingMethods(PsiClass psiClass, String methodName, String[] parameterTypes, List<PsiMethod> methods) {
+        for (PsiMethod method : psiClass.findMethodsByName(methodName, false)) {
             if (CustomUtil.isMatchingParameters(method, parameterTypes)) {
-                addMethodToRelevantSets(method);
-
-                Collection<PsiReference> references = ReferencesSearch.search(method, scope).findAll();
-                for (PsiReference reference : references) {
-                    handleMethodReference(reference, className, maxDepth, currentDepth, currentPath);
-                }
+                methods.add(method);
+            }
+        }
+        if (methods.isEmpty()) {
+            for (PsiClass innerClass : psiClass.getInnerClasses()) {
+                collectMatchingMethods(innerClass, methodName, parameterTypes, methods);
             }
         }
-
-        currentPath.remove(callingMethod);
     }
 
     /**
-     * Determines if the search should stop based on the current depth, maximum depth, and presence of cycles.
+     * Returns the signatures under which the call graph records calls to a method. The graph is keyed by the
+     * qualified PSI signatures of the declarations, which can differ from the signature found by the diff,
+     * e.g. for methods of nested classes or qualified parameter types, so the resolved declarations are used.
+     * The signature itself is only used if it resolved to no declaration, e.g. for a removed method.
      *
-     * @param callingMethod The method whose usages are being searched.
-     * @param maxDepth      The maximum depth for the search.
-     * @param currentDepth  The current depth of the search.
-     * @param currentPath   The current path of visited methods to detect cycles.
-     * @return True if the search should stop, false otherwise.
+     * @param methodSymbols The symbol table of the search.
+     * @param methodId      The id of the method signature.
+     * @param psiMethods    The declarations the signature resolved to.
+     * @return The callee signatures.
      */
-    private boolean shouldStopSearch(String callingMethod, int maxDepth, int currentDepth, Set<String> currentPath) {
-        if (currentDepth > maxDepth) {
-            return true;
+    private Set<String> getCalleeSignatures(MethodSymbolTable methodSymbols, int methodId, List<PsiMethod> psiMethods) {
+        Set<String> calleeSignatures = new LinkedHashSet<>();
+        for (PsiMethod method : psiMethods) {
+            PsiClass containingClass = method.getContainingClass();
+            if (containingClass != null) {
+                calleeSignatures.add(CustomUtil.getMethodSignatureForPsiElement(method, containingClass.getQualifiedName()));
+            }
         }
-        if (currentPath.contains(callingMethod)) {
-            return true;
+        if (calleeSignatures.isEmpty()) {
+            calleeSignatures.add(methodSymbols.getSignature(methodId));
         }
-        return AFFECTED_METHODS.containsKey(callingMethod) && AFFECTED_METHODS.get(callingMethod) <= currentDepth;
+        return calleeSignatures;
     }
 
     /**
-     * Adds the given method to the relevant sets of private methods and public method tests.
+     * Adds the given method to the relevant sets of private methods and public method tests of a search.
      *
-     * @param method The method to be added.
+     * @param search   The search receiving the method.
+     * @param methodId The id of the signature the method was resolved from.
+     * @param method   The method to be added.
      */
-    private void addMethodToRelevantSets(PsiMethod method) {
+    private void addMethodToRelevantSets(UsageSearch search, int methodId, PsiMethod method) {
+        search.recordDeclaration(methodId, method);
         if (method.hasModifierProperty(PsiModifier.PRIVATE)) {
-            PRIVATE_METHODS.add(method);
+            search.PRIVATE_METHODS.add(method);
+        }
+        if (CustomUtil.isTestMethod(method) && search.PUBLIC_METHOD_TESTS.add(method)) {
+            reportAffectedTest(search, method);
         }
-        if (CustomUtil.isTestMethod(method)) {
-            PUBLIC_METHOD_TESTS.add(method);
+    }
+
+    /**
+     * Reports a newly found affected test on the progress indicator of the run, while the search is still running.
+     *
+     * @param search     The search that found the test.
+     * @param testMethod The test method.
+     */
+    private void reportAffectedTest(UsageSearch search, PsiMethod testMethod) {
+        if (search.reportIndicator != null) {
+            search.reportIndicator.setText2(search.PUBLIC_METHOD_TESTS.size() + " affected tests found, latest: "
+                    + testMethod.getName());
         }
     }
 
     /**
-     * Handles a method reference by finding the containing method and recursively finding its usages.
+     * Finds the methods calling the given method. The search is limited to the part of the project
+     * in which the method can be used, and every reference is mapped to its containing method without
+     * resolving it again. The search processor, which may run on several threads, only collects the distinct
+     * containing methods; their ids are passed to the consumer on the calling thread after the search completed.
+     * Must be called under a read action.
      *
-     * @param reference     The reference to the method.
-     * @param className     The name of the class containing the method.
-     * @param maxDepth      The maximum depth for the search.
-     * @param currentDepth  The current depth of the search.
-     * @param currentPath   The current path of visited methods to detect cycles.
+     * @param methodSymbols  The symbol table of the search.
+     * @param method         The called method.
+     * @param projectScope   The scope of the project.
+     * @param callerConsumer The consumer receiving the ids of the methods containing a reference.
      */
-    private void handleMethodReference(PsiReference reference, String className, int maxDepth, int currentDepth, Set<String> currentPath) {
-        PsiElement element = reference.getElement();
-        String containingClass = CustomUtil.findDeclaringClassName(element);
-        if (containingClass != null && Objects.equals(containingClass, className)) {
-            PsiMethod containingMethod = PsiTreeUtil.getParentOfType(element, PsiMethod.class);
+    private void findCallers(MethodSymbolTable methodSymbols, PsiMethod method, GlobalSearchScope projectScope,
+                             IntConsumer callerConsumer) {
+        SearchScope scope = method.getUseScope().intersectWith(projectScope);
+        Set<PsiMethod> callers = ConcurrentHashMap.newKeySet();
+        ReferencesSearch.search(method, scope).forEach(reference -> {
+            PsiMethod containingMethod = PsiTreeUtil.getParentOfType(reference.getElement(), PsiMethod.class);
             if (containingMethod != null) {
-                String methodClass = Objects.requireNonNull(containingMethod.getContainingClass()).getQualifiedName();
-                String methodSignature = CustomUtil.getMethodSignatureForPsiElement(containingMethod, methodClass);
-                findUsagesForMethod(methodSignature, maxDepth, currentDepth + 1, currentPath);
+                callers.add(containingMethod);
             }
+            return true;
+        });
+        for (PsiMethod caller : callers) {
+            callerConsumer.accept(getMethodId(methodSymbols, caller));
         }
     }
 
     /**
-     * Checks The Usages of Private Methods and
-     * Runs the Tests of both Private and Public Methods
+     * Returns the id of a method, interning its signature.
+     *
+     * @param methodSymbols The symbol table of the search.
+     * @param method        The method.
+     * @return The id of the method's signature.
      */
-    private void runningPrivateAndPublicMethodsTests(){
-        Set<PsiMethod> privateUsages = PrivateMethodUsageFinder.findPrivateMethodUsages(project, PRIVATE_METHODS);
+    private int getMethodId(MethodSymbolTable methodSymbols, PsiMethod method) {
+        String methodClass = Objects.requireNonNull(method.getContainingClass()).getQualifiedName();
+        return methodSymbols.intern(CustomUtil.getMethodSignatureForPsiElement(method, methodClass));
+    }
 
-        Set<PsiMethod> allTestMethods = new HashSet<>(PUBLIC_METHOD_TESTS);
-        allTestMethods.addAll(privateUsages);
+    /**
+     * Checks The Usages of Private Methods and
+     * Runs the Tests of both Private and Public Methods.
+     * The tests of the private methods are searched in one batch and all tests are started on the EDT.
+     *
+     * @param publicTests    The affected test methods.
+     * @param privateMethods The affected private methods.
+     * @param indicator      The progress indicator of the run.
+     * @return The number of tests that were started.
+     */
+    private int runningPrivateAndPublicMethodsTests(Set<PsiMethod> publicTests, Set<PsiMethod> privateMethods,
+                                                    ProgressIndicator indicator) {
+        Set<PsiMethod> privateUsages = PrivateMethodUsageFinder.findPrivateMethodUsages(project, privateMethods, indicator);
+        Set<PsiMethod> allTestMethods = ReadAction.compute(() -> {
+            Set<PsiMethod> testMethods = new HashSet<>(publicTests);
+            testMethods.addAll(privateUsages);
+            testMethods.removeIf(method -> !method.isValid());
+            return testMethods;
+        });
 
-        IntelliJTestRunner.runTests(project, allTestMethods);
+        if (allTestMethods.isEmpty()) {
+            logger.info("No tests are affected by the changes");
+            return 0;
+        }
+        indicator.checkCanceled();
+        ApplicationManager.getApplication().invokeLater(
+                () -> IntelliJTestRunner.runTests(project, allTestMethods), project.getDisposed());
+        return allTestMethods.size();
     }
 }
@@ -0,0 +1,162 @@
+package com.your.projectroot;
+
+import com.intellij.openapi.components.PersistentStateComponent;
+import com.intellij.openapi.components.Service;
+import com.intellij.openapi.components.State;
+import com.intellij.openapi.components.Storage;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Project-level settings of the change tracking plugin, stored in changeTracking.xml.
+ */
+@Service(Service.Level.PROJECT)
+@State(name = "ChangeTrackingSettings", storages = @Storage("changeTracking.xml"))
+public final class ChangeTrackingSettings implements PersistentStateComponent<ChangeTrackingSettings.State> {
+
+    private State state = new State();
+
+    /**
+     * The persisted settings values.
+     */
+    public static class State {
+        public boolean persistFingerprintCache = false;
+        public int fingerprintCacheSize = 2000;
+        public boolean useMethodBoundaryScanner = false;
+        public boolean diffChangedLinesOnly = true;
+        public boolean usePsiForWorkingCopy = true;
+        public boolean useParallelTraversal = false;
+        public boolean watchMode = false;
+        public int watchDepth = 2;
+        public String baseRef = "";
+        public int testForkCount = 2;
+        public int testTimeBudgetSeconds = 0;
+        public boolean useCoverageMap = false;
+    }
+
+    @Override
+    public @NotNull State getState() {
+        return state;
+    }
+
+    @Override
+    public void loadState(@NotNull State state) {
+        this.state = state;
+    }
+
+    /**
+     * Checks if method fingerprints should be saved to the IDE system directory between sessions.
+     *
+     * @return True if the fingerprint cache is persisted, false otherwise.
+     */
+    public boolean isPersistFingerprintCache() {
+        return state.persistFingerprintCache;
+    }
+
+    /**
+     * Returns the maximum number of file versions kept in the fingerprint cache.
+     *
+     * @return The capacity of the fingerprint cache.
+     */
+    public int getFingerprintCacheSize() {
+        return Math.max(1, state.fingerprintCacheSize);
+    }
+
+    /**
+     * Checks if methods should be extracted with the {@link MethodBoundaryScanner} before falling back to JavaParser.
+     *
+     * @return True if the scanner fast path is enabled, false otherwise.
+     */
+    public boolean isUseMethodBoundaryScanner() {
+        return state.useMethodBoundaryScanner;
+    }
+
+    /**
+     * Checks if only the methods overlapping the changed line hunks of a file should be compared.
+     *
+     * @return True if the comparison is restricted to the changed lines, false if every method is compared.
+     */
+    public boolean isDiffChangedLinesOnly() {
+        return state.diffChangedLinesOnly;
+    }
+
+    /**
+     * Checks if the methods of the working copy should be fingerprinted from the in-memory PSI
+     * instead of re-reading and re-parsing the file with JavaParser.
+     *
+     * @return True if the PSI is used for the working copy, false otherwise.
+     */
+    public boolean isUsePsiForWorkingCopy() {
+        return state.usePsiForWorkingCopy;
+    }
+
+    /**
+     * Checks if affected methods should be found with a level-by-level search that expands every level concurrently,
+     * instead of the recursive depth-first search.
+     *
+     * @return True if the parallel breadth-first search is used, false otherwise.
+     */
+    public boolean isUseParallelTraversal() {
+        return state.useParallelTraversal;
+    }
+
+    /**
+     * Checks if the affected-test set should be kept up to date in the background while files are edited.
+     *
+     * @return True if watch mode is enabled, false otherwise.
+     */
+    public boolean isWatchMode() {
+        return state.watchMode;
+    }
+
+    /**
+     * Returns the depth level of the method usage search run in watch mode.
+     *
+     * @return The depth level used by watch mode.
+     */
+    public int getWatchDepth() {
+        return Math.max(0, state.watchDepth);
+    }
+
+    /**
+     * Returns the ref of the branch the changes are compared against, e.g. "origin/main".
+     * Files are then compared with the merge-base of HEAD and this ref, so committed work on the branch is included.
+     *
+     * @return The base ref, or an empty string to compare the local changes against HEAD.
+     */
+    public String getBaseRef() {
+        return state.baseRef == null ? "" : state.baseRef.trim();
+    }
+
+    /**
+     * Returns the maximum number of per-module test configurations run concurrently.
+     *
+     * @return The number of concurrent test forks.
+     */
+    public int getTestForkCount() {
+        return Math.max(1, state.testForkCount);
+    }
+
+    /**
+     * Returns the time budget of a test run. The selected tests are ordered by their history,
+     * and the tests expected to run after the budget is spent are skipped.
+     *
+     * @return The time budget in seconds, or 0 to run all selected tests.
+     */
+    public int getTestTimeBudgetSeconds() {
+        return Math.max(0, state.testTimeBudgetSeconds);
+    }
+
+    /**
+     * Checks if the tests of changed methods should be looked up in the recorded {@link CoverageMap}.
+     * Coverage is recorded from the per-test traces of runs with coverage and per-test tracking enabled,
+     * which requires the Coverage plugin; without it the map stays empty.
+     * The coverage is tied to the commit it was recorded at and is dropped at the next commit or checkout,
+     * until a coverage run records it again.
+     * Changed methods that no recorded test executed, e.g. new methods, are still searched through their references.
+     *
+     * @return True if the coverage map is used, false if all tests are found through references.
+     */
+    public boolean isUseCoverageMap() {
+        return state.useCoverageMap;
+    }
+}
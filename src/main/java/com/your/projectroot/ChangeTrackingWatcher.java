@@ -0,0 +1,404 @@
+package com.your.projectroot;
+
+import com.intellij.openapi.Disposable;
+import com.intellij.openapi.application.ReadAction;
+import com.intellij.openapi.components.Service;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.progress.EmptyProgressIndicator;
+import com.intellij.openapi.progress.ProcessCanceledException;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.Disposer;
+import com.intellij.openapi.vcs.changes.ChangeListListener;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.*;
+import com.intellij.util.Alarm;
+import com.intellij.util.ui.update.MergingUpdateQueue;
+import com.intellij.util.ui.update.Update;
+import org.eclipse.jgit.lib.ObjectId;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * Watch mode of the change tracking plugin. Keeps the affected-test set up to date while the developer edits,
+ * so that running the affected tests only has to launch them.
+ * Files touched by PSI changes are collected and, after a quiet period, only those files are compared with the base commit again.
+ * The affected tests are stored per changed method, so that a changed method that disappears only drops its entry
+ * and only newly changed methods have to be searched. Any new call is made from a changed method, which is itself
+ * searched, so the union of the entries never misses an affected test.
+ */
+@Service(Service.Level.PROJECT)
+public final class ChangeTrackingWatcher implements Disposable {
+
+    private static final Logger logger = Logger.getInstance(ChangeTrackingWatcher.class);
+    private static final int DEBOUNCE_MILLIS = 1000;
+
+    private final Project project;
+    private final MergingUpdateQueue updateQueue;
+    private final Set<VirtualFile> DIRTY_FILES = new HashSet<>();
+    private final Map<VirtualFile, Set<String>> CHANGED_METHODS = new HashMap<>();
+    private final Map<String, AffectedTestPointers> AFFECTED_TESTS = new HashMap<>();
+    private Disposable subscription;
+    private ProgressIndicator updateIndicator;
+    private ObjectId baseTreeId;
+    private int depth;
+    private boolean resyncChangedFiles;
+    private boolean updating;
+
+    /**
+     * The affected tests of a changed method, kept as smart pointers so they survive reparses of the edited files.
+     *
+     * @param testMethods    The test methods reached from the changed method.
+     * @param privateMethods The private methods reached from the changed method.
+     */
+    private record AffectedTestPointers(Set<SmartPsiElementPointer<PsiMethod>> testMethods,
+                                        Set<SmartPsiElementPointer<PsiMethod>> privateMethods) {
+    }
+
+    /**
+     * Constructs a ChangeTrackingWatcher for the specified project. The watcher is idle until it is started.
+     *
+     * @param project The IntelliJ project instance.
+     */
+    public ChangeTrackingWatcher(Project project) {
+        this.project = project;
+        this.updateQueue = new MergingUpdateQueue("ChangeTrackingWatcher", DEBOUNCE_MILLIS, true,
+                MergingUpdateQueue.ANY_COMPONENT, this, null, Alarm.ThreadToUse.POOLED_THREAD);
+        this.updateQueue.setRestartTimerOnAdd(true);
+    }
+
+    /**
+     * Starts listening for local changes and PSI changes, using the given depth for the usage search.
+     * All locally changed files are compared on the first update.
+     *
+     * @param depth The depth level for method usage search.
+     */
+    public synchronized void start(int depth) {
+        if (subscription != null) {
+            if (this.depth == depth) {
+                return;
+            }
+            stop();
+        }
+        this.depth = depth;
+        subscription = Disposer.newDisposable("ChangeTrackingWatcher");
+        Disposer.register(this, subscription);
+        updateIndicator = new EmptyProgressIndicator();
+
+        project.getMessageBus().connect(subscription).subscribe(ChangeListListener.TOPIC, new ChangeListListener() {
+            @Override
+            public void changeListUpdateDone() {
+                synchronized (ChangeTrackingWatcher.this) {
+                    resyncChangedFiles = true;
+                }
+                scheduleUpdate();
+            }
+        });
+        PsiManager.getInstance(project).addPsiTreeChangeListener(new TouchedFileListener(), subscription);
+
+        resyncChangedFiles = true;
+        scheduleUpdate();
+    }
+
+    /**
+     * Stops listening for changes, cancels a running update and drops the affected-test set.
+     */
+    public synchronized void stop() {
+        if (subscription == null) {
+            return;
+        }
+        updateIndicator.cancel();
+        Disposer.dispose(subscription);
+        subscription = null;
+        updateIndicator = null;
+        baseTreeId = null;
+        DIRTY_FILES.clear();
+        CHANGED_METHODS.clear();
+        AFFECTED_TESTS.clear();
+        resyncChangedFiles = false;
+    }
+
+    /**
+     * Checks if the watcher is running and no change is waiting to be compared or searched.
+     *
+     * @return True if the affected-test set reflects the current changes, false otherwise.
+     */
+    public synchronized boolean isUpToDate() {
+        return subscription != null && !updating && !resyncChangedFiles && DIRTY_FILES.isEmpty()
+                && !PsiDocumentManager.getInstance(project).hasUncommitedDocuments();
+    }
+
+    /**
+     * Returns the precomputed affected tests of all current changes.
+     *
+     * @param depth The depth level for method usage search requested by the user.
+     * @return The affected tests, or null if the watcher is not up to date or was started with another depth.
+     */
+    public ChangeTrackingService.AffectedTests getAffectedTests(int depth) {
+        List<AffectedTestPointers> entries;
+        synchronized (this) {
+            if (!isUpToDate() || this.depth != depth) {
+                return null;
+            }
+            entries = new ArrayList<>(AFFECTED_TESTS.values());
+        }
+        return ReadAction.compute(() -> {
+            Set<PsiMethod> testMethods = new HashSet<>();
+            Set<PsiMethod> privateMethods = new HashSet<>();
+            for (AffectedTestPointers entry : entries) {
+                dereference(entry.testMethods(), testMethods);
+                dereference(entry.privateMethods(), privateMethods);
+            }
+            return new ChangeTrackingService.AffectedTests(testMethods, privateMethods);
+        });
+    }
+
+    /**
+     * Stops the watcher when the project is closed.
+     */
+    @Override
+    public void dispose() {
+        stop();
+    }
+
+    /**
+     * Marks a file as touched and schedules an update after the quiet period.
+     *
+     * @param file The touched file.
+     */
+    private void markDirty(VirtualFile file) {
+        synchronized (this) {
+            if (subscription == null) {
+                return;
+            }
+            DIRTY_FILES.add(file);
+        }
+        scheduleUpdate();
+    }
+
+    /**
+     * Schedules an update. Requests arriving before the quiet period ends are merged into one update.
+     */
+    private void scheduleUpdate() {
+        updateQueue.queue(Update.create("update", this::update));
+    }
+
+    /**
+     * Compares the touched files with the base commit again and searches the affected tests of the newly changed methods.
+     * Runs on a pooled thread, one update at a time. If the update is cancelled, the files stay touched.
+     */
+    private void update() {
+        Set<VirtualFile> files;
+        boolean resync;
+        ProgressIndicator indicator;
+        synchronized (this) {
+            if (subscription == null) {
+                return;
+            }
+            files = new HashSet<>(DIRTY_FILES);
+            DIRTY_FILES.clear();
+            resync = resyncChangedFiles;
+            resyncChangedFiles = false;
+            indicator = updateIndicator;
+            updating = true;
+        }
+        try {
+            ProgressManager.getInstance().runProcess(() -> updateFiles(files, resync, indicator), indicator);
+        } catch (ProcessCanceledException e) {
+            synchronized (this) {
+                if (subscription != null) {
+                    DIRTY_FILES.addAll(files);
+                    resyncChangedFiles |= resync;
+                }
+            }
+        } finally {
+            synchronized (this) {
+                updating = false;
+            }
+        }
+    }
+
+    /**
+     * Updates the changed methods of the given files and patches the affected-test set.
+     * All files of the batch are compared in one git session.
+     *
+     * @param files     The touched files.
+     * @param resync    Whether the list of local changes was updated since the last update.
+     * @param indicator The progress indicator of the watcher.
+     */
+    private void updateFiles(Set<VirtualFile> files, boolean resync, ProgressIndicator indicator) {
+        ChangeTrackingService service = project.getService(ChangeTrackingService.class);
+        if (resync) {
+            addResyncedFiles(service, files);
+        }
+
+        indicator.checkCanceled();
+        // Files that could not be compared are missing from the result and keep their previous changed methods
+        Map<VirtualFile, Set<String>> changedMethods = service.findChangedMethods(files);
+
+        Set<String> newChanges = new HashSet<>();
+        synchronized (this) {
+            if (subscription == null) {
+                return;
+            }
+            for (Map.Entry<VirtualFile, Set<String>> entry : changedMethods.entrySet()) {
+                if (entry.getValue().isEmpty()) {
+                    CHANGED_METHODS.remove(entry.getKey());
+                } else {
+                    CHANGED_METHODS.put(entry.getKey(), entry.getValue());
+                }
+            }
+            Set<String> allChanges = new HashSet<>();
+            CHANGED_METHODS.values().forEach(allChanges::addAll);
+            AFFECTED_TESTS.keySet().retainAll(allChanges);
+            for (String change : allChanges) {
+                if (!AFFECTED_TESTS.containsKey(change)) {
+                    newChanges.add(change);
+                }
+            }
+        }
+        if (newChanges.isEmpty()) {
+            return;
+        }
+
+        Map<String, ChangeTrackingService.AffectedTests> affectedTests = service.findAffectedTests(newChanges, depth, indicator);
+        Map<String, AffectedTestPointers> pointers = ReadAction.compute(() -> {
+            Map<String, AffectedTestPointers> created = new HashMap<>();
+            for (Map.Entry<String, ChangeTrackingService.AffectedTests> entry : affectedTests.entrySet()) {
+                created.put(entry.getKey(), new AffectedTestPointers(
+                        createPointers(entry.getValue().testMethods()), createPointers(entry.getValue().privateMethods())));
+            }
+            return created;
+        });
+        synchronized (this) {
+            if (subscription != null) {
+                AFFECTED_TESTS.putAll(pointers);
+            }
+        }
+        logger.info("Watch mode updated " + files.size() + " files and searched " + newChanges.size() + " changed methods");
+    }
+
+    /**
+     * Adds the files that entered or left the list of local changes to the touched files.
+     * If the base commit moved, every changed file is compared again.
+     *
+     * @param service The change tracking service.
+     * @param files   The touched files, updated in place.
+     */
+    private void addResyncedFiles(ChangeTrackingService service, Set<VirtualFile> files) {
+        Set<VirtualFile> changedFiles = new HashSet<>(service.collectChangedFiles());
+        ObjectId currentBaseTreeId = resolveBaseTreeId();
+        synchronized (this) {
+            boolean baseMoved = !Objects.equals(baseTreeId, currentBaseTreeId);
+            baseTreeId = currentBaseTreeId;
+            for (VirtualFile file : changedFiles) {
+                if (baseMoved || !CHANGED_METHODS.containsKey(file)) {
+                    files.add(file);
+                }
+            }
+            for (VirtualFile file : CHANGED_METHODS.keySet()) {
+                if (baseMoved || !changedFiles.contains(file)) {
+                    files.add(file);
+                }
+            }
+            if (baseMoved) {
+                AFFECTED_TESTS.clear();
+            }
+        }
+    }
+
+    /**
+     * Resolves the tree of the current base commit, HEAD or the merge-base with the configured base ref.
+     *
+     * @return The ObjectId of the base tree, or null if it cannot be resolved.
+     */
+    private ObjectId resolveBaseTreeId() {
+        String projectBasePath = project.getBasePath();
+        if (projectBasePath == null) {
+            return null;
+        }
+        String baseRef = project.getService(ChangeTrackingSettings.class).getBaseRef();
+        try (GitRepositorySession gitSession = GitRepositorySession.open(new File(projectBasePath), baseRef)) {
+            return gitSession.getBaseTreeId();
+        } catch (IOException e) {
+            logger.info("Cannot read the base commit", e);
+            return null;
+        }
+    }
+
+    /**
+     * Creates smart pointers to the given methods. Must be called under a read action.
+     *
+     * @param methods The methods.
+     * @return The smart pointers.
+     */
+    private Set<SmartPsiElementPointer<PsiMethod>> createPointers(Set<PsiMethod> methods) {
+        SmartPointerManager pointerManager = SmartPointerManager.getInstance(project);
+        Set<SmartPsiElementPointer<PsiMethod>> pointers = new HashSet<>();
+        for (PsiMethod method : methods) {
+            if (method.isValid()) {
+                pointers.add(pointerManager.createSmartPsiElementPointer(method));
+            }
+        }
+        return pointers;
+    }
+
+    /**
+     * Adds the methods that still exist to a set. Must be called under a read action.
+     *
+     * @param pointers The smart pointers.
+     * @param methods  The set receiving the methods.
+     */
+    private static void dereference(Set<SmartPsiElementPointer<PsiMethod>> pointers, Set<PsiMethod> methods) {
+        for (SmartPsiElementPointer<PsiMethod> pointer : pointers) {
+            PsiMethod method = pointer.getElement();
+            if (method != null) {
+                methods.add(method);
+            }
+        }
+    }
+
+    /**
+     * Marks the Java files touched by PSI changes.
+     */
+    private class TouchedFileListener extends PsiTreeChangeAdapter {
+        @Override
+        public void childAdded(@NotNull PsiTreeChangeEvent event) {
+            handle(event);
+        }
+
+        @Override
+        public void childRemoved(@NotNull PsiTreeChangeEvent event) {
+            handle(event);
+        }
+
+        @Override
+        public void childReplaced(@NotNull PsiTreeChangeEvent event) {
+            handle(event);
+        }
+
+        @Override
+        public void childMoved(@NotNull PsiTreeChangeEvent event) {
+            handle(event);
+        }
+
+        @Override
+        public void childrenChanged(@NotNull PsiTreeChangeEvent event) {
+            handle(event);
+        }
+
+        private void handle(PsiTreeChangeEvent event) {
+            PsiFile file = event.getFile();
+            if (file == null && event.getChild() instanceof PsiFile child) {
+                file = child;
+            }
+            if (file instanceof PsiJavaFile && file.getVirtualFile() != null) {
+                markDirty(file.getVirtualFile());
+            }
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.your.projectroot;
+
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.startup.StartupActivity;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Starts the {@link ChangeTrackingWatcher} when a project is opened with watch mode enabled.
+ */
+public class ChangeTrackingWatcherStartup implements StartupActivity {
+
+    /**
+     * Starts the watcher if watch mode is enabled in the project settings.
+     *
+     * @param project The opened project.
+     */
+    @Override
+    public void runActivity(@NotNull Project project) {
+        ChangeTrackingSettings settings = project.getService(ChangeTrackingSettings.class);
+        if (settings.isWatchMode()) {
+            project.getService(ChangeTrackingWatcher.class).start(settings.getWatchDepth());
+        }
+    }
+}
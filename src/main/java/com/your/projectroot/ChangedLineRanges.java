@@ -0,0 +1,112 @@
+package com.your.projectroot;
+
+import org.eclipse.jgit.diff.DiffAlgorithm;
+import org.eclipse.jgit.diff.Edit;
+import org.eclipse.jgit.diff.EditList;
+import org.eclipse.jgit.diff.RawText;
+import org.eclipse.jgit.diff.RawTextComparator;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The line hunks that differ between two versions of a file, computed with JGit's histogram diff.
+ * Used to restrict the method comparison to the methods whose declaration overlaps an edit.
+ */
+public final class ChangedLineRanges {
+
+    /**
+     * Checks if a range of lines overlaps a changed hunk.
+     */
+    @FunctionalInterface
+    public interface LineFilter {
+        /**
+         * Checks if the given range overlaps a changed hunk.
+         *
+         * @param beginLine The first line of the range, 1-based.
+         * @param endLine   The last line of the range, 1-based and inclusive.
+         * @return True if the range overlaps a changed hunk.
+         */
+        boolean overlaps(int beginLine, int endLine);
+    }
+
+    private final EditList edits;
+
+    private ChangedLineRanges(EditList edits) {
+        this.edits = edits;
+    }
+
+    /**
+     * Computes the changed hunks between two versions of a file.
+     *
+     * @param oldContent The content of the old version.
+     * @param newContent The content of the new version.
+     * @return The changed line ranges.
+     */
+    public static ChangedLineRanges compute(String oldContent, String newContent) {
+        RawText oldText = new RawText(oldContent.getBytes(StandardCharsets.UTF_8));
+        RawText newText = new RawText(newContent.getBytes(StandardCharsets.UTF_8));
+        EditList edits = DiffAlgorithm.getAlgorithm(DiffAlgorithm.SupportedAlgorithm.HISTOGRAM)
+                .diff(RawTextComparator.DEFAULT, oldText, newText);
+        return new ChangedLineRanges(edits);
+    }
+
+    /**
+     * Checks if both versions have identical lines.
+     *
+     * @return True if there are no changed hunks.
+     */
+    public boolean isEmpty() {
+        return edits.isEmpty();
+    }
+
+    /**
+     * Checks if a range of lines of the old version overlaps a changed hunk.
+     *
+     * @param beginLine The first line of the range, 1-based.
+     * @param endLine   The last line of the range, 1-based and inclusive.
+     * @return True if the range overlaps a changed hunk.
+     */
+    public boolean overlapsOld(int beginLine, int endLine) {
+        for (Edit edit : edits) {
+            if (overlaps(edit.getBeginA(), edit.getEndA(), beginLine, endLine)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks if a range of lines of the new version overlaps a changed hunk.
+     *
+     * @param beginLine The first line of the range, 1-based.
+     * @param endLine   The last line of the range, 1-based and inclusive.
+     * @return True if the range overlaps a changed hunk.
+     */
+    public boolean overlapsNew(int beginLine, int endLine) {
+        for (Edit edit : edits) {
+            if (overlaps(edit.getBeginB(), edit.getEndB(), beginLine, endLine)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks if one side of an edit overlaps a range of lines.
+     * An empty side (pure insertion or deletion) overlaps the range if it lies strictly inside it,
+     * since lines were then inserted into or removed from the middle of the range.
+     *
+     * @param editBegin The first line of the edit, 0-based.
+     * @param editEnd   The end of the edit, 0-based and exclusive.
+     * @param beginLine The first line of the range, 1-based.
+     * @param endLine   The last line of the range, 1-based and inclusive.
+     * @return True if the edit overlaps the range.
+     */
+    private static boolean overlaps(int editBegin, int editEnd, int beginLine, int endLine) {
+        int rangeBegin = beginLine - 1;
+        if (editBegin == editEnd) {
+            return rangeBegin < editBegin && editBegin < endLine;
+        }
+        return editBegin < endLine && rangeBegin < editEnd;
+    }
+}
@@ -0,0 +1,174 @@
+package com.your.projectroot;
+
+import com.intellij.openapi.Disposable;
+import com.intellij.openapi.application.PathManager;
+import com.intellij.openapi.components.Service;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.project.Project;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * Recorded per-test method coverage of the project, stored as an inverted index from method signatures
+ * to the tests executing them. The index is a {@link MappedGraphStore} in the IDE system directory,
+ * so opening it only reads a header and a lookup is a binary search over the mapped string table.
+ * The coverage is dropped when HEAD moves away from the commit it was recorded at, e.g. by a commit or a checkout.
+ * HEAD is read again only after the Git plugin reported a change of the repository, through the
+ * {@link CoverageMapHeadTracker}; without the Git plugin it is read on every check.
+ */
+@Service(Service.Level.PROJECT)
+public final class CoverageMap implements Disposable {
+
+    private static final Logger logger = Logger.getInstance(CoverageMap.class);
+    private static final int FORMAT_VERSION = 2;
+    private static final int METHOD_TESTS = 0;
+
+    private final Project project;
+    private MappedGraphStore store;
+    private String loadedHead;
+    private volatile boolean headChangesTracked;
+    private volatile boolean headChanged = true;
+
+    /**
+     * Constructs a CoverageMap for the specified project.
+     *
+     * @param project The IntelliJ project instance.
+     */
+    public CoverageMap(Project project) {
+        this.project = project;
+    }
+
+    /**
+     * Checks if coverage has been recorded for the project at the current HEAD.
+     *
+     * @return True if the map can be queried, false otherwise.
+     */
+    public synchronized boolean isAvailable() {
+        loadIfNeeded();
+        return store != null;
+    }
+
+    /**
+     * Returns the tests that executed a method when their coverage was recorded.
+     * HEAD is only checked by {@link #isAvailable()}, so that a batch of lookups reads it once.
+     *
+     * @param methodSignature The signature of the method.
+     * @return The tests as "className,methodName", or null if no recorded test executed the method.
+     */
+    public synchronized Set<String> getTests(String methodSignature) {
+        if (store == null) {
+            return null;
+        }
+        Set<String> tests = store.getTargets(METHOD_TESTS, methodSignature);
+        return tests.isEmpty() ? null : tests;
+    }
+
+    /**
+     * Starts relying on {@link #headChanged()} to learn that HEAD may have moved, instead of reading HEAD on every check.
+     */
+    public void trackHeadChanges() {
+        headChanged = true;
+        headChangesTracked = true;
+    }
+
+    /**
+     * Notes that HEAD may have moved, so that it is read again on the next check.
+     */
+    public void headChanged() {
+        headChanged = true;
+    }
+
+    /**
+     * Merges the coverage of a test run into the map. The previous coverage of the recorded tests is replaced,
+     * the coverage of the other tests is kept. The map is rewritten and mapped again.
+     *
+     * @param methodsByTest The signatures of the methods executed by every recorded test.
+     */
+    public synchronized void record(Map<String, Set<String>> methodsByTest) {
+        loadIfNeeded();
+        MappedGraphStore.Builder builder = new MappedGraphStore.Builder(1);
+        if (store != null) {
+            for (int methodId = 0; methodId < store.size(); methodId++) {
+                String method = store.getString(methodId);
+                store.forEachTarget(METHOD_TESTS, methodId, testId -> {
+                    String test = store.getString(testId);
+                    if (!methodsByTest.containsKey(test)) {
+                        builder.addEdge(METHOD_TESTS, method, test);
+                    }
+                });
+            }
+        }
+        methodsByTest.forEach((test, methods) -> {
+            for (String method : methods) {
+                builder.addEdge(METHOD_TESTS, method, test);
+            }
+        });
+
+        store = null;
+        try {
+            builder.write(getStorageFile(), FORMAT_VERSION, loadedHead);
+        } catch (IOException e) {
+            logger.info("Cannot save the coverage map", e);
+        }
+        mapStore();
+    }
+
+    /**
+     * Releases the mapped file when the project is closed.
+     */
+    @Override
+    public synchronized void dispose() {
+        store = null;
+    }
+
+    /**
+     * Maps the stored index if it was not mapped at the current HEAD yet.
+     * HEAD is only read if it may have moved since it was last read.
+     */
+    private void loadIfNeeded() {
+        if (headChangesTracked && !headChanged) {
+            return;
+        }
+        headChanged = false;
+        String head = readHead();
+        if (head.equals(loadedHead)) {
+            return;
+        }
+        loadedHead = head;
+        mapStore();
+    }
+
+    /**
+     * Maps the newest generation of the stored index if it was recorded at the loaded HEAD.
+     */
+    private void mapStore() {
+        try {
+            store = MappedGraphStore.open(getStorageFile(), FORMAT_VERSION, loadedHead);
+        } catch (IOException e) {
+            logger.info("Cannot load the coverage map", e);
+            store = null;
+        }
+    }
+
+    /**
+     * Reads the current HEAD of the project repository.
+     *
+     * @return The commit id, or an empty string if the project is not in a repository.
+     */
+    private String readHead() {
+        String basePath = project.getBasePath();
+        return basePath == null ? "" : GitRepositorySession.readHeadCommitId(new File(basePath));
+    }
+
+    /**
+     * Returns the file the coverage map of this project is persisted to.
+     *
+     * @return The path of the storage file.
+     */
+    private Path getStorageFile() {
+        return Path.of(PathManager.getSystemPath(), "projectRoot", "coverage", project.getLocationHash() + ".bin");
+    }
+}
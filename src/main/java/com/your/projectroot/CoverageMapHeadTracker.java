@@ -0,0 +1,26 @@
+package com.your.projectroot;
+
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.startup.StartupActivity;
+import git4idea.repo.GitRepository;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Tells the {@link CoverageMap} when a git repository of a project changed, e.g. by a commit or a checkout,
+ * so that it only reads HEAD again after such a change. Declared in git.xml, so it is only loaded when the Git plugin is enabled.
+ */
+public class CoverageMapHeadTracker implements StartupActivity {
+
+    /**
+     * Starts forwarding the repository changes of the project to its coverage map.
+     *
+     * @param project The opened project.
+     */
+    @Override
+    public void runActivity(@NotNull Project project) {
+        CoverageMap coverageMap = project.getService(CoverageMap.class);
+        project.getMessageBus().connect(coverageMap).subscribe(GitRepository.GIT_REPO_CHANGE,
+                repository -> coverageMap.headChanged());
+        coverageMap.trackHeadChanges();
+    }
+}
@@ -0,0 +1,227 @@
+package com.your.projectroot;
+
+import com.intellij.coverage.CoverageDataManager;
+import com.intellij.coverage.CoverageSuite;
+import com.intellij.coverage.CoverageSuiteListener;
+import com.intellij.execution.testframework.sm.runner.SMTRunnerEventsAdapter;
+import com.intellij.execution.testframework.sm.runner.SMTRunnerEventsListener;
+import com.intellij.execution.testframework.sm.runner.SMTestProxy;
+import com.intellij.openapi.application.ReadAction;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.editor.Document;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.io.FileUtil;
+import com.intellij.psi.*;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.psi.util.PsiTreeUtil;
+import com.intellij.psi.util.PsiUtil;
+import com.intellij.util.concurrency.AppExecutorUtil;
+import com.intellij.util.text.CharArrayUtil;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Feeds the {@link CoverageMap} from the coverage runs of the project. When a run with coverage and per-test tracking
+ * finishes, IntelliJ's coverage engine leaves one trace file per test next to the coverage data, listing the lines
+ * of every class the test executed. The lines are mapped to the methods containing them, and the resulting
+ * test-to-methods coverage is merged into the map. The test of a trace is known from the location URL
+ * of the finished test reported by the test runner.
+ */
+public class CoverageMapRecorder implements CoverageSuiteListener {
+
+    private static final Logger logger = Logger.getInstance(CoverageMapRecorder.class);
+    private static final String TRACE_EXTENSION = ".tr";
+
+    private final Project project;
+    private final Map<String, String> TESTS_BY_TRACE_NAME = new ConcurrentHashMap<>();
+
+    /**
+     * Constructs a CoverageMapRecorder for the specified project.
+     *
+     * @param project The IntelliJ project instance.
+     */
+    private CoverageMapRecorder(Project project) {
+        this.project = project;
+    }
+
+    /**
+     * Starts recording the coverage runs of a project for as long as the project is open.
+     *
+     * @param project The IntelliJ project instance.
+     */
+    public static void register(Project project) {
+        CoverageMapRecorder recorder = new CoverageMapRecorder(project);
+        CoverageDataManager.getInstance(project).addSuiteListener(recorder, project);
+        project.getMessageBus().connect(project).subscribe(SMTRunnerEventsListener.TEST_STATUS, new SMTRunnerEventsAdapter() {
+            @Override
+            public void onTestFinished(@NotNull SMTestProxy test) {
+                recorder.recordTestLocation(test);
+            }
+        });
+    }
+
+    /**
+     * Remembers a finished test under the name of the trace the coverage engine writes for it.
+     *
+     * @param test The finished test.
+     */
+    private void recordTestLocation(SMTestProxy test) {
+        String testName = test.isLeaf() ? TestHistoryListener.getTestName(test.getLocationUrl()) : null;
+        if (testName != null) {
+            TESTS_BY_TRACE_NAME.put(getTraceName(testName), testName);
+        }
+    }
+
+    /**
+     * Returns the name of the trace file of a test without its extension. The coverage engine names a trace
+     * after the qualified class name and the method name, with every '.' replaced and the two joined by '_'.
+     *
+     * @param testName The test as "className,methodName".
+     * @return The name of the trace.
+     */
+    private static String getTraceName(String testName) {
+        return testName.replace('.', '_').replace(',', '_');
+    }
+
+    @Override
+    public void coverageGathered(@NotNull CoverageSuite suite) {
+        if (!project.getService(ChangeTrackingSettings.class).isUseCoverageMap()) {
+            return;
+        }
+        File[] traceFiles = getTracesDirectory(suite).listFiles((directory, name) -> name.endsWith(TRACE_EXTENSION));
+        if (traceFiles == null || traceFiles.length == 0) {
+            logger.info("No per-test coverage traces found, enable per-test tracking in the coverage settings");
+            return;
+        }
+        AppExecutorUtil.getAppExecutorService().execute(() -> {
+            Map<String, Map<String, int[]>> linesByTest = readTraces(traceFiles);
+            ReadAction.nonBlocking(() -> mapToMethods(linesByTest))
+                    .inSmartMode(project)
+                    .expireWith(project)
+                    .submit(AppExecutorUtil.getAppExecutorService())
+                    .onSuccess(methodsByTest -> {
+                        project.getService(CoverageMap.class).record(methodsByTest);
+                        logger.info("Recorded the coverage of " + methodsByTest.size() + " tests");
+                    });
+        });
+    }
+
+    /**
+     * Returns the directory containing the per-test traces of a coverage suite,
+     * named after the coverage data file without its extension.
+     *
+     * @param suite The coverage suite.
+     * @return The traces directory.
+     */
+    private static File getTracesDirectory(CoverageSuite suite) {
+        File dataFile = new File(suite.getCoverageDataFileName());
+        return new File(dataFile.getParentFile(), FileUtil.getNameWithoutExtension(dataFile.getName()));
+    }
+
+    /**
+     * Reads the trace files of a coverage run.
+     *
+     * @param traceFiles The trace files, one per test, named after the test.
+     * @return The executed lines of every class by test name.
+     */
+    private static Map<String, Map<String, int[]>> readTraces(File[] traceFiles) {
+        Map<String, Map<String, int[]>> linesByTest = new HashMap<>();
+        for (File traceFile : traceFiles) {
+            try (DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(traceFile)))) {
+                Map<String, int[]> linesByClass = new HashMap<>();
+                int classCount = input.readInt();
+                for (int i = 0; i < classCount; i++) {
+                    String className = input.readUTF();
+                    int[] lines = new int[input.readInt()];
+                    for (int j = 0; j < lines.length; j++) {
+                        lines[j] = input.readInt();
+                    }
+                    linesByClass.put(className, lines);
+                }
+                linesByTest.put(FileUtil.getNameWithoutExtension(traceFile.getName()), linesByClass);
+            } catch (IOException e) {
+                logger.info("Cannot read the coverage trace " + traceFile, e);
+            }
+        }
+        return linesByTest;
+    }
+
+    /**
+     * Maps the executed lines of every test to the signatures of the methods containing them.
+     * Must be called under a read action.
+     *
+     * @param linesByTest The executed lines of every class by test name.
+     * @return The executed methods by test, as "className,methodName".
+     */
+    private Map<String, Set<String>> mapToMethods(Map<String, Map<String, int[]>> linesByTest) {
+        Map<String, Set<String>> methodsByTest = new HashMap<>();
+        Map<String, Map<Integer, String>> methodsByLineCache = new HashMap<>();
+        for (Map.Entry<String, Map<String, int[]>> test : linesByTest.entrySet()) {
+            String testName = resolveTestName(test.getKey());
+            if (testName == null) {
+                continue;
+            }
+            Set<String> methods = new HashSet<>();
+            for (Map.Entry<String, int[]> executedClass : test.getValue().entrySet()) {
+                Map<Integer, String> methodsByLine = methodsByLineCache.computeIfAbsent(executedClass.getKey(), key -> new HashMap<>());
+                for (int line : executedClass.getValue()) {
+                    String method = methodsByLine.computeIfAbsent(line, key -> findMethodAtLine(executedClass.getKey(), key));
+                    if (!method.isEmpty()) {
+                        methods.add(method);
+                    }
+                }
+            }
+            methodsByTest.put(testName, methods);
+        }
+        return methodsByTest;
+    }
+
+    /**
+     * Converts the name of a trace file to the name of the finished test it was written for.
+     *
+     * @param traceName The name of the trace file without its extension.
+     * @return The test as "className,methodName", or null if no finished test was reported under this trace name.
+     */
+    private String resolveTestName(String traceName) {
+        String testName = TESTS_BY_TRACE_NAME.get(traceName);
+        if (testName == null) {
+            logger.info("No finished test reported for the coverage trace " + traceName);
+        }
+        return testName;
+    }
+
+    /**
+     * Returns the signature of the method containing a line of a class. Lines in lambdas and in local
+     * and anonymous classes belong to the enclosing method, like in the change detection.
+     *
+     * @param className The JVM name of the class.
+     * @param line      The 1-based line number.
+     * @return The signature, or an empty string if the line is not inside a method of a source class.
+     */
+    private String findMethodAtLine(String className, int line) {
+        PsiClass psiClass = JavaPsiFacade.getInstance(project)
+                .findClass(className.replace('$', '.'), GlobalSearchScope.projectScope(project));
+        if (psiClass == null || !(psiClass.getNavigationElement().getContainingFile() instanceof PsiJavaFile javaFile)) {
+            return "";
+        }
+        Document document = PsiDocumentManager.getInstance(project).getDocument(javaFile);
+        if (document == null || line < 1 || line > document.getLineCount()) {
+            return "";
+        }
+        int offset = CharArrayUtil.shiftForward(document.getCharsSequence(), document.getLineStartOffset(line - 1), " \t");
+        PsiMethod method = PsiTreeUtil.getParentOfType(javaFile.findElementAt(offset), PsiMethod.class, false);
+        while (method != null && method.getContainingClass() != null && PsiUtil.isLocalOrAnonymousClass(method.getContainingClass())) {
+            method = PsiTreeUtil.getParentOfType(method, PsiMethod.class);
+        }
+        if (method == null) {
+            return "";
+        }
+        String fileClassName = MethodSignatures.getClassNameFromFilePath(javaFile.getName());
+        String packageName = javaFile.getPackageName();
+        return CustomUtil.getMethodSignatureForPsiElement(method,
+                packageName.isEmpty() ? fileClassName : packageName + "." + fileClassName);
+    }
+}
@@ -0,0 +1,23 @@
+package com.your.projectroot;
+
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.startup.StartupActivity;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Registers the {@link CoverageMapRecorder} when a project is opened.
+ * Declared in coverage.xml, so it is only loaded when the Coverage plugin is enabled.
+ */
+public class CoverageMapRecorderStartup implements StartupActivity {
+
+    /**
+     * Starts recording the coverage runs of the project.
+     * The recorder only records while the coverage map is enabled, so it can be switched on at any time.
+     *
+     * @param project The opened project.
+     */
+    @Override
+    public void runActivity(@NotNull Project project) {
+        CoverageMapRecorder.register(project);
+    }
+}
@@ -1,46 +1,19 @@
 package com.your.projectroot;
 
-import com.github.javaparser.ast.body.CallableDeclaration;
+import com.intellij.openapi.project.Project;
 import com.intellij.openapi.vfs.VirtualFile;
 import com.intellij.psi.*;
-import com.intellij.psi.util.PsiTreeUtil;
+import com.intellij.psi.search.GlobalSearchScope;
+
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Utility class for various operations related to method signatures, class names, and PsiElements.
+ * The helpers that do not need IntelliJ are in {@link MethodSignatures}.
  */
 public class CustomUtil {
 
-    /**
-     * Generates the signature of a method declaration given its signature and class name.
-     *
-     * @param signature The signature of the method.
-     * @param className The name of the class declaring the method.
-     * @return The full signature of the method in the format "className.signature".
-     */
-    public static String getSignOfMethodDeclaration(CallableDeclaration.Signature signature, String className) {
-        return className + "." + signature.asString();
-    }
-
-    /**
-     * Finds the name of the class declaring a given PsiElement.
-     *
-     * @param element The PsiElement whose declaring class is to be found.
-     * @return The fully qualified name of the declaring class, or null if not found.
-     */
-    public static String findDeclaringClassName(PsiElement element) {
-        PsiReference reference = element.getReference();
-        if (reference != null) {
-            PsiElement resolvedElement = reference.resolve();
-            if (resolvedElement != null) {
-                PsiClass declaringClass = PsiTreeUtil.getParentOfType(resolvedElement, PsiClass.class);
-                if (declaringClass != null) {
-                    return declaringClass.getQualifiedName();
-                }
-            }
-        }
-        return null;
-    }
-
     /**
      * Generates the method signature for a given PsiMethod and class name.
      *
@@ -62,39 +35,10 @@ public class CustomUtil {
         return className + "." + signatureBuilder;
     }
 
-    /**
-     * Extracts the method name from a given method signature.
-     *
-     * @param methodSignature The full method signature.
-     * @return The extracted method name.
-     */
-    public static String extractMethodName(String methodSignature) {
-        int startIndex = methodSignature.lastIndexOf('.');
-        int lastIndex = methodSignature.indexOf('(');
-        if (startIndex != -1) {
-            return methodSignature.substring(startIndex + 1, lastIndex);
-        }
-        return methodSignature;   // Fallback to the whole signature if parsing fails
-    }
-
-    /**
-     * Extracts the parameter types from a given method signature.
-     *
-     * @param methodSignature The full method signature.
-     * @return An array of parameter types as strings.
-     */
-    public static String[] extractParameterTypes(String methodSignature) {
-        int startIndex = methodSignature.indexOf('(');
-        int endIndex = methodSignature.indexOf(')');
-        if (startIndex != -1 && endIndex != -1) {
-            String params = methodSignature.substring(startIndex + 1, endIndex);
-            return params.isEmpty() ? new String[0] : params.split(",\\s*");
-        }
-        return new String[0];  // Fallback to no parameters if parsing fails
-    }
-
     /**
      * Checks if the parameter types of a given PsiMethod match the specified parameter types.
+     * Types are compared by their normalized form, so the types rendered by JavaParser
+     * match the presentable text of the PSI types.
      *
      * @param method         The PsiMethod to be checked.
      * @param parameterTypes The expected parameter types.
@@ -106,27 +50,14 @@ public class CustomUtil {
             return false;
         }
         for (int i = 0; i < parameters.length; i++) {
-            if (!parameters[i].getType().getPresentableText().equals(parameterTypes[i])) {
+            String parameterType = MethodSignatures.normalizeParameterType(parameters[i].getType().getPresentableText());
+            if (!parameterType.equals(MethodSignatures.normalizeParameterType(parameterTypes[i]))) {
                 return false;
             }
         }
         return true;
     }
 
-    /**
-     * Extracts the class name from a given method signature.
-     *
-     * @param methodSignature The full method signature.
-     * @return The extracted class name.
-     */
-    public static String extractClassName(String methodSignature) {
-        int lastDotIndex = methodSignature.lastIndexOf('.');
-        if (lastDotIndex != -1) {
-            return methodSignature.substring(0, lastDotIndex);
-        }
-        return "";
-    }
-
     /**
      * Checks if a given PsiMethod is a test method.
      *
@@ -139,14 +70,25 @@ public class CustomUtil {
     }
 
     /**
-     * Extracts ClassName from File path
-     * @param sourceFilePath The path of file
-     * @return The className as String
+     * Finds the test methods with the given name in a class of the project.
+     * Must be called under a read action.
+     *
+     * @param project    The project containing the class.
+     * @param className  The fully qualified name of the class.
+     * @param methodName The name of the test methods.
+     * @return The matching test methods, or an empty list if the class does not exist.
      */
-    public static String getClassNameFromFilePath(String sourceFilePath){
-        int lastInd = sourceFilePath.lastIndexOf('.');
-        int startInd = sourceFilePath.lastIndexOf('/');
-        return sourceFilePath.substring(startInd + 1, lastInd);
+    public static List<PsiMethod> findTestMethods(Project project, String className, String methodName) {
+        List<PsiMethod> testMethods = new ArrayList<>();
+        PsiClass psiClass = JavaPsiFacade.getInstance(project).findClass(className, GlobalSearchScope.projectScope(project));
+        if (psiClass != null) {
+            for (PsiMethod method : psiClass.findMethodsByName(methodName, false)) {
+                if (isTestMethod(method)) {
+                    testMethods.add(method);
+                }
+            }
+        }
+        return testMethods;
     }
 
     /**
@@ -0,0 +1,306 @@
+package com.your.projectroot;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.Status;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.diff.DiffEntry;
+import org.eclipse.jgit.diff.DiffFormatter;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectInserter;
+import org.eclipse.jgit.lib.ObjectReader;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.revwalk.filter.RevFilter;
+import org.eclipse.jgit.treewalk.TreeWalk;
+import org.eclipse.jgit.treewalk.filter.PathFilterGroup;
+import org.eclipse.jgit.treewalk.filter.PathSuffixFilter;
+import org.eclipse.jgit.util.io.DisabledOutputStream;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A single JGit session used for one change-tracking run.
+ * It opens the repository and an ObjectReader once, resolves HEAD and the base commit once,
+ * and looks up the base blobs of a whole change set in a single tree walk.
+ * The base commit is HEAD, or the merge-base of HEAD and a base ref such as "origin/main"
+ * when the changes of the whole branch are compared.
+ */
+public class GitRepositorySession implements AutoCloseable {
+
+    private final Git git;
+    private final Repository repository;
+    private final ObjectReader objectReader;
+    private final ObjectId headTreeId;
+    private final ObjectId baseTreeId;
+
+    private GitRepositorySession(Git git, String baseRef) throws IOException {
+        this.git = git;
+        this.repository = git.getRepository();
+        this.objectReader = repository.newObjectReader();
+        try (RevWalk revWalk = new RevWalk(objectReader)) {
+            RevCommit headCommit = resolveCommit(revWalk, Constants.HEAD);
+            this.headTreeId = headCommit.getTree().getId();
+            this.baseTreeId = baseRef == null || baseRef.isBlank()
+                    ? headTreeId : resolveMergeBase(revWalk, headCommit, baseRef).getTree().getId();
+        }
+    }
+
+    /**
+     * Opens a session on the repository located in the given directory, comparing against HEAD.
+     *
+     * @param repoDir The root directory of the repository.
+     * @return The opened session.
+     * @throws IOException If the repository cannot be opened or HEAD cannot be resolved.
+     */
+    public static GitRepositorySession open(File repoDir) throws IOException {
+        return open(repoDir, null);
+    }
+
+    /**
+     * Opens a session on the repository located in the given directory, comparing against the merge-base
+     * of HEAD and the given base ref.
+     *
+     * @param repoDir The root directory of the repository.
+     * @param baseRef The ref of the branch the changes are compared against, or null or blank to compare against HEAD.
+     * @return The opened session.
+     * @throws IOException If the repository cannot be opened or HEAD, the base ref or their merge-base cannot be resolved.
+     */
+    public static GitRepositorySession open(File repoDir, String baseRef) throws IOException {
+        Git git = Git.open(repoDir);
+        try {
+            return new GitRepositorySession(git, baseRef);
+        } catch (IOException | RuntimeException e) {
+            git.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Reads the id of the HEAD commit of the repository located in the given directory.
+     * Persisted data built from the sources is invalidated when it changes.
+     *
+     * @param repoDir The root directory of the repository.
+     * @return The commit id, or an empty string if the directory is not a repository or HEAD cannot be resolved.
+     */
+    public static String readHeadCommitId(File repoDir) {
+        try (Git git = Git.open(repoDir)) {
+            ObjectId headId = git.getRepository().resolve(Constants.HEAD);
+            return headId == null ? "" : headId.name();
+        } catch (IOException e) {
+            return "";
+        }
+    }
+
+    /**
+     * Resolves a revision to a commit.
+     *
+     * @param revWalk  The walk parsing the commit.
+     * @param revision The revision, e.g. "HEAD" or "origin/main".
+     * @return The parsed commit.
+     * @throws IOException If the revision cannot be resolved.
+     */
+    private RevCommit resolveCommit(RevWalk revWalk, String revision) throws IOException {
+        ObjectId commitId = repository.resolve(revision);
+        if (commitId == null) {
+            throw new IOException("Couldn't resolve " + revision);
+        }
+        return revWalk.parseCommit(commitId);
+    }
+
+    /**
+     * Finds the merge-base of HEAD and a base ref, i.e. the commit the current branch was forked from.
+     *
+     * @param revWalk    The walk used to find the merge-base.
+     * @param headCommit The HEAD commit.
+     * @param baseRef    The ref of the base branch.
+     * @return The merge-base commit.
+     * @throws IOException If the base ref cannot be resolved or has no common ancestor with HEAD.
+     */
+    private RevCommit resolveMergeBase(RevWalk revWalk, RevCommit headCommit, String baseRef) throws IOException {
+        RevCommit baseCommit = resolveCommit(revWalk, baseRef);
+        revWalk.reset();
+        revWalk.setRevFilter(RevFilter.MERGE_BASE);
+        revWalk.markStart(headCommit);
+        revWalk.markStart(baseCommit);
+        RevCommit mergeBase = revWalk.next();
+        if (mergeBase == null) {
+            throw new IOException("HEAD and " + baseRef + " have no merge-base");
+        }
+        return mergeBase;
+    }
+
+    /**
+     * Returns the tree of the base commit the session compares against.
+     *
+     * @return The ObjectId of the base tree.
+     */
+    public ObjectId getBaseTreeId() {
+        return baseTreeId;
+    }
+
+    /**
+     * Finds the Java files changed by the commits between the base commit and HEAD with a single
+     * tree-to-tree diff, so unchanged subtrees are skipped without being read.
+     * Modified, added, renamed and copied files are reported under their path in HEAD; added, renamed and copied
+     * files have no blob at that path in the base commit, so all their methods count as changed.
+     * Deleted files are reported by {@link #findDeletedJavaFiles()} instead.
+     *
+     * @return The repository-relative paths of the changed Java files, empty if the base is HEAD.
+     * @throws IOException If an I/O error occurs while reading the trees.
+     */
+    public List<String> findJavaFilesChangedSinceBase() throws IOException {
+        List<String> changedFiles = new ArrayList<>();
+        for (DiffEntry entry : scanJavaFilesSinceBase()) {
+            if (entry.getChangeType() != DiffEntry.ChangeType.DELETE) {
+                changedFiles.add(entry.getNewPath());
+            }
+        }
+        return changedFiles;
+    }
+
+    /**
+     * Finds the Java files of the base commit that were deleted, either by the commits between the base commit and HEAD
+     * or in the working tree, staged or not. The old path of a renamed file is not reported.
+     *
+     * @return The repository-relative paths of the deleted Java files.
+     * @throws IOException If the trees cannot be read or the status of the working tree cannot be computed.
+     */
+    public List<String> findDeletedJavaFiles() throws IOException {
+        Set<String> deletedFiles = new LinkedHashSet<>();
+        for (DiffEntry entry : scanJavaFilesSinceBase()) {
+            if (entry.getChangeType() == DiffEntry.ChangeType.DELETE) {
+                deletedFiles.add(entry.getOldPath());
+            }
+        }
+        Status status = getStatus();
+        deletedFiles.addAll(status.getMissing());
+        deletedFiles.addAll(status.getRemoved());
+        deletedFiles.removeIf(path -> !path.endsWith(".java"));
+        return new ArrayList<>(deletedFiles);
+    }
+
+    /**
+     * Diffs the base tree against the HEAD tree with rename detection, limited to Java files.
+     *
+     * @return The diff entries, empty if the base is HEAD.
+     * @throws IOException If an I/O error occurs while reading the trees.
+     */
+    private List<DiffEntry> scanJavaFilesSinceBase() throws IOException {
+        if (baseTreeId.equals(headTreeId)) {
+            return Collections.emptyList();
+        }
+        try (DiffFormatter diffFormatter = new DiffFormatter(DisabledOutputStream.INSTANCE)) {
+            diffFormatter.setReader(objectReader, repository.getConfig());
+            diffFormatter.setDetectRenames(true);
+            diffFormatter.setPathFilter(PathSuffixFilter.create(".java"));
+            return diffFormatter.scan(baseTreeId, headTreeId);
+        }
+    }
+
+    /**
+     * Finds the Java files with uncommitted changes, staged or not, including new files that are not tracked yet.
+     * Deleted files are reported by {@link #findDeletedJavaFiles()} instead.
+     *
+     * @return The repository-relative paths of the changed Java files.
+     * @throws IOException If the status of the working tree cannot be computed.
+     */
+    public List<String> findUncommittedJavaFiles() throws IOException {
+        Status status = getStatus();
+        Set<String> changedFiles = new LinkedHashSet<>(status.getUncommittedChanges());
+        changedFiles.addAll(status.getUntracked());
+        changedFiles.removeAll(status.getMissing());
+        changedFiles.removeAll(status.getRemoved());
+        changedFiles.removeIf(path -> !path.endsWith(".java"));
+        return new ArrayList<>(changedFiles);
+    }
+
+    /**
+     * Computes the status of the working tree.
+     *
+     * @return The status.
+     * @throws IOException If the status cannot be computed.
+     */
+    private Status getStatus() throws IOException {
+        try {
+            return git.status().call();
+        } catch (GitAPIException e) {
+            throw new IOException("Couldn't compute the status of the working tree", e);
+        }
+    }
+
+    /**
+     * Finds the blobs of the given files in the base commit using a single recursive tree walk.
+     *
+     * @param relativeFilePaths The repository-relative paths of the files.
+     * @return A map of relative file paths to blob ids. Files missing from the base are not contained in the map.
+     * @throws IOException If an I/O error occurs while walking the tree.
+     */
+    public Map<String, ObjectId> findBaseBlobIds(Collection<String> relativeFilePaths) throws IOException {
+        Map<String, ObjectId> blobIds = new HashMap<>();
+        if (relativeFilePaths.isEmpty()) {
+            return blobIds;
+        }
+
+        try (TreeWalk treeWalk = new TreeWalk(repository, objectReader)) {
+            treeWalk.addTree(baseTreeId);
+            treeWalk.setRecursive(true);
+            treeWalk.setFilter(PathFilterGroup.createFromStrings(relativeFilePaths));
+
+            while (treeWalk.next()) {
+                String path = treeWalk.getPathString();
+                if (relativeFilePaths.contains(path)) {
+                    blobIds.put(path, treeWalk.getObjectId(0));
+                }
+            }
+        }
+        return blobIds;
+    }
+
+    /**
+     * Reads the content of the blob represented by the given ObjectId.
+     *
+     * @param blobId The ObjectId of the blob.
+     * @return The content of the blob as a UTF-8 string.
+     * @throws IOException If an I/O error occurs.
+     */
+    public String readBlob(ObjectId blobId) throws IOException {
+        try (ByteArrayOutputStream outputStream = new ByteArrayOutputStream()) {
+            objectReader.open(blobId).copyTo(outputStream);
+            return outputStream.toString(StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * Computes the git blob id of the given content, as it would be stored in the repository.
+     *
+     * @param content The file content.
+     * @return The blob id of the UTF-8 encoded content.
+     */
+    public static ObjectId computeBlobId(String content) {
+        try (ObjectInserter.Formatter formatter = new ObjectInserter.Formatter()) {
+            return formatter.idFor(Constants.OBJ_BLOB, content.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    /**
+     * Releases the ObjectReader and the repository.
+     */
+    @Override
+    public void close() {
+        objectReader.close();
+        git.close();
+    }
+}
@@ -1,5 +1,7 @@
 package com.your.projectroot;
 
+import com.intellij.execution.ExecutionListener;
+import com.intellij.execution.ExecutionManager;
 import com.intellij.execution.RunManager;
 import com.intellij.execution.RunnerAndConfigurationSettings;
 import com.intellij.execution.configurations.ConfigurationFactory;
@@ -8,87 +10,337 @@ import com.intellij.execution.configurations.ConfigurationTypeUtil;
 import com.intellij.execution.executors.DefaultRunExecutor;
 import com.intellij.execution.junit.JUnitConfiguration;
 import com.intellij.execution.junit.JUnitConfigurationType;
+import com.intellij.execution.process.ProcessHandler;
+import com.intellij.execution.runners.ExecutionEnvironment;
 import com.intellij.execution.runners.ExecutionUtil;
+import com.intellij.execution.testframework.AbstractTestProxy;
 import com.intellij.execution.testframework.TestSearchScope;
+import com.intellij.execution.testframework.sm.runner.SMTRunnerEventsAdapter;
+import com.intellij.execution.testframework.sm.runner.SMTRunnerEventsListener;
+import com.intellij.execution.testframework.sm.runner.SMTestProxy;
+import com.intellij.notification.*;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.module.Module;
+import com.intellij.openapi.module.ModuleUtilCore;
 import com.intellij.openapi.project.Project;
 import com.intellij.psi.PsiClass;
 import com.intellij.psi.PsiMethod;
+import com.intellij.util.concurrency.AppExecutorUtil;
+import com.intellij.util.messages.MessageBusConnection;
+import org.jetbrains.annotations.NotNull;
 
-import java.util.LinkedHashSet;
-import java.util.Set;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Utility class for running JUnit tests within an IntelliJ project.
+ * The tests are grouped by module and every group runs in its own module-scoped configuration,
+ * so that only the classpath of that module is resolved. The tests that failed in their last run get
+ * configurations of their own, which are launched before the others. Up to the configured number of forks
+ * run concurrently, and a summary of all forks is shown when the last one has finished.
+ * The configurations are created once and updated in place on later runs.
  */
 public class IntelliJTestRunner {
 
     /**
      * Runs the specified set of JUnit test methods within the given IntelliJ project.
+     * The tests are ordered by their {@link TestHistoryStore} history and the tests exceeding the configured
+     * time budget are skipped. JUnit runs the tests of one configuration in its own order, so the history order
+     * is applied between forks: the tests that failed in their last run are launched first in forks of their own,
+     * followed by the forks of the remaining tests, ordered by the rank of their first test.
+     * Must be called on the EDT.
      *
      * @param project     The IntelliJ project in which to run the tests.
      * @param testMethods The set of test methods to be run.
      */
     public static void runTests(Project project, Set<PsiMethod> testMethods) {
+        Map<String, Module> modulesByPattern = collectModulesByPattern(testMethods);
+        if (modulesByPattern.isEmpty()) {
+            throw new IllegalArgumentException("No valid test methods found to run.");
+        }
+
+        ChangeTrackingSettings trackingSettings = project.getService(ChangeTrackingSettings.class);
+        long budgetMillis = TimeUnit.SECONDS.toMillis(trackingSettings.getTestTimeBudgetSeconds());
+        TestHistoryStore history = project.getService(TestHistoryStore.class);
+        List<String> orderedPatterns = history.orderTests(modulesByPattern.keySet(), budgetMillis);
+        int skippedTests = modulesByPattern.size() - orderedPatterns.size();
+
+        Map<Module, LinkedHashSet<String>> failedPatternsByModule = new LinkedHashMap<>();
+        Map<Module, LinkedHashSet<String>> methodPatternsByModule = new LinkedHashMap<>();
+        for (String pattern : orderedPatterns) {
+            Map<Module, LinkedHashSet<String>> patternsByModule = history.hasFailedLastRun(pattern)
+                    ? failedPatternsByModule : methodPatternsByModule;
+            patternsByModule.computeIfAbsent(modulesByPattern.get(pattern), key -> new LinkedHashSet<>()).add(pattern);
+        }
+
         RunManager runManager = RunManager.getInstance(project);
         ConfigurationType junitConfigType = ConfigurationTypeUtil.findConfigurationType(JUnitConfigurationType.class);
         ConfigurationFactory junitConfigFactory = junitConfigType.getConfigurationFactories()[0];
 
-        RunnerAndConfigurationSettings settings = runManager.createConfiguration("GlobalTestRunConfiguration", junitConfigFactory);
-        JUnitConfiguration configuration = (JUnitConfiguration) settings.getConfiguration();
+        List<RunnerAndConfigurationSettings> forks = new ArrayList<>();
+        addForks(project, runManager, junitConfigType, junitConfigFactory, "Failed affected tests", failedPatternsByModule, forks);
+        addForks(project, runManager, junitConfigType, junitConfigFactory, "Affected tests", methodPatternsByModule, forks);
+        runManager.setSelectedConfiguration(forks.get(0));
 
-        setupTestConfigurationData(configuration, testMethods);
+        new ForkedTestRun(project, forks, trackingSettings.getTestForkCount(), skippedTests).start();
+    }
+
+    /**
+     * Sets up one configuration per module for the given tests and appends them to the forks, keeping the module order.
+     *
+     * @param project            The IntelliJ project in which to run the tests.
+     * @param runManager         The run manager of the project.
+     * @param junitConfigType    The JUnit configuration type.
+     * @param junitConfigFactory The factory creating JUnit configurations.
+     * @param baseName           The name of the configurations, followed by the module name.
+     * @param patternsByModule   The "className,methodName" patterns of the tests by module, in launch order.
+     * @param forks              The list receiving the configurations.
+     */
+    private static void addForks(Project project, RunManager runManager, ConfigurationType junitConfigType,
+                                 ConfigurationFactory junitConfigFactory, String baseName,
+                                 Map<Module, LinkedHashSet<String>> patternsByModule,
+                                 List<RunnerAndConfigurationSettings> forks) {
+        for (Map.Entry<Module, LinkedHashSet<String>> entry : patternsByModule.entrySet()) {
+            Module module = entry.getKey();
+            RunnerAndConfigurationSettings settings = getOrCreateConfiguration(project, runManager, junitConfigType,
+                    junitConfigFactory, baseName, module);
+            setupTestConfigurationData((JUnitConfiguration) settings.getConfiguration(), module, entry.getValue());
+            forks.add(settings);
+        }
+    }
+
+    /**
+     * Returns the managed configuration of a module, creating it on first use.
+     * The configurations are kept between runs and only their patterns are updated, so they do not pile up
+     * in the workspace and the module and scope stay unchanged from one run to the next.
+     *
+     * @param project            The IntelliJ project in which to run the tests.
+     * @param runManager         The run manager of the project.
+     * @param junitConfigType    The JUnit configuration type.
+     * @param junitConfigFactory The factory creating JUnit configurations.
+     * @param baseName           The name of the configuration, followed by the module name.
+     * @param module             The module containing the tests, or null for tests outside any module.
+     * @return The settings of the module's configuration.
+     */
+    private static RunnerAndConfigurationSettings getOrCreateConfiguration(Project project, RunManager runManager,
+                                                                           ConfigurationType junitConfigType,
+                                                                           ConfigurationFactory junitConfigFactory,
+                                                                           String baseName, Module module) {
+        String name = module == null ? baseName : baseName + " (" + module.getName() + ")";
+        RunnerAndConfigurationSettings settings = runManager.findConfigurationByTypeAndName(junitConfigType, name);
+        if (settings != null && settings.getConfiguration() instanceof JUnitConfiguration) {
+            return settings;
+        }
+        settings = runManager.createConfiguration(name, junitConfigFactory);
 
         // Ensure working directory is set correctly
-        configuration.setWorkingDirectory(project.getBasePath());
+        ((JUnitConfiguration) settings.getConfiguration()).setWorkingDirectory(project.getBasePath());
 
-        // Add and select the configuration
+        // Temporary configurations are evicted once there are too many of them, which would defeat the reuse
+        settings.setTemporary(false);
         runManager.addConfiguration(settings);
-        runManager.setSelectedConfiguration(settings);
-
-        // Run the configuration automatically
-        ExecutionUtil.runConfiguration(settings, DefaultRunExecutor.getRunExecutorInstance());
+        return settings;
     }
 
     /**
-     * Sets up the test configuration data with the given test methods.
+     * Sets up the test configuration data with the given test method patterns.
+     * Only the values that differ from the previous run are updated.
      *
-     * @param configuration The JUnit configuration to set up.
-     * @param testMethods   The set of test methods to be run.
+     * @param configuration  The JUnit configuration to set up.
+     * @param module         The module containing the tests, or null to search the whole project.
+     * @param methodPatterns The "className,methodName" patterns of the tests to be run.
      */
-    private static void setupTestConfigurationData(JUnitConfiguration configuration, Set<PsiMethod> testMethods) {
+    private static void setupTestConfigurationData(JUnitConfiguration configuration, Module module,
+                                                   LinkedHashSet<String> methodPatterns) {
         JUnitConfiguration.Data data = configuration.getPersistentData();
         data.TEST_OBJECT = JUnitConfiguration.TEST_PATTERN;
-
-        LinkedHashSet<String> methodPatterns = collectMethodPatterns(testMethods);
-
-        if (methodPatterns.isEmpty()) {
-            throw new IllegalArgumentException("No valid test methods found to run.");
+        if (!new ArrayList<>(data.getPatterns()).equals(new ArrayList<>(methodPatterns))) {
+            data.setPatterns(methodPatterns);
+        }
+        TestSearchScope scope = module != null ? TestSearchScope.SINGLE_MODULE : TestSearchScope.WHOLE_PROJECT;
+        if (module != null && configuration.getConfigurationModule().getModule() != module) {
+            configuration.setModule(module);
+        }
+        if (data.getScope() != scope) {
+            data.setScope(scope);
         }
-
-        data.setPatterns(methodPatterns);
-        data.setScope(TestSearchScope.WHOLE_PROJECT);
     }
 
     /**
-     * Collects method patterns from the given set of test methods.
+     * Collects method patterns from the given set of test methods, together with the module containing them.
      *
      * @param testMethods The set of test methods to collect patterns from.
-     * @return A LinkedHashSet of method patterns.
+     * @return The modules by "className,methodName" pattern. Tests outside any module are mapped to null.
      */
-    private static LinkedHashSet<String> collectMethodPatterns(Set<PsiMethod> testMethods) {
-        LinkedHashSet<String> methodPatterns = new LinkedHashSet<>();
+    private static Map<String, Module> collectModulesByPattern(Set<PsiMethod> testMethods) {
+        Map<String, Module> modulesByPattern = new HashMap<>();
         for (PsiMethod method : testMethods) {
+            if (!method.isValid()) {
+                continue;
+            }
             PsiClass psiClass = method.getContainingClass();
             if (psiClass != null) {
                 String className = psiClass.getQualifiedName();
                 String methodName = method.getName();
                 if (className != null) {
                     String pattern = className + "," + methodName;
-                    methodPatterns.add(pattern);
+                    modulesByPattern.put(pattern, ModuleUtilCore.findModuleForPsiElement(method));
                 }
             }
         }
-        return methodPatterns;
+        return modulesByPattern;
     }
 
+    /**
+     * Runs the per-module configurations of one test run, at most a given number at a time,
+     * and aggregates their results. A fork is finished when its test tree is finished, or when its process
+     * did not start, e.g. because the build failed. All state is accessed on the EDT.
+     */
+    private static class ForkedTestRun {
+        private static final long RESULTS_TIMEOUT_SECONDS = 10;
+
+        private final Project project;
+        private final Deque<RunnerAndConfigurationSettings> PENDING_FORKS;
+        private final Map<ProcessHandler, RunnerAndConfigurationSettings> STARTED_FORKS = new HashMap<>();
+        private final Set<RunnerAndConfigurationSettings> RUNNING_FORKS = new HashSet<>();
+        private final MessageBusConnection connection;
+        private final int forkCount;
+        private final int totalForks;
+        private final int skippedTests;
+        private int notStartedForks;
+        private int passedTests;
+        private int failedTests;
+
+        private ForkedTestRun(Project project, List<RunnerAndConfigurationSettings> forks, int forkCount, int skippedTests) {
+            this.project = project;
+            this.PENDING_FORKS = new ArrayDeque<>(forks);
+            this.forkCount = forkCount;
+            this.totalForks = forks.size();
+            this.skippedTests = skippedTests;
+            this.connection = project.getMessageBus().connect(project);
+        }
+
+        /**
+         * Subscribes to execution and test events and launches the first forks.
+         */
+        private void start() {
+            connection.subscribe(ExecutionManager.EXECUTION_TOPIC, new ExecutionListener() {
+                @Override
+                public void processNotStarted(@NotNull String executorId, @NotNull ExecutionEnvironment env) {
+                    onEdt(() -> {
+                        if (forkFinished(env.getRunnerAndConfigurationSettings())) {
+                            notStartedForks++;
+                        }
+                    });
+                }
+
+                @Override
+                public void processStarted(@NotNull String executorId, @NotNull ExecutionEnvironment env,
+                                           @NotNull ProcessHandler handler) {
+                    onEdt(() -> {
+                        RunnerAndConfigurationSettings settings = env.getRunnerAndConfigurationSettings();
+                        if (settings != null && RUNNING_FORKS.contains(settings)) {
+                            STARTED_FORKS.put(handler, settings);
+                        }
+                    });
+                }
+
+                @Override
+                public void processTerminated(@NotNull String executorId, @NotNull ExecutionEnvironment env,
+                                              @NotNull ProcessHandler handler, int exitCode) {
+                    // The test tree is normally finished right after the process, this only guards against it never finishing
+                    AppExecutorUtil.getAppScheduledExecutorService().schedule(
+                            () -> onEdt(() -> forkFinished(STARTED_FORKS.remove(handler))),
+                            RESULTS_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+                }
+            });
+            connection.subscribe(SMTRunnerEventsListener.TEST_STATUS, new SMTRunnerEventsAdapter() {
+                @Override
+                public void onTestingFinished(@NotNull SMTestProxy.SMRootTestProxy testsRoot) {
+                    ProcessHandler handler = testsRoot.getHandler();
+                    RunnerAndConfigurationSettings settings = handler == null ? null : STARTED_FORKS.remove(handler);
+                    if (forkFinished(settings)) {
+                        recordResults(testsRoot);
+                    }
+                }
+            });
+            launchPendingForks();
+        }
+
+        /**
+         * Runs an action on the EDT, unless the project was closed in the meantime.
+         *
+         * @param action The action.
+         */
+        private void onEdt(Runnable action) {
+            ApplicationManager.getApplication().invokeLater(action, project.getDisposed());
+        }
+
+        /**
+         * Launches pending forks until the fork count is reached.
+         */
+        private void launchPendingForks() {
+            while (RUNNING_FORKS.size() < forkCount && !PENDING_FORKS.isEmpty()) {
+                RunnerAndConfigurationSettings settings = PENDING_FORKS.poll();
+                RUNNING_FORKS.add(settings);
+                ExecutionUtil.runConfiguration(settings, DefaultRunExecutor.getRunExecutorInstance());
+            }
+        }
+
+        /**
+         * Adds the number of passed and failed tests of a finished fork to the totals.
+         *
+         * @param testsRoot The root of the fork's test tree.
+         */
+        private void recordResults(SMTestProxy.SMRootTestProxy testsRoot) {
+            for (AbstractTestProxy test : testsRoot.getAllTests()) {
+                if (test.isLeaf() && test != testsRoot) {
+                    if (test.isDefect()) {
+                        failedTests++;
+                    } else {
+                        passedTests++;
+                    }
+                }
+            }
+        }
+
+        /**
+         * Accounts for a finished fork, launches the next one and reports the summary after the last one.
+         *
+         * @param settings The configuration of the finished fork, or null if the event does not belong to this run.
+         * @return True if the fork belonged to this run and was still running, false otherwise.
+         */
+        private boolean forkFinished(RunnerAndConfigurationSettings settings) {
+            if (settings == null || !RUNNING_FORKS.remove(settings)) {
+                return false;
+            }
+            launchPendingForks();
+            if (RUNNING_FORKS.isEmpty() && PENDING_FORKS.isEmpty()) {
+                connection.disconnect();
+                // Let the results of the last fork be recorded first
+                onEdt(this::notifySummary);
+            }
+            return true;
+        }
+
+        /**
+         * Shows the aggregated results of all forks.
+         */
+        private void notifySummary() {
+            NotificationGroup notificationGroup = NotificationGroupManager.getInstance().getNotificationGroup("CustomNotifications");
+            if (notificationGroup == null) {
+                return;
+            }
+            String message = passedTests + " affected tests passed, " + failedTests + " failed in " + totalForks + " runs";
+            if (notStartedForks > 0) {
+                message += " (" + notStartedForks + " runs did not start)";
+            }
+            if (skippedTests > 0) {
+                message += ", " + skippedTests + " skipped by the time budget";
+            }
+            Notification notification = notificationGroup.createNotification("Change tracking", message,
+                    failedTests > 0 || notStartedForks > 0 ? NotificationType.WARNING : NotificationType.INFORMATION);
+            Notifications.Bus.notify(notification, project);
+        }
+    }
 }
@@ -0,0 +1,458 @@
+package com.your.projectroot;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.function.IntConsumer;
+
+/**
+ * Read-only, memory-mapped store of a string table and of one or more relations between its strings,
+ * shared by the persisted state of the plugin. Every string, e.g. a method signature, a test or a file path,
+ * has an id given by its position in the sorted table and an optional long value. Every relation is stored
+ * in CSR form: an offsets array indexed by string id pointing into a flat array of target ids.
+ * <p>
+ * Opening a store only maps the file and reads its header, and lookups read the mapped file directly:
+ * a string is found by a binary search comparing its UTF-8 bytes with the mapped bytes.
+ * The header holds a layout version, the version of the caller's data and the git HEAD the data was built from,
+ * and a store whose versions do not match, or whose HEAD does not match if the caller asks for one, is not opened.
+ * <p>
+ * A mapped file cannot be replaced on Windows until its buffer is garbage collected, so every write creates
+ * a new generation of the store, named after the store file followed by the generation number.
+ * The newest generation is opened, and older ones are deleted once they are no longer mapped.
+ * <p>
+ * Layout, all integers big-endian: magic, layout version, data version, HEAD length and UTF-8 bytes,
+ * string count, relation count, count of the strings with a value, the edge count of every relation,
+ * the byte offsets of the strings (string count + 1 entries), the values of the strings, the ids of the strings
+ * with a value, for every relation its offsets (string count + 1 entries) and targets,
+ * and finally the UTF-8 bytes of the strings.
+ */
+public final class MappedGraphStore {
+
+    private static final int MAGIC = 0x50524753;
+    private static final int LAYOUT_VERSION = 2;
+
+    /**
+     * The value of strings without a value.
+     */
+    public static final long NO_VALUE = -1;
+
+    private final MappedByteBuffer buffer;
+    private final String head;
+    private final int stringCount;
+    private final int valuedCount;
+    private final int stringOffsetsStart;
+    private final int valuesStart;
+    private final int valuedIdsStart;
+    private final int[] RELATION_OFFSETS_STARTS;
+    private final int[] RELATION_TARGETS_STARTS;
+    private final int stringBytesStart;
+
+    private MappedGraphStore(MappedByteBuffer buffer, String head, int headerEnd) {
+        this.buffer = buffer;
+        this.head = head;
+        int position = headerEnd;
+        stringCount = buffer.getInt(position);
+        int relationCount = buffer.getInt(position + Integer.BYTES);
+        valuedCount = buffer.getInt(position + 2 * Integer.BYTES);
+        position += 3 * Integer.BYTES;
+        int[] edgeCounts = new int[relationCount];
+        for (int relation = 0; relation < relationCount; relation++) {
+            edgeCounts[relation] = buffer.getInt(position);
+            position += Integer.BYTES;
+        }
+        stringOffsetsStart = position;
+        valuesStart = stringOffsetsStart + (stringCount + 1) * Integer.BYTES;
+        valuedIdsStart = valuesStart + stringCount * Long.BYTES;
+        position = valuedIdsStart + valuedCount * Integer.BYTES;
+        RELATION_OFFSETS_STARTS = new int[relationCount];
+        RELATION_TARGETS_STARTS = new int[relationCount];
+        for (int relation = 0; relation < relationCount; relation++) {
+            RELATION_OFFSETS_STARTS[relation] = position;
+            RELATION_TARGETS_STARTS[relation] = position + (stringCount + 1) * Integer.BYTES;
+            position = RELATION_TARGETS_STARTS[relation] + edgeCounts[relation] * Integer.BYTES;
+        }
+        stringBytesStart = position;
+    }
+
+    /**
+     * Maps the newest generation of a store if it was written with the given data version from the given HEAD.
+     *
+     * @param file        The store file.
+     * @param dataVersion The version of the format of the caller's data.
+     * @param head        The id of the current HEAD commit, an empty string outside a repository,
+     *                    or null to accept a store built from any HEAD.
+     * @return The store, or null if no generation exists, or the newest one is outdated or was built from another HEAD.
+     * @throws IOException If the file cannot be read.
+     */
+    public static MappedGraphStore open(Path file, int dataVersion, String head) throws IOException {
+        List<Path> generations = listGenerations(file);
+        if (generations.isEmpty()) {
+            return null;
+        }
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(generations.get(generations.size() - 1), StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        deleteOlderGenerations(generations);
+
+        int headStart = 4 * Integer.BYTES;
+        if (buffer.capacity() < headStart || buffer.getInt(0) != MAGIC
+                || buffer.getInt(Integer.BYTES) != LAYOUT_VERSION || buffer.getInt(2 * Integer.BYTES) != dataVersion) {
+            return null;
+        }
+        int headLength = buffer.getInt(3 * Integer.BYTES);
+        int headerEnd = headStart + headLength;
+        if (headLength < 0 || buffer.capacity() < headerEnd + 3 * Integer.BYTES) {
+            return null;
+        }
+        byte[] storedHead = new byte[headLength];
+        buffer.get(headStart, storedHead);
+        String builtFrom = new String(storedHead, StandardCharsets.UTF_8);
+        if (head != null && !head.equals(builtFrom)) {
+            return null;
+        }
+        return new MappedGraphStore(buffer, builtFrom, headerEnd);
+    }
+
+    /**
+     * Returns the HEAD the store was built from.
+     *
+     * @return The commit id, or an empty string if the store was built outside a repository.
+     */
+    public String getHead() {
+        return head;
+    }
+
+    /**
+     * Returns the number of strings in the table.
+     *
+     * @return The number of strings.
+     */
+    public int size() {
+        return stringCount;
+    }
+
+    /**
+     * Finds the id of a string.
+     *
+     * @param value The string.
+     * @return The id, or -1 if the string is not in the table.
+     */
+    public int findId(String value) {
+        byte[] encoded = value.getBytes(StandardCharsets.UTF_8);
+        int low = 0;
+        int high = stringCount - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int order = compareString(middle, encoded);
+            if (order < 0) {
+                low = middle + 1;
+            } else if (order > 0) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the string with the given id.
+     *
+     * @param id The id of the string.
+     * @return The decoded string.
+     */
+    public String getString(int id) {
+        int start = stringBytesStart + buffer.getInt(stringOffsetsStart + id * Integer.BYTES);
+        int end = stringBytesStart + buffer.getInt(stringOffsetsStart + (id + 1) * Integer.BYTES);
+        byte[] bytes = new byte[end - start];
+        buffer.get(start, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Returns the value of a string.
+     *
+     * @param id The id of the string.
+     * @return The value, or {@link #NO_VALUE} if none was set.
+     */
+    public long getValue(int id) {
+        return buffer.getLong(valuesStart + id * Long.BYTES);
+    }
+
+    /**
+     * Reports the ids of the strings that have a value, in ascending order,
+     * without reading the rest of the table.
+     *
+     * @param consumer The consumer of the ids.
+     */
+    public void forEachIdWithValue(IntConsumer consumer) {
+        for (int i = 0; i < valuedCount; i++) {
+            consumer.accept(buffer.getInt(valuedIdsStart + i * Integer.BYTES));
+        }
+    }
+
+    /**
+     * Reports the ids of the targets of a string in a relation.
+     *
+     * @param relation The index of the relation.
+     * @param id       The id of the source string.
+     * @param consumer The consumer of the target ids.
+     */
+    public void forEachTarget(int relation, int id, IntConsumer consumer) {
+        int offsetsStart = RELATION_OFFSETS_STARTS[relation];
+        int start = buffer.getInt(offsetsStart + id * Integer.BYTES);
+        int end = buffer.getInt(offsetsStart + (id + 1) * Integer.BYTES);
+        for (int edge = start; edge < end; edge++) {
+            consumer.accept(buffer.getInt(RELATION_TARGETS_STARTS[relation] + edge * Integer.BYTES));
+        }
+    }
+
+    /**
+     * Returns the targets of a string in a relation.
+     *
+     * @param relation The index of the relation.
+     * @param value    The source string.
+     * @return The target strings, empty if the string is not in the table.
+     */
+    public Set<String> getTargets(int relation, String value) {
+        Set<String> targets = new HashSet<>();
+        int id = findId(value);
+        if (id >= 0) {
+            forEachTarget(relation, id, targetId -> targets.add(getString(targetId)));
+        }
+        return targets;
+    }
+
+    /**
+     * Compares a string of the table with encoded bytes, without decoding it.
+     *
+     * @param id      The id of the string.
+     * @param encoded The UTF-8 bytes to compare with.
+     * @return A negative number, zero or a positive number if the string is less than, equal to or greater than the bytes.
+     */
+    private int compareString(int id, byte[] encoded) {
+        int start = stringBytesStart + buffer.getInt(stringOffsetsStart + id * Integer.BYTES);
+        int length = stringBytesStart + buffer.getInt(stringOffsetsStart + (id + 1) * Integer.BYTES) - start;
+        for (int i = 0; i < Math.min(length, encoded.length); i++) {
+            int order = Integer.compare(buffer.get(start + i) & 0xff, encoded[i] & 0xff);
+            if (order != 0) {
+                return order;
+            }
+        }
+        return Integer.compare(length, encoded.length);
+    }
+
+    /**
+     * Returns the generations of a store, from the oldest to the newest.
+     *
+     * @param file The store file.
+     * @return The paths of the generations.
+     * @throws IOException If the directory of the store cannot be listed.
+     */
+    private static List<Path> listGenerations(Path file) throws IOException {
+        Path directory = file.toAbsolutePath().getParent();
+        if (!Files.isDirectory(directory)) {
+            return new ArrayList<>();
+        }
+        String prefix = file.getFileName() + ".";
+        TreeMap<Long, Path> generations = new TreeMap<>();
+        try (DirectoryStream<Path> paths = Files.newDirectoryStream(directory)) {
+            for (Path path : paths) {
+                String name = path.getFileName().toString();
+                if (name.startsWith(prefix)) {
+                    try {
+                        generations.put(Long.parseLong(name.substring(prefix.length())), path);
+                    } catch (NumberFormatException e) {
+                        // Temporary file of an unfinished write
+                    }
+                }
+            }
+        }
+        return new ArrayList<>(generations.values());
+    }
+
+    /**
+     * Deletes all generations but the newest one.
+     * Generations that are still mapped cannot be deleted on Windows and are left for a later call.
+     *
+     * @param generations The generations, from the oldest to the newest.
+     */
+    private static void deleteOlderGenerations(List<Path> generations) {
+        for (Path path : generations.subList(0, Math.max(0, generations.size() - 1))) {
+            try {
+                Files.deleteIfExists(path);
+            } catch (IOException e) {
+                // Still mapped
+            }
+        }
+    }
+
+    /**
+     * Collects strings, values and edges and writes them as a store.
+     */
+    public static final class Builder {
+        private final Map<String, Integer> IDS = new HashMap<>();
+        private final List<String> STRINGS = new ArrayList<>();
+        private final Map<Integer, Long> VALUES = new HashMap<>();
+        private final List<Map<Integer, Set<Integer>>> RELATIONS = new ArrayList<>();
+
+        /**
+         * Creates a builder for a store with the given number of relations.
+         *
+         * @param relationCount The number of relations.
+         */
+        public Builder(int relationCount) {
+            for (int relation = 0; relation < relationCount; relation++) {
+                RELATIONS.add(new HashMap<>());
+            }
+        }
+
+        /**
+         * Adds a string to the table.
+         *
+         * @param value The string.
+         * @return The id of the string in the builder.
+         */
+        public int add(String value) {
+            return IDS.computeIfAbsent(value, key -> {
+                STRINGS.add(key);
+                return STRINGS.size() - 1;
+            });
+        }
+
+        /**
+         * Adds a string to the table and sets its value.
+         *
+         * @param value The string.
+         * @param data  The non-negative value.
+         */
+        public void setValue(String value, long data) {
+            VALUES.put(add(value), data);
+        }
+
+        /**
+         * Adds an edge to a relation.
+         *
+         * @param relation The index of the relation.
+         * @param source   The source string.
+         * @param target   The target string.
+         */
+        public void addEdge(int relation, String source, String target) {
+            RELATIONS.get(relation).computeIfAbsent(add(source), key -> new HashSet<>()).add(add(target));
+        }
+
+        /**
+         * Writes the store as a new generation following the newest existing one.
+         * The generation is written to a temporary file first, so that it is only opened once complete,
+         * and the older generations are deleted if they are not mapped anymore.
+         *
+         * @param file        The store file.
+         * @param dataVersion The version of the format of the caller's data.
+         * @param head        The id of the HEAD commit the data was built from, or an empty string.
+         * @throws IOException If the file cannot be written.
+         */
+        public void write(Path file, int dataVersion, String head) throws IOException {
+            int count = STRINGS.size();
+            byte[][] encoded = new byte[count][];
+            Integer[] order = new Integer[count];
+            for (int id = 0; id < count; id++) {
+                encoded[id] = STRINGS.get(id).getBytes(StandardCharsets.UTF_8);
+                order[id] = id;
+            }
+            Arrays.sort(order, (first, second) -> Arrays.compareUnsigned(encoded[first], encoded[second]));
+            int[] sortedIds = new int[count];
+            for (int position = 0; position < count; position++) {
+                sortedIds[order[position]] = position;
+            }
+
+            Files.createDirectories(file.toAbsolutePath().getParent());
+            List<Path> generations = listGenerations(file);
+            long generation = generations.isEmpty() ? 1 : getGeneration(file, generations.get(generations.size() - 1)) + 1;
+            Path generationFile = file.resolveSibling(file.getFileName() + "." + generation);
+            Path temporaryFile = file.resolveSibling(generationFile.getFileName() + ".tmp");
+            int[] valuedIds = VALUES.keySet().stream().mapToInt(id -> sortedIds[id]).sorted().toArray();
+            try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporaryFile)))) {
+                byte[] encodedHead = head.getBytes(StandardCharsets.UTF_8);
+                output.writeInt(MAGIC);
+                output.writeInt(LAYOUT_VERSION);
+                output.writeInt(dataVersion);
+                output.writeInt(encodedHead.length);
+                output.write(encodedHead);
+                output.writeInt(count);
+                output.writeInt(RELATIONS.size());
+                output.writeInt(valuedIds.length);
+                for (Map<Integer, Set<Integer>> relation : RELATIONS) {
+                    output.writeInt(relation.values().stream().mapToInt(Set::size).sum());
+                }
+
+                int byteOffset = 0;
+                for (Integer id : order) {
+                    output.writeInt(byteOffset);
+                    byteOffset += encoded[id].length;
+                }
+                output.writeInt(byteOffset);
+                for (Integer id : order) {
+                    output.writeLong(VALUES.getOrDefault(id, NO_VALUE));
+                }
+                for (int valuedId : valuedIds) {
+                    output.writeInt(valuedId);
+                }
+                for (Map<Integer, Set<Integer>> relation : RELATIONS) {
+                    writeRelation(output, relation, order, sortedIds);
+                }
+                for (Integer id : order) {
+                    output.write(encoded[id]);
+                }
+            }
+            Files.move(temporaryFile, generationFile);
+            generations.add(generationFile);
+            deleteOlderGenerations(generations);
+        }
+
+        /**
+         * Returns the number of a generation of a store.
+         *
+         * @param file           The store file.
+         * @param generationFile The file of the generation.
+         * @return The generation number.
+         */
+        private static long getGeneration(Path file, Path generationFile) {
+            return Long.parseLong(generationFile.getFileName().toString().substring(file.getFileName().toString().length() + 1));
+        }
+
+        /**
+         * Writes the offsets and the sorted targets of a relation, using the ids of the sorted table.
+         *
+         * @param output    The output of the store.
+         * @param relation  The edges by builder id.
+         * @param order     The builder ids in table order.
+         * @param sortedIds The table ids by builder id.
+         * @throws IOException If the output cannot be written.
+         */
+        private static void writeRelation(DataOutputStream output, Map<Integer, Set<Integer>> relation,
+                                          Integer[] order, int[] sortedIds) throws IOException {
+            int edgeOffset = 0;
+            for (Integer id : order) {
+                output.writeInt(edgeOffset);
+                edgeOffset += relation.getOrDefault(id, Collections.emptySet()).size();
+            }
+            output.writeInt(edgeOffset);
+            for (Integer id : order) {
+                int[] targets = relation.getOrDefault(id, Collections.emptySet()).stream()
+                        .mapToInt(target -> sortedIds[target]).sorted().toArray();
+                for (int target : targets) {
+                    output.writeInt(target);
+                }
+            }
+        }
+    }
+}
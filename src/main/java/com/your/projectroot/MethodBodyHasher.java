@@ -0,0 +1,131 @@
+package com.your.projectroot;
+
+import com.github.javaparser.JavaToken;
+import com.github.javaparser.TokenRange;
+import com.github.javaparser.ast.Node;
+import com.github.javaparser.ast.body.MethodDeclaration;
+
+import java.util.Optional;
+
+/**
+ * Streaming 64-bit FNV-1a hash of a method body that ignores whitespace and comments.
+ * The body is fed token by token; any run of whitespace and comments between two tokens is dropped,
+ * unless removing it would glue two identifier characters ("new Foo" vs "newFoo") or two operator
+ * characters ("- -x" vs "--x") together, in which case it counts as a single space.
+ * Two bodies that only differ in formatting or comments therefore get the same hash.
+ */
+public final class MethodBodyHasher {
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+    private static final String OPERATOR_CHARS = "=<>!~?:&|+-*/^%";
+
+    private long hash = FNV_OFFSET_BASIS;
+    private char previous;
+    private boolean empty = true;
+    private boolean pendingSeparator;
+
+    /**
+     * Computes the normalized hash of a method's body.
+     *
+     * @param method The method declaration.
+     * @return The hash of the body, or 0 if the method has no body.
+     */
+    public static long hashBody(MethodDeclaration method) {
+        return method.getBody().map(MethodBodyHasher::hash).orElse(0L);
+    }
+
+    /**
+     * Computes the normalized hash of a node from its tokens in a single pass.
+     * Falls back to the pretty-printed node when the parser did not store tokens.
+     *
+     * @param node The node to hash.
+     * @return The hash of the node.
+     */
+    public static long hash(Node node) {
+        MethodBodyHasher hasher = new MethodBodyHasher();
+        Optional<TokenRange> tokenRange = node.getTokenRange();
+        if (tokenRange.isPresent()) {
+            for (JavaToken token : tokenRange.get()) {
+                if (token.getCategory().isWhitespaceOrComment()) {
+                    hasher.separator();
+                } else {
+                    hasher.append(token.getText());
+                }
+            }
+        } else {
+            hasher.append(node.toString());
+        }
+        return hasher.getHash();
+    }
+
+    /**
+     * Records whitespace or a comment between two tokens.
+     */
+    public void separator() {
+        pendingSeparator = true;
+    }
+
+    /**
+     * Adds a token to the hash. The characters of the token are hashed as they are.
+     *
+     * @param token The text of the token.
+     */
+    public void append(CharSequence token) {
+        append(token, 0, token.length());
+    }
+
+    /**
+     * Adds a token, given as a region of a larger text, to the hash.
+     *
+     * @param text  The text containing the token.
+     * @param start The start offset of the token, inclusive.
+     * @param end   The end offset of the token, exclusive.
+     */
+    public void append(CharSequence text, int start, int end) {
+        if (start >= end) {
+            return;
+        }
+        if (pendingSeparator && !empty && needsSeparator(previous, text.charAt(start))) {
+            mix(' ');
+        }
+        pendingSeparator = false;
+        for (int i = start; i < end; i++) {
+            mix(text.charAt(i));
+        }
+        previous = text.charAt(end - 1);
+        empty = false;
+    }
+
+    /**
+     * Returns the hash of everything appended so far.
+     *
+     * @return The 64-bit hash.
+     */
+    public long getHash() {
+        return hash;
+    }
+
+    /**
+     * Mixes a character into the hash.
+     *
+     * @param character The character to mix.
+     */
+    private void mix(char character) {
+        hash = (hash ^ character) * FNV_PRIME;
+    }
+
+    /**
+     * Checks if whitespace between two characters is significant.
+     *
+     * @param before The last character before the whitespace.
+     * @param after  The first character after the whitespace.
+     * @return True if removing the whitespace could change the meaning of the code.
+     */
+    private static boolean needsSeparator(char before, char after) {
+        if (Character.isJavaIdentifierPart(before) && Character.isJavaIdentifierPart(after)) {
+            return true;
+        }
+        return OPERATOR_CHARS.indexOf(before) >= 0 && OPERATOR_CHARS.indexOf(after) >= 0;
+    }
+}
@@ -0,0 +1,643 @@
+package com.your.projectroot;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Lightweight scanner that finds the methods of a Java source file without building an AST.
+ * It tokenizes the source once and emits, for every method declared in a class or interface,
+ * its signature, the range of its body and the {@link MethodBodyHasher} hash of the body.
+ * <p>
+ * The emitted methods and signatures are identical to the ones produced by JavaParser and
+ * {@link MethodSignatures#getSignOfMethodDeclaration}. Constructs for which this cannot be guaranteed
+ * (enums, records, annotation types, local classes, type annotations, generic arrays, ...)
+ * make {@link #scan} return null, and the caller falls back to JavaParser.
+ */
+public final class MethodBoundaryScanner {
+
+    /**
+     * A method found by the scanner.
+     *
+     * @param declaringClass   The name of the class declaring the method, as written in the source.
+     * @param signature        The signature of the method, in the format "className.methodName(parameterTypes)".
+     * @param declarationStart The offset of the first annotation or modifier of the method.
+     * @param bodyStart        The offset of the opening brace of the body, or of the end of the declaration if it has no body.
+     * @param bodyEnd          The offset right after the closing brace of the body.
+     * @param bodyHash         The normalized hash of the body, or 0 if the method has no body.
+     */
+    public record ScannedMethod(String declaringClass, String signature, int declarationStart,
+                                int bodyStart, int bodyEnd, long bodyHash) {
+    }
+
+    private static final int WORD = 0;
+    private static final int LITERAL = 1;
+    private static final int SYMBOL = 2;
+
+    private static final Set<String> MODIFIERS = Set.of("public", "protected", "private", "static", "final",
+            "abstract", "native", "synchronized", "transient", "volatile", "strictfp", "default", "sealed");
+
+    private final String content;
+    private final String className;
+    private final List<ScannedMethod> methods = new ArrayList<>();
+
+    private int lastBodyStart;
+    private int lastBodyEnd;
+    private long lastBodyHash;
+
+    private int tokenCount;
+    private int[] kinds = new int[256];
+    private int[] starts = new int[256];
+    private int[] ends = new int[256];
+    private boolean[] spaceBefore = new boolean[256];
+
+    /**
+     * Constructs a scanner for the given source.
+     *
+     * @param content   The content of the Java file.
+     * @param className The name of the class used as prefix of the signatures.
+     */
+    private MethodBoundaryScanner(String content, String className) {
+        this.content = content;
+        this.className = className;
+    }
+
+    /**
+     * Scans the given source for method declarations.
+     *
+     * @param content   The content of the Java file.
+     * @param className The name of the class used as prefix of the signatures.
+     * @return The methods in the order JavaParser's MethodVisitor visits them,
+     * or null if the source contains constructs the scanner cannot handle.
+     */
+    public static List<ScannedMethod> scan(String content, String className) {
+        MethodBoundaryScanner scanner = new MethodBoundaryScanner(content, className);
+        try {
+            scanner.tokenize();
+            scanner.scanCompilationUnit();
+            return scanner.methods;
+        } catch (UnsupportedSyntaxException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Splits the content into words (identifiers, keywords and numbers), literals and single-character symbols.
+     * Whitespace and comments are dropped, but remembered on the following token.
+     *
+     * @throws UnsupportedSyntaxException If the content contains unicode escapes or unterminated comments or literals.
+     */
+    private void tokenize() throws UnsupportedSyntaxException {
+        int length = content.length();
+        int position = 0;
+        boolean space = false;
+        while (position < length) {
+            char c = content.charAt(position);
+            if (Character.isWhitespace(c)) {
+                space = true;
+                position++;
+            } else if (c == '/' && position + 1 < length && content.charAt(position + 1) == '/') {
+                int end = content.indexOf('\n', position);
+                position = end < 0 ? length : end;
+                space = true;
+            } else if (c == '/' && position + 1 < length && content.charAt(position + 1) == '*') {
+                int end = content.indexOf("*/", position + 2);
+                if (end < 0) {
+                    throw new UnsupportedSyntaxException();
+                }
+                position = end + 2;
+                space = true;
+            } else if (c == '\\') {
+                // Unicode escapes outside of literals
+                throw new UnsupportedSyntaxException();
+            } else if (Character.isJavaIdentifierPart(c)) {
+                int end = position + 1;
+                while (end < length && Character.isJavaIdentifierPart(content.charAt(end))) {
+                    end++;
+                }
+                addToken(WORD, position, end, space);
+                position = end;
+                space = false;
+            } else if (c == '"' || c == '\'') {
+                int end = findLiteralEnd(position);
+                addToken(LITERAL, position, end, space);
+                position = end;
+                space = false;
+            } else {
+                addToken(SYMBOL, position, position + 1, space);
+                position++;
+                space = false;
+            }
+        }
+    }
+
+    /**
+     * Finds the end of the string, text block or character literal starting at the given offset.
+     *
+     * @param start The offset of the opening quote.
+     * @return The offset right after the closing quote.
+     * @throws UnsupportedSyntaxException If the literal is not terminated.
+     */
+    private int findLiteralEnd(int start) throws UnsupportedSyntaxException {
+        char quote = content.charAt(start);
+        boolean textBlock = quote == '"' && content.startsWith("\"\"\"", start);
+        int position = start + (textBlock ? 3 : 1);
+        while (position < content.length()) {
+            char c = content.charAt(position);
+            if (c == '\\') {
+                position += 2;
+            } else if (textBlock ? content.startsWith("\"\"\"", position) : c == quote) {
+                return position + (textBlock ? 3 : 1);
+            } else if (!textBlock && c == '\n') {
+                break;
+            } else {
+                position++;
+            }
+        }
+        throw new UnsupportedSyntaxException();
+    }
+
+    /**
+     * Appends a token, growing the token arrays if they are full.
+     *
+     * @param kind  The kind of the token: WORD, LITERAL or SYMBOL.
+     * @param start The offset of the first character of the token.
+     * @param end   The offset right after the last character of the token.
+     * @param space True if whitespace or a comment precedes the token, false otherwise.
+     */
+    private void addToken(int kind, int start, int end, boolean space) {
+        if (tokenCount == kinds.length) {
+            int capacity = tokenCount * 2;
+            kinds = Arrays.copyOf(kinds, capacity);
+            starts = Arrays.copyOf(starts, capacity);
+            ends = Arrays.copyOf(ends, capacity);
+            spaceBefore = Arrays.copyOf(spaceBefore, capacity);
+        }
+        kinds[tokenCount] = kind;
+        starts[tokenCount] = start;
+        ends[tokenCount] = end;
+        spaceBefore[tokenCount] = space;
+        tokenCount++;
+    }
+
+    /**
+     * Checks if the token at the given index is a word.
+     *
+     * @param index The index of the token.
+     * @return True if the token exists and is a word, false otherwise.
+     */
+    private boolean isWord(int index) {
+        return index < tokenCount && kinds[index] == WORD;
+    }
+
+    /**
+     * Checks if the token at the given index is the given word.
+     *
+     * @param index The index of the token.
+     * @param word  The expected word.
+     * @return True if the token is the word, false otherwise.
+     */
+    private boolean isWord(int index, String word) {
+        return isWord(index) && ends[index] - starts[index] == word.length()
+                && content.startsWith(word, starts[index]);
+    }
+
+    /**
+     * Checks if the token at the given index is the given symbol.
+     *
+     * @param index  The index of the token.
+     * @param symbol The expected symbol.
+     * @return True if the token is the symbol, false otherwise.
+     */
+    private boolean isSymbol(int index, char symbol) {
+        return index < tokenCount && kinds[index] == SYMBOL && content.charAt(starts[index]) == symbol;
+    }
+
+    /**
+     * Returns the source text of a token.
+     *
+     * @param index The index of the token.
+     * @return The text of the token.
+     */
+    private String text(int index) {
+        return content.substring(starts[index], ends[index]);
+    }
+
+    /**
+     * Checks that the content did not end before the token at the given index.
+     *
+     * @param index The index of the expected token.
+     * @throws UnsupportedSyntaxException If there is no token at the index.
+     */
+    private void expectToken(int index) throws UnsupportedSyntaxException {
+        if (index >= tokenCount) {
+            throw new UnsupportedSyntaxException();
+        }
+    }
+
+    /**
+     * Scans the package and import declarations and the top-level type declarations.
+     *
+     * @throws UnsupportedSyntaxException If an unsupported construct is found.
+     */
+    private void scanCompilationUnit() throws UnsupportedSyntaxException {
+        int index = 0;
+        while (index < tokenCount) {
+            if (isWord(index, "package") || isWord(index, "import")) {
+                index = skipPastSemicolon(index);
+            } else if (isSymbol(index, ';')) {
+                index++;
+            } else {
+                index = scanTypeDeclaration(index, null);
+            }
+        }
+    }
+
+    /**
+     * Scans a class or interface declaration, including its modifiers and body.
+     *
+     * @param index          The index of the first token of the declaration.
+     * @param enclosingClass The name of the enclosing class, or null for top-level classes.
+     * @return The index of the token following the declaration.
+     * @throws UnsupportedSyntaxException If the declaration is not a class or an interface.
+     */
+    private int scanTypeDeclaration(int index, String enclosingClass) throws UnsupportedSyntaxException {
+        index = skipModifiers(index);
+        if (!(isWord(index, "class") || isWord(index, "interface")) || !isWord(index + 1)) {
+            throw new UnsupportedSyntaxException();
+        }
+        String name = text(index + 1);
+        String declaringClass = enclosingClass == null ? name : enclosingClass + "." + name;
+
+        // Skip type parameters, extends, implements and permits clauses
+        index += 2;
+        while (!isSymbol(index, '{')) {
+            expectToken(index);
+            index = isSymbol(index, '<') ? skipBalanced(index, '<', '>') : index + 1;
+        }
+        return scanClassBody(index + 1, declaringClass);
+    }
+
+    /**
+     * Scans the members of a class body. The methods of the class are emitted after the methods of its
+     * nested classes, which matches the post-order in which JavaParser's MethodVisitor collects them.
+     *
+     * @param index          The index of the first token after the opening brace.
+     * @param declaringClass The name of the class.
+     * @return The index of the token following the closing brace.
+     * @throws UnsupportedSyntaxException If an unsupported construct is found.
+     */
+    private int scanClassBody(int index, String declaringClass) throws UnsupportedSyntaxException {
+        List<ScannedMethod> ownMethods = new ArrayList<>();
+        while (!isSymbol(index, '}')) {
+            expectToken(index);
+            if (isSymbol(index, ';')) {
+                index++;
+                continue;
+            }
+            if (isSymbol(index, '{') || (isWord(index, "static") && isSymbol(index + 1, '{'))) {
+                // Initializer block
+                index = skipBlock(isSymbol(index, '{') ? index : index + 1);
+                continue;
+            }
+
+            int declarationStart = index;
+            index = skipModifiers(index);
+            if (isWord(index, "class") || isWord(index, "interface")) {
+                index = scanTypeDeclaration(declarationStart, declaringClass);
+                continue;
+            }
+            if (isWord(index, "enum") || isRecordDeclaration(index)) {
+                throw new UnsupportedSyntaxException();
+            }
+            if (isSymbol(index, '<')) {
+                index = skipBalanced(index, '<', '>');
+            }
+
+            // Find the end of the member header
+            int headerStart = index;
+            while (!isSymbol(index, '(') && !isSymbol(index, '=') && !isSymbol(index, ';')) {
+                expectToken(index);
+                if (isSymbol(index, '@') || isSymbol(index, '{') || isSymbol(index, '}')) {
+                    throw new UnsupportedSyntaxException();
+                }
+                index = isSymbol(index, '<') ? skipBalanced(index, '<', '>') : index + 1;
+            }
+
+            if (!isSymbol(index, '(')) {
+                // Field declaration
+                index = skipPastSemicolon(index);
+            } else if (index - 1 == headerStart) {
+                // Constructor, not collected by the MethodVisitor
+                index = scanMethodRest(index, null);
+            } else {
+                if (!isWord(index - 1)) {
+                    throw new UnsupportedSyntaxException();
+                }
+                String name = text(index - 1);
+                List<String> parameterTypes = new ArrayList<>();
+                index = scanMethodRest(index, parameterTypes);
+                String signature = MethodSignatures.getSignOfMethodDeclaration(name, parameterTypes, className);
+                ownMethods.add(new ScannedMethod(declaringClass, signature, starts[declarationStart],
+                        lastBodyStart, lastBodyEnd, lastBodyHash));
+            }
+        }
+        methods.addAll(ownMethods);
+        return index + 1;
+    }
+
+    /**
+     * Scans the parameters, throws clause and body of a method or constructor.
+     * The range and hash of the body are stored in {@link #lastBodyStart}, {@link #lastBodyEnd} and {@link #lastBodyHash}.
+     *
+     * @param index          The index of the opening parenthesis of the parameter list.
+     * @param parameterTypes The list receiving the parameter types, or null if they are not needed.
+     * @return The index of the token following the declaration.
+     * @throws UnsupportedSyntaxException If an unsupported construct is found.
+     */
+    private int scanMethodRest(int index, List<String> parameterTypes) throws UnsupportedSyntaxException {
+        if (parameterTypes != null) {
+            index = scanParameters(index, parameterTypes);
+        } else {
+            index = skipBalanced(index, '(', ')');
+        }
+
+        // Skip array dimensions of the return type and the throws clause
+        while (!isSymbol(index, '{') && !isSymbol(index, ';')) {
+            expectToken(index);
+            if (isWord(index, "default") || isSymbol(index, '@')) {
+                throw new UnsupportedSyntaxException();
+            }
+            index = isSymbol(index, '<') ? skipBalanced(index, '<', '>') : index + 1;
+        }
+
+        if (isSymbol(index, ';')) {
+            lastBodyStart = ends[index];
+            lastBodyEnd = ends[index];
+            lastBodyHash = 0;
+            return index + 1;
+        }
+
+        MethodBodyHasher hasher = new MethodBodyHasher();
+        int bodyStart = index;
+        int depth = 0;
+        do {
+            expectToken(index);
+            checkNoLocalTypeDeclaration(index);
+            if (index > bodyStart && spaceBefore[index]) {
+                hasher.separator();
+            }
+            hasher.append(content, starts[index], ends[index]);
+            if (isSymbol(index, '{')) {
+                depth++;
+            } else if (isSymbol(index, '}')) {
+                depth--;
+            }
+            index++;
+        } while (depth > 0);
+
+        lastBodyStart = starts[bodyStart];
+        lastBodyEnd = ends[index - 1];
+        lastBodyHash = hasher.getHash();
+        return index;
+    }
+
+    /**
+     * Scans a parameter list and renders every parameter type the way JavaParser's
+     * {@code CallableDeclaration.Signature} does: annotations and the type arguments of the type are dropped,
+     * and varargs are rendered as an additional array dimension.
+     *
+     * @param index          The index of the opening parenthesis.
+     * @param parameterTypes The list receiving the parameter types.
+     * @return The index of the token following the closing parenthesis.
+     * @throws UnsupportedSyntaxException If a parameter type cannot be rendered exactly.
+     */
+    private int scanParameters(int index, List<String> parameterTypes) throws UnsupportedSyntaxException {
+        index++;
+        if (isSymbol(index, ')')) {
+            return index + 1;
+        }
+        while (true) {
+            // Modifiers and declaration annotations
+            while (isWord(index, "final") || isSymbol(index, '@')) {
+                index = isWord(index, "final") ? index + 1 : skipAnnotation(index);
+            }
+
+            StringBuilder type = new StringBuilder();
+            boolean typeArguments = false;
+            while (true) {
+                if (!isWord(index)) {
+                    throw new UnsupportedSyntaxException();
+                }
+                type.append(text(index++));
+                typeArguments = isSymbol(index, '<');
+                if (typeArguments) {
+                    index = skipBalanced(index, '<', '>');
+                }
+                if (isSymbol(index, '.') && isWord(index + 1)) {
+                    if (typeArguments) {
+                        // Type arguments of an outer type are kept by JavaParser
+                        throw new UnsupportedSyntaxException();
+                    }
+                    type.append('.');
+                    index++;
+                } else {
+                    break;
+                }
+            }
+
+            int dimensions = 0;
+            while (isSymbol(index, '[') && isSymbol(index + 1, ']')) {
+                dimensions++;
+                index += 2;
+            }
+            if (isSymbol(index, '.') && isSymbol(index + 1, '.') && isSymbol(index + 2, '.')) {
+                dimensions++;
+                index += 3;
+            }
+
+            // Parameter name, receiver parameters are not part of the signature
+            boolean receiver = false;
+            if (isWord(index) && isSymbol(index + 1, '.') && isWord(index + 2, "this")) {
+                receiver = true;
+                index += 3;
+            } else if (isWord(index)) {
+                receiver = isWord(index, "this");
+                index++;
+            } else {
+                throw new UnsupportedSyntaxException();
+            }
+            while (isSymbol(index, '[') && isSymbol(index + 1, ']')) {
+                dimensions++;
+                index += 2;
+            }
+            if (typeArguments && dimensions > 0) {
+                // Type arguments of array component types are kept by JavaParser
+                throw new UnsupportedSyntaxException();
+            }
+
+            if (!receiver) {
+                parameterTypes.add(type + "[]".repeat(dimensions));
+            }
+            if (isSymbol(index, ')')) {
+                return index + 1;
+            }
+            if (!isSymbol(index, ',')) {
+                throw new UnsupportedSyntaxException();
+            }
+            index++;
+        }
+    }
+
+    /**
+     * Skips modifiers and annotations.
+     *
+     * @param index The index of the first token.
+     * @return The index of the first token that is neither a modifier nor an annotation.
+     * @throws UnsupportedSyntaxException If an annotation type declaration is found.
+     */
+    private int skipModifiers(int index) throws UnsupportedSyntaxException {
+        while (true) {
+            if (isSymbol(index, '@')) {
+                if (isWord(index + 1, "interface")) {
+                    throw new UnsupportedSyntaxException();
+                }
+                index = skipAnnotation(index);
+            } else if (isWord(index) && MODIFIERS.contains(text(index))) {
+                index++;
+            } else if (isWord(index, "non") && isSymbol(index + 1, '-') && isWord(index + 2, "sealed")) {
+                index += 3;
+            } else {
+                return index;
+            }
+        }
+    }
+
+    /**
+     * Skips an annotation, including its arguments.
+     *
+     * @param index The index of the '@' symbol.
+     * @return The index of the token following the annotation.
+     * @throws UnsupportedSyntaxException If the annotation is malformed.
+     */
+    private int skipAnnotation(int index) throws UnsupportedSyntaxException {
+        index++;
+        if (!isWord(index)) {
+            throw new UnsupportedSyntaxException();
+        }
+        index++;
+        while (isSymbol(index, '.') && isWord(index + 1)) {
+            index += 2;
+        }
+        return isSymbol(index, '(') ? skipBalanced(index, '(', ')') : index;
+    }
+
+    /**
+     * Skips a block, checking that it does not declare local classes.
+     *
+     * @param index The index of the opening brace.
+     * @return The index of the token following the closing brace.
+     * @throws UnsupportedSyntaxException If the block declares a local type.
+     */
+    private int skipBlock(int index) throws UnsupportedSyntaxException {
+        int depth = 0;
+        do {
+            expectToken(index);
+            checkNoLocalTypeDeclaration(index);
+            if (isSymbol(index, '{')) {
+                depth++;
+            } else if (isSymbol(index, '}')) {
+                depth--;
+            }
+            index++;
+        } while (depth > 0);
+        return index;
+    }
+
+    /**
+     * Skips to the semicolon ending a declaration, ignoring semicolons nested in braces
+     * (e.g. in anonymous classes or switch expressions of field initializers).
+     *
+     * @param index The index of the first token.
+     * @return The index of the token following the semicolon.
+     * @throws UnsupportedSyntaxException If a local type is declared or the declaration is not terminated.
+     */
+    private int skipPastSemicolon(int index) throws UnsupportedSyntaxException {
+        int depth = 0;
+        while (depth > 0 || !isSymbol(index, ';')) {
+            expectToken(index);
+            checkNoLocalTypeDeclaration(index);
+            if (isSymbol(index, '{')) {
+                depth++;
+            } else if (isSymbol(index, '}')) {
+                if (--depth < 0) {
+                    throw new UnsupportedSyntaxException();
+                }
+            }
+            index++;
+        }
+        return index + 1;
+    }
+
+    /**
+     * Skips a balanced pair of brackets.
+     *
+     * @param index The index of the opening bracket.
+     * @param open  The opening bracket.
+     * @param close The closing bracket.
+     * @return The index of the token following the closing bracket.
+     * @throws UnsupportedSyntaxException If the brackets are not balanced.
+     */
+    private int skipBalanced(int index, char open, char close) throws UnsupportedSyntaxException {
+        int depth = 0;
+        do {
+            expectToken(index);
+            if (isSymbol(index, open)) {
+                depth++;
+            } else if (isSymbol(index, close)) {
+                depth--;
+            }
+            index++;
+        } while (depth > 0);
+        return index;
+    }
+
+    /**
+     * Checks that the token does not start a local or nested type declaration inside code,
+     * since the MethodVisitor collects the methods of local classes.
+     *
+     * @param index The index of the token.
+     * @throws UnsupportedSyntaxException If the token starts a type declaration.
+     */
+    private void checkNoLocalTypeDeclaration(int index) throws UnsupportedSyntaxException {
+        boolean typeKeyword = isWord(index, "class") || isWord(index, "interface") || isWord(index, "enum");
+        if ((typeKeyword && !(index > 0 && isSymbol(index - 1, '.'))) || isRecordDeclaration(index)) {
+            throw new UnsupportedSyntaxException();
+        }
+    }
+
+    /**
+     * Checks if the token starts a record declaration ("record Name(" or "record Name&lt;").
+     *
+     * @param index The index of the token.
+     * @return True if a record is declared.
+     */
+    private boolean isRecordDeclaration(int index) {
+        return isWord(index, "record") && isWord(index + 1) && (isSymbol(index + 2, '(') || isSymbol(index + 2, '<'));
+    }
+
+    /**
+     * Signals a construct the scanner does not handle; the caller falls back to JavaParser.
+     */
+    private static final class UnsupportedSyntaxException extends Exception {
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * Constructs the exception without a message, a cause or a stack trace, since it is always caught.
+         */
+        private UnsupportedSyntaxException() {
+            super(null, null, false, false);
+        }
+    }
+}
@@ -0,0 +1,463 @@
+package com.your.projectroot;
+
+import com.intellij.ide.highlighter.JavaFileType;
+import com.intellij.openapi.Disposable;
+import com.intellij.openapi.application.PathManager;
+import com.intellij.openapi.components.Service;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.project.DumbService;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.roots.ProjectFileIndex;
+import com.intellij.openapi.vfs.VfsUtilCore;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.openapi.vfs.VirtualFileManager;
+import com.intellij.openapi.vfs.newvfs.BulkFileListener;
+import com.intellij.openapi.vfs.newvfs.events.*;
+import com.intellij.psi.*;
+import com.intellij.psi.search.FileTypeIndex;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.psi.util.PsiTreeUtil;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Project-level reverse call graph used by the affected-method search.
+ * Maps every callee signature to the signatures of the methods calling it, using the same
+ * "className.methodName(parameterTypes)" strings produced by {@link CustomUtil#getMethodSignatureForPsiElement}.
+ * The graph is built once, persisted in the IDE system directory and kept up to date from PSI change events
+ * and from VFS events, which also report files changed, created, moved or deleted outside the IDE,
+ * so that callers can be read without running a ReferencesSearch over the whole project.
+ * <p>
+ * The persisted graph is a {@link MappedGraphStore}, which is mapped and queried in place. It is not tied to a HEAD
+ * and is stored without one: invalidation relies on file timestamps alone, so after a commit or a checkout
+ * only the files whose timestamp changed since they were indexed are re-indexed.
+ * Files re-indexed during the session are kept in memory and shadow their persisted calls,
+ * and both are merged into a new store when the project is closed.
+ */
+@Service(Service.Level.PROJECT)
+public final class MethodCallGraphIndex implements Disposable {
+
+    private static final Logger logger = Logger.getInstance(MethodCallGraphIndex.class);
+    private static final int FORMAT_VERSION = 2;
+    private static final int CALLERS_RELATION = 0;
+    private static final int FILE_CALLERS_RELATION = 1;
+    private static final long STALE_TIME_STAMP = 0;
+
+    private final Project project;
+    private final Map<String, FileEntry> FILE_ENTRIES = new HashMap<>();
+    private final Map<String, Set<String>> CALLERS = new ConcurrentHashMap<>();
+    private final Set<VirtualFile> DIRTY_FILES = new HashSet<>();
+    private final Set<String> REMOVED_PATHS = new HashSet<>();
+    private final Set<String> SHADOWED_FILES = new HashSet<>();
+    private final Set<String> SHADOWED_CALLERS = ConcurrentHashMap.newKeySet();
+    private volatile MappedGraphStore store;
+    private boolean initialized;
+
+    /**
+     * Constructs a MethodCallGraphIndex for the specified project and starts listening for PSI and VFS changes.
+     *
+     * @param project The IntelliJ project instance.
+     */
+    public MethodCallGraphIndex(Project project) {
+        this.project = project;
+        PsiManager.getInstance(project).addPsiTreeChangeListener(new DirtyFileListener(), this);
+        project.getMessageBus().connect(this).subscribe(VirtualFileManager.VFS_CHANGES, new ExternalChangeListener());
+    }
+
+    /**
+     * Brings the graph up to date, loading it from disk or building it on first use
+     * and re-indexing files that changed since the last call.
+     * Must be called under a read action.
+     *
+     * @return True if the graph can be queried, false if indices are not available (dumb mode).
+     */
+    public synchronized boolean ensureUpToDate() {
+        if (DumbService.isDumb(project)) {
+            logger.info("Call graph is not available in dumb mode");
+            return false;
+        }
+        if (!initialized) {
+            initialize();
+            initialized = true;
+        }
+        reindexDirtyFiles();
+        return true;
+    }
+
+    /**
+     * Returns the signatures of the methods calling the given method.
+     * Queries do not take the lock of the updates, so that the workers of a parallel search do not contend on it:
+     * the in-memory calls are held in concurrent collections and the mapped store is only read.
+     *
+     * @param calleeSignature The signature of the called method.
+     * @return The signatures of its callers, or an empty set if none are known.
+     */
+    public Set<String> getCallers(String calleeSignature) {
+        Set<String> callers = new HashSet<>();
+        MappedGraphStore store = this.store;
+        if (store != null) {
+            for (String caller : store.getTargets(CALLERS_RELATION, calleeSignature)) {
+                if (!SHADOWED_CALLERS.contains(caller)) {
+                    callers.add(caller);
+                }
+            }
+        }
+        callers.addAll(CALLERS.getOrDefault(calleeSignature, Collections.emptySet()));
+        return callers;
+    }
+
+    /**
+     * Saves the graph to disk when the project is closed.
+     */
+    @Override
+    public synchronized void dispose() {
+        if (initialized) {
+            saveToDisk();
+        }
+    }
+
+    /**
+     * Maps the persisted graph and marks every project Java file whose timestamp no longer matches as dirty.
+     * Files that are not part of the project anymore are dropped. Only the file paths of the store are decoded,
+     * the signatures are left in the mapped file.
+     */
+    private void initialize() {
+        loadFromDisk();
+
+        Set<String> projectFiles = new HashSet<>();
+        for (VirtualFile file : FileTypeIndex.getFiles(JavaFileType.INSTANCE, GlobalSearchScope.projectScope(project))) {
+            projectFiles.add(file.getPath());
+            int fileId = store == null ? -1 : store.findId(file.getPath());
+            if (fileId < 0 || store.getValue(fileId) != file.getTimeStamp()) {
+                DIRTY_FILES.add(file);
+            }
+        }
+
+        if (store != null) {
+            // Only file paths have a value
+            store.forEachIdWithValue(fileId -> {
+                String path = store.getString(fileId);
+                if (!projectFiles.contains(path)) {
+                    removeFileEntry(path);
+                }
+            });
+        }
+    }
+
+    /**
+     * Drops the calls of the files moved or deleted since the last update,
+     * and re-indexes all files marked as dirty since then.
+     * A file stays dirty until it is indexed, so a cancelled update is resumed by the next call.
+     */
+    private void reindexDirtyFiles() {
+        for (String path : REMOVED_PATHS) {
+            removeFileEntry(path);
+        }
+        REMOVED_PATHS.clear();
+        if (DIRTY_FILES.isEmpty()) {
+            return;
+        }
+        List<VirtualFile> files = new ArrayList<>(DIRTY_FILES);
+
+        PsiManager psiManager = PsiManager.getInstance(project);
+        for (VirtualFile file : files) {
+            ProgressManager.checkCanceled();
+            removeFileEntry(file.getPath());
+            if (file.isValid() && psiManager.findFile(file) instanceof PsiJavaFile javaFile) {
+                indexFile(file, javaFile);
+            }
+            DIRTY_FILES.remove(file);
+        }
+        logger.info("Re-indexed " + files.size() + " files in the call graph");
+    }
+
+    /**
+     * Records the outgoing calls of every method in the given file.
+     *
+     * @param file     The virtual file being indexed.
+     * @param javaFile The PSI of the file.
+     */
+    private void indexFile(VirtualFile file, PsiJavaFile javaFile) {
+        FileEntry entry = new FileEntry(file.getTimeStamp());
+        javaFile.accept(new JavaRecursiveElementWalkingVisitor() {
+            @Override
+            public void visitMethodCallExpression(@NotNull PsiMethodCallExpression expression) {
+                super.visitMethodCallExpression(expression);
+                recordCall(entry, expression, expression.resolveMethod());
+            }
+
+            @Override
+            public void visitNewExpression(@NotNull PsiNewExpression expression) {
+                super.visitNewExpression(expression);
+                recordCall(entry, expression, expression.resolveConstructor());
+            }
+
+            @Override
+            public void visitMethodReferenceExpression(@NotNull PsiMethodReferenceExpression expression) {
+                super.visitMethodReferenceExpression(expression);
+                if (expression.resolve() instanceof PsiMethod method) {
+                    recordCall(entry, expression, method);
+                }
+            }
+        });
+        addFileEntry(file.getPath(), entry);
+    }
+
+    /**
+     * Records a call from the method containing the given element to the resolved callee.
+     *
+     * @param entry   The file entry collecting the calls.
+     * @param element The element performing the call.
+     * @param callee  The resolved called method, may be null.
+     */
+    private void recordCall(FileEntry entry, PsiElement element, PsiMethod callee) {
+        if (callee == null) {
+            return;
+        }
+        PsiMethod caller = PsiTreeUtil.getParentOfType(element, PsiMethod.class);
+        PsiClass calleeClass = callee.getContainingClass();
+        if (caller == null || calleeClass == null || caller.getContainingClass() == null) {
+            return;
+        }
+        String callerSignature = CustomUtil.getMethodSignatureForPsiElement(caller, caller.getContainingClass().getQualifiedName());
+        String calleeSignature = CustomUtil.getMethodSignatureForPsiElement(callee, calleeClass.getQualifiedName());
+        entry.calleesByCaller.computeIfAbsent(callerSignature, key -> new HashSet<>()).add(calleeSignature);
+    }
+
+    /**
+     * Adds a file's calls to the graph.
+     *
+     * @param path  The path of the file.
+     * @param entry The calls made from the file.
+     */
+    private void addFileEntry(String path, FileEntry entry) {
+        FILE_ENTRIES.put(path, entry);
+        entry.calleesByCaller.forEach((caller, callees) -> {
+            for (String callee : callees) {
+                CALLERS.computeIfAbsent(callee, key -> ConcurrentHashMap.newKeySet()).add(caller);
+            }
+        });
+    }
+
+    /**
+     * Removes a file's calls from the graph. The persisted calls of the file are shadowed.
+     *
+     * @param path The path of the file.
+     */
+    private void removeFileEntry(String path) {
+        if (store != null && SHADOWED_FILES.add(path)) {
+            SHADOWED_CALLERS.addAll(store.getTargets(FILE_CALLERS_RELATION, path));
+        }
+        FileEntry entry = FILE_ENTRIES.remove(path);
+        if (entry == null) {
+            return;
+        }
+        entry.calleesByCaller.forEach((caller, callees) -> {
+            for (String callee : callees) {
+                Set<String> callers = CALLERS.get(callee);
+                if (callers != null) {
+                    callers.remove(caller);
+                    if (callers.isEmpty()) {
+                        CALLERS.remove(callee);
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * Returns the file the graph of this project is persisted to.
+     *
+     * @return The path of the storage file.
+     */
+    private Path getStorageFile() {
+        return Path.of(PathManager.getSystemPath(), "projectRoot", "callgraph", project.getLocationHash() + ".bin");
+    }
+
+    /**
+     * Maps the persisted graph, if any. A missing or outdated file leaves the graph empty.
+     * The graph is opened whatever the current HEAD, its changed files are found by their timestamps.
+     */
+    private void loadFromDisk() {
+        try {
+            store = MappedGraphStore.open(getStorageFile(), FORMAT_VERSION, null);
+            if (store == null) {
+                logger.info("No call graph stored, rebuilding it");
+            }
+        } catch (IOException e) {
+            logger.info("Cannot load call graph, rebuilding it", e);
+        }
+    }
+
+    /**
+     * Persists the graph to the IDE system directory, merging the calls of the re-indexed files into the persisted ones.
+     * Files that are still dirty are stored with a stale timestamp, so that they are re-indexed on the next load.
+     */
+    private void saveToDisk() {
+        Set<String> dirtyPaths = new HashSet<>();
+        for (VirtualFile file : DIRTY_FILES) {
+            dirtyPaths.add(file.getPath());
+        }
+        MappedGraphStore.Builder builder = new MappedGraphStore.Builder(2);
+        if (store != null) {
+            for (int id = 0; id < store.size(); id++) {
+                String value = store.getString(id);
+                long timeStamp = store.getValue(id);
+                if (timeStamp != MappedGraphStore.NO_VALUE && !SHADOWED_FILES.contains(value)) {
+                    builder.setValue(value, dirtyPaths.contains(value) ? STALE_TIME_STAMP : timeStamp);
+                    store.forEachTarget(FILE_CALLERS_RELATION, id, callerId -> builder.addEdge(FILE_CALLERS_RELATION, value, store.getString(callerId)));
+                }
+                store.forEachTarget(CALLERS_RELATION, id, callerId -> {
+                    String caller = store.getString(callerId);
+                    if (!SHADOWED_CALLERS.contains(caller)) {
+                        builder.addEdge(CALLERS_RELATION, value, caller);
+                    }
+                });
+            }
+        }
+        for (Map.Entry<String, FileEntry> fileEntry : FILE_ENTRIES.entrySet()) {
+            String path = fileEntry.getKey();
+            builder.setValue(path, dirtyPaths.contains(path) ? STALE_TIME_STAMP : fileEntry.getValue().timeStamp);
+            fileEntry.getValue().calleesByCaller.forEach((caller, callees) -> {
+                builder.addEdge(FILE_CALLERS_RELATION, path, caller);
+                for (String callee : callees) {
+                    builder.addEdge(CALLERS_RELATION, callee, caller);
+                }
+            });
+        }
+        store = null;
+        try {
+            builder.write(getStorageFile(), FORMAT_VERSION, "");
+        } catch (IOException e) {
+            logger.info("Cannot save call graph", e);
+        }
+    }
+
+    /**
+     * Marks the given file as dirty so that it is re-indexed on the next update.
+     *
+     * @param file The changed file, may be null.
+     */
+    private synchronized void markDirty(VirtualFile file) {
+        if (file != null) {
+            DIRTY_FILES.add(file);
+        }
+    }
+
+    /**
+     * Marks the given path as removed so that the calls of the file are dropped on the next update.
+     *
+     * @param path The path the file had before it was moved or deleted.
+     */
+    private synchronized void markRemoved(String path) {
+        REMOVED_PATHS.add(path);
+    }
+
+    /**
+     * The calls made from the methods of a single file.
+     */
+    private static class FileEntry {
+        private final long timeStamp;
+        private final Map<String, Set<String>> calleesByCaller = new HashMap<>();
+
+        private FileEntry(long timeStamp) {
+            this.timeStamp = timeStamp;
+        }
+    }
+
+    /**
+     * Listener marking Java files as dirty whenever their PSI changes.
+     */
+    private class DirtyFileListener extends PsiTreeChangeAdapter {
+        @Override
+        public void childAdded(@NotNull PsiTreeChangeEvent event) {
+            handle(event);
+        }
+
+        @Override
+        public void childRemoved(@NotNull PsiTreeChangeEvent event) {
+            handle(event);
+        }
+
+        @Override
+        public void childReplaced(@NotNull PsiTreeChangeEvent event) {
+            handle(event);
+        }
+
+        @Override
+        public void childMoved(@NotNull PsiTreeChangeEvent event) {
+            handle(event);
+        }
+
+        @Override
+        public void childrenChanged(@NotNull PsiTreeChangeEvent event) {
+            handle(event);
+        }
+
+        private void handle(PsiTreeChangeEvent event) {
+            PsiFile file = event.getFile();
+            if (file == null && event.getChild() instanceof PsiFile child) {
+                file = child;
+            }
+            if (file instanceof PsiJavaFile) {
+                markDirty(file.getVirtualFile());
+            }
+        }
+    }
+
+    /**
+     * Listener marking Java files of the project as dirty when they are changed, created, copied or moved
+     * through the VFS, e.g. by an external tool or a VCS operation, and dropping the paths they were moved from
+     * or deleted at. Directories are handled through the Java files they contain.
+     */
+    private class ExternalChangeListener implements BulkFileListener {
+        @Override
+        public void before(@NotNull List<? extends @NotNull VFileEvent> events) {
+            for (VFileEvent event : events) {
+                if (event instanceof VFileDeleteEvent || event instanceof VFileMoveEvent
+                        || event instanceof VFilePropertyChangeEvent propertyChange && propertyChange.isRename()) {
+                    forEachProjectJavaFile(event.getFile(), file -> markRemoved(file.getPath()));
+                }
+            }
+        }
+
+        @Override
+        public void after(@NotNull List<? extends @NotNull VFileEvent> events) {
+            for (VFileEvent event : events) {
+                if (event instanceof VFileContentChangeEvent || event instanceof VFileCreateEvent
+                        || event instanceof VFileMoveEvent
+                        || event instanceof VFilePropertyChangeEvent propertyChange && propertyChange.isRename()) {
+                    forEachProjectJavaFile(event.getFile(), MethodCallGraphIndex.this::markDirty);
+                } else if (event instanceof VFileCopyEvent copy) {
+                    forEachProjectJavaFile(copy.findCreatedFile(), MethodCallGraphIndex.this::markDirty);
+                }
+            }
+        }
+
+        /**
+         * Calls the given action for the file if it is a Java file in the content of the project,
+         * or for every such file below it if it is a directory.
+         *
+         * @param file   The file or directory of an event, may be null.
+         * @param action The action to be called for each Java file.
+         */
+        private void forEachProjectJavaFile(VirtualFile file, Consumer<VirtualFile> action) {
+            if (file == null || !file.isValid() || project.isDisposed()) {
+                return;
+            }
+            ProjectFileIndex fileIndex = ProjectFileIndex.getInstance(project);
+            VfsUtilCore.iterateChildrenRecursively(file, fileIndex::isInContent, child -> {
+                if (!child.isDirectory() && JavaFileType.DEFAULT_EXTENSION.equals(child.getExtension())) {
+                    action.accept(child);
+                }
+                return true;
+            });
+        }
+    }
+}
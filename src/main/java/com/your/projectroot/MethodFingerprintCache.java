@@ -0,0 +1,173 @@
+package com.your.projectroot;
+
+import com.intellij.openapi.Disposable;
+import com.intellij.openapi.application.PathManager;
+import com.intellij.openapi.components.Service;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.project.Project;
+import org.eclipse.jgit.lib.ObjectId;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * LRU cache of method fingerprint tables, keyed by class name and git blob id of the file content.
+ * HEAD versions are keyed by the blob id stored in the repository and working copies by the blob id
+ * computed from their content, so a working copy identical to HEAD shares the HEAD entry.
+ * When enabled in {@link ChangeTrackingSettings}, the cache is persisted in the IDE system directory.
+ */
+@Service(Service.Level.PROJECT)
+public final class MethodFingerprintCache implements Disposable {
+
+    private static final Logger logger = Logger.getInstance(MethodFingerprintCache.class);
+    private static final int FORMAT_VERSION = 3;
+
+    private final Project project;
+    private final Map<String, MethodFingerprints> FINGERPRINTS;
+    private boolean loaded;
+
+    /**
+     * Constructs a MethodFingerprintCache for the specified project.
+     *
+     * @param project The IntelliJ project instance.
+     */
+    public MethodFingerprintCache(Project project) {
+        this.project = project;
+        this.FINGERPRINTS = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, MethodFingerprints> eldest) {
+                // The capacity is read on every insertion, so a smaller size set in the settings applies right away
+                int capacity = project.getService(ChangeTrackingSettings.class).getFingerprintCacheSize();
+                Iterator<Map.Entry<String, MethodFingerprints>> iterator = entrySet().iterator();
+                while (size() > capacity && iterator.hasNext()) {
+                    iterator.next();
+                    iterator.remove();
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Returns the cached fingerprints of a file version.
+     *
+     * @param className The name of the class the file declares.
+     * @param contentId The git blob id of the file content.
+     * @return The cached fingerprints, or null if the file version is not cached.
+     */
+    public synchronized MethodFingerprints get(String className, ObjectId contentId) {
+        loadIfNeeded();
+        return FINGERPRINTS.get(getKey(className, contentId));
+    }
+
+    /**
+     * Caches the fingerprints of a file version.
+     *
+     * @param className    The name of the class the file declares.
+     * @param contentId    The git blob id of the file content.
+     * @param fingerprints The fingerprints of the file's methods.
+     */
+    public synchronized void put(String className, ObjectId contentId, MethodFingerprints fingerprints) {
+        loadIfNeeded();
+        FINGERPRINTS.put(getKey(className, contentId), fingerprints);
+    }
+
+    /**
+     * Saves the cache to disk when the project is closed, if persistence is enabled.
+     */
+    @Override
+    public synchronized void dispose() {
+        if (loaded && isPersistent()) {
+            saveToDisk();
+        }
+    }
+
+    /**
+     * Builds the cache key of a file version.
+     *
+     * @param className The name of the class the file declares.
+     * @param contentId The git blob id of the file content.
+     * @return The cache key.
+     */
+    private static String getKey(String className, ObjectId contentId) {
+        return className + ":" + contentId.name();
+    }
+
+    /**
+     * Checks if the cache is persisted between sessions.
+     *
+     * @return True if persistence is enabled in the settings.
+     */
+    private boolean isPersistent() {
+        return project.getService(ChangeTrackingSettings.class).isPersistFingerprintCache();
+    }
+
+    /**
+     * Loads the persisted cache on first access, if persistence is enabled.
+     */
+    private void loadIfNeeded() {
+        if (!loaded) {
+            loaded = true;
+            if (isPersistent()) {
+                loadFromDisk();
+            }
+        }
+    }
+
+    /**
+     * Returns the file the cache of this project is persisted to.
+     *
+     * @return The path of the storage file.
+     */
+    private Path getStorageFile() {
+        return Path.of(PathManager.getSystemPath(), "projectRoot", "fingerprints", project.getLocationHash() + ".bin");
+    }
+
+    /**
+     * Loads the persisted cache, if any. Entries are stored from least to most recently used.
+     */
+    private void loadFromDisk() {
+        Path storageFile = getStorageFile();
+        if (!Files.exists(storageFile)) {
+            return;
+        }
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(storageFile)))) {
+            if (input.readInt() != FORMAT_VERSION) {
+                logger.info("Ignoring fingerprint cache stored with an older format");
+                return;
+            }
+            int entryCount = input.readInt();
+            for (int i = 0; i < entryCount; i++) {
+                String key = input.readUTF();
+                FINGERPRINTS.put(key, MethodFingerprints.readFrom(input));
+            }
+        } catch (IOException e) {
+            logger.info("Cannot load fingerprint cache", e);
+            FINGERPRINTS.clear();
+        }
+    }
+
+    /**
+     * Persists the cache to the IDE system directory.
+     */
+    private void saveToDisk() {
+        Path storageFile = getStorageFile();
+        try {
+            Files.createDirectories(storageFile.getParent());
+            try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(storageFile)))) {
+                output.writeInt(FORMAT_VERSION);
+                output.writeInt(FINGERPRINTS.size());
+                for (Map.Entry<String, MethodFingerprints> entry : FINGERPRINTS.entrySet()) {
+                    output.writeUTF(entry.getKey());
+                    entry.getValue().writeTo(output);
+                }
+            }
+        } catch (IOException e) {
+            logger.info("Cannot save fingerprint cache", e);
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.your.projectroot;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Compact, immutable table of the methods of one file version, mapping every method signature to a hash of its body
+ * and the lines its declaration spans.
+ * Signatures are kept sorted so that two tables can be compared with a single merge pass.
+ */
+public final class MethodFingerprints {
+
+    /**
+     * The fingerprint of a single method.
+     *
+     * @param bodyHash  The normalized hash of the method's body.
+     * @param beginLine The first line of the declaration, 1-based.
+     * @param endLine   The last line of the declaration, 1-based and inclusive.
+     */
+    public record Fingerprint(long bodyHash, int beginLine, int endLine) {
+    }
+
+    private final String[] signatures;
+    private final long[] bodyHashes;
+    private final int[] beginLines;
+    private final int[] endLines;
+
+    private MethodFingerprints(String[] signatures, long[] bodyHashes, int[] beginLines, int[] endLines) {
+        this.signatures = signatures;
+        this.bodyHashes = bodyHashes;
+        this.beginLines = beginLines;
+        this.endLines = endLines;
+    }
+
+    /**
+     * Creates a fingerprint table from a map of method signatures to fingerprints.
+     *
+     * @param fingerprintsBySignature The fingerprint of every method, keyed by signature.
+     * @return The fingerprint table.
+     */
+    public static MethodFingerprints of(Map<String, Fingerprint> fingerprintsBySignature) {
+        String[] signatures = fingerprintsBySignature.keySet().toArray(new String[0]);
+        Arrays.sort(signatures);
+        long[] bodyHashes = new long[signatures.length];
+        int[] beginLines = new int[signatures.length];
+        int[] endLines = new int[signatures.length];
+        for (int i = 0; i < signatures.length; i++) {
+            Fingerprint fingerprint = fingerprintsBySignature.get(signatures[i]);
+            bodyHashes[i] = fingerprint.bodyHash();
+            beginLines[i] = fingerprint.beginLine();
+            endLines[i] = fingerprint.endLine();
+        }
+        return new MethodFingerprints(signatures, bodyHashes, beginLines, endLines);
+    }
+
+    /**
+     * Returns the methods whose declaration overlaps the given lines.
+     *
+     * @param lineFilter The filter selecting the lines.
+     * @return A table containing only the overlapping methods.
+     */
+    public MethodFingerprints restrictTo(ChangedLineRanges.LineFilter lineFilter) {
+        Map<String, Fingerprint> restricted = new LinkedHashMap<>();
+        for (int i = 0; i < signatures.length; i++) {
+            if (lineFilter.overlaps(beginLines[i], endLines[i])) {
+                restricted.put(signatures[i], new Fingerprint(bodyHashes[i], beginLines[i], endLines[i]));
+            }
+        }
+        return of(restricted);
+    }
+
+    /**
+     * Returns the number of methods in the table.
+     *
+     * @return The number of methods.
+     */
+    public int size() {
+        return signatures.length;
+    }
+
+    /**
+     * Returns the signature of the method at the given position.
+     *
+     * @param index The position of the method in the table.
+     * @return The signature of the method, in the format "className.methodName(parameterTypes)".
+     */
+    public String getSignature(int index) {
+        return signatures[index];
+    }
+
+    /**
+     * Returns the body hash of the method at the given position.
+     *
+     * @param index The position of the method in the table.
+     * @return The hash of the method's body.
+     */
+    public long getBodyHash(int index) {
+        return bodyHashes[index];
+    }
+
+    /**
+     * Writes the table to the given output.
+     *
+     * @param output The output to write to.
+     * @throws IOException If an I/O error occurs.
+     */
+    public void writeTo(DataOutput output) throws IOException {
+        output.writeInt(signatures.length);
+        for (int i = 0; i < signatures.length; i++) {
+            output.writeUTF(signatures[i]);
+            output.writeLong(bodyHashes[i]);
+            output.writeInt(beginLines[i]);
+            output.writeInt(endLines[i]);
+        }
+    }
+
+    /**
+     * Reads a table previously written with {@link #writeTo(DataOutput)}.
+     *
+     * @param input The input to read from.
+     * @return The fingerprint table.
+     * @throws IOException If an I/O error occurs.
+     */
+    public static MethodFingerprints readFrom(DataInput input) throws IOException {
+        int size = input.readInt();
+        String[] signatures = new String[size];
+        long[] bodyHashes = new long[size];
+        int[] beginLines = new int[size];
+        int[] endLines = new int[size];
+        for (int i = 0; i < size; i++) {
+            signatures[i] = input.readUTF();
+            bodyHashes[i] = input.readLong();
+            beginLines[i] = input.readInt();
+            endLines[i] = input.readInt();
+        }
+        return new MethodFingerprints(signatures, bodyHashes, beginLines, endLines);
+    }
+}
@@ -0,0 +1,142 @@
+package com.your.projectroot;
+
+import com.github.javaparser.ast.body.CallableDeclaration;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Utility class for building and splitting method signatures in the format "className.methodName(parameterTypes)".
+ * It depends on nothing but JavaParser, so it can be used by {@link ChangeTrackingCli} outside the IDE;
+ * the helpers working on PsiElements are in {@link CustomUtil}.
+ */
+public final class MethodSignatures {
+
+    private MethodSignatures() {
+    }
+
+    /**
+     * Generates the signature of a method declaration given its signature and class name.
+     *
+     * @param signature The signature of the method.
+     * @param className The name of the class declaring the method.
+     * @return The full signature of the method in the format "className.signature".
+     */
+    public static String getSignOfMethodDeclaration(CallableDeclaration.Signature signature, String className) {
+        return className + "." + signature.asString();
+    }
+
+    /**
+     * Generates the signature of a method declaration from its name and parameter types, in the same format as
+     * {@link #getSignOfMethodDeclaration(CallableDeclaration.Signature, String)}.
+     *
+     * @param methodName     The name of the method.
+     * @param parameterTypes The parameter types of the method, as rendered by JavaParser.
+     * @param className      The name of the class declaring the method.
+     * @return The full signature of the method in the format "className.methodName(parameterTypes)".
+     */
+    public static String getSignOfMethodDeclaration(String methodName, List<String> parameterTypes, String className) {
+        return className + "." + methodName + "(" + String.join(", ", parameterTypes) + ")";
+    }
+
+    /**
+     * Extracts the method name from a given method signature.
+     *
+     * @param methodSignature The full method signature.
+     * @return The extracted method name.
+     */
+    public static String extractMethodName(String methodSignature) {
+        int lastIndex = methodSignature.indexOf('(');
+        int startIndex = methodSignature.lastIndexOf('.', lastIndex);
+        if (startIndex != -1 && lastIndex != -1) {
+            return methodSignature.substring(startIndex + 1, lastIndex);
+        }
+        return methodSignature;   // Fallback to the whole signature if parsing fails
+    }
+
+    /**
+     * Extracts the class name from a given method signature.
+     *
+     * @param methodSignature The full method signature.
+     * @return The extracted class name.
+     */
+    public static String extractClassName(String methodSignature) {
+        int parameterStart = methodSignature.indexOf('(');
+        int lastDotIndex = methodSignature.lastIndexOf('.', parameterStart == -1 ? methodSignature.length() : parameterStart);
+        if (lastDotIndex != -1) {
+            return methodSignature.substring(0, lastDotIndex);
+        }
+        return "";
+    }
+
+    /**
+     * Extracts the parameter types from a given method signature.
+     * Commas inside type arguments do not separate parameters.
+     *
+     * @param methodSignature The full method signature.
+     * @return An array of parameter types as strings.
+     */
+    public static String[] extractParameterTypes(String methodSignature) {
+        int startIndex = methodSignature.indexOf('(');
+        int endIndex = methodSignature.lastIndexOf(')');
+        if (startIndex != -1 && endIndex > startIndex) {
+            String params = methodSignature.substring(startIndex + 1, endIndex);
+            if (params.isEmpty()) {
+                return new String[0];
+            }
+            List<String> parameterTypes = new ArrayList<>();
+            int depth = 0;
+            int parameterStart = 0;
+            for (int i = 0; i < params.length(); i++) {
+                char c = params.charAt(i);
+                if (c == '<') {
+                    depth++;
+                } else if (c == '>') {
+                    depth--;
+                } else if (c == ',' && depth == 0) {
+                    parameterTypes.add(params.substring(parameterStart, i).trim());
+                    parameterStart = i + 1;
+                }
+            }
+            parameterTypes.add(params.substring(parameterStart).trim());
+            return parameterTypes.toArray(new String[0]);
+        }
+        return new String[0];  // Fallback to no parameters if parsing fails
+    }
+
+    /**
+     * Normalizes a parameter type by dropping type arguments and qualifiers and rendering varargs as an array.
+     *
+     * @param parameterType The parameter type, e.g. "java.util.List<String>..." or "List[]".
+     * @return The normalized type, e.g. "List[]".
+     */
+    public static String normalizeParameterType(String parameterType) {
+        StringBuilder normalized = new StringBuilder();
+        int depth = 0;
+        for (int i = 0; i < parameterType.length(); i++) {
+            char c = parameterType.charAt(i);
+            if (c == '<') {
+                depth++;
+            } else if (c == '>') {
+                depth--;
+            } else if (depth == 0 && !Character.isWhitespace(c)) {
+                normalized.append(c);
+            }
+        }
+        String type = normalized.toString().replace("...", "[]");
+        int arrayStart = type.indexOf('[');
+        int qualifierEnd = type.lastIndexOf('.', arrayStart == -1 ? type.length() : arrayStart);
+        return qualifierEnd == -1 ? type : type.substring(qualifierEnd + 1);
+    }
+
+    /**
+     * Extracts ClassName from File path
+     * @param sourceFilePath The path of file
+     * @return The className as String
+     */
+    public static String getClassNameFromFilePath(String sourceFilePath){
+        int lastInd = sourceFilePath.lastIndexOf('.');
+        int startInd = sourceFilePath.lastIndexOf('/');
+        return sourceFilePath.substring(startInd + 1, lastInd);
+    }
+}
@@ -0,0 +1,250 @@
+package com.your.projectroot;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Interns method signatures to dense int ids for the affected-method search.
+ * Every signature is split into its method name, class name and parameter types once, when it is interned,
+ * and the depth at which the search reached a method is stored in a primitive array indexed by its id.
+ * <p>
+ * All methods are thread-safe without a table-wide lock: ids are assigned through a concurrent map and an atomic
+ * counter, the per-id data is stored in fixed-size chunks that never move once allocated, and depths are updated
+ * with compare-and-set. Only allocating a new chunk synchronizes. {@link #snapshotDepths()},
+ * {@link #restoreDepths(int[])} and {@link #clear()} must not run concurrently with the search.
+ */
+public class MethodSymbolTable {
+
+    private static final int NOT_REACHED = -1;
+    private static final int CHUNK_BITS = 10;
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    private final ConcurrentHashMap<String, Integer> IDS = new ConcurrentHashMap<>();
+    private final AtomicInteger nextId = new AtomicInteger();
+    private volatile Chunk[] CHUNKS = new Chunk[0];
+
+    /**
+     * The data of {@link #CHUNK_SIZE} consecutive ids.
+     */
+    private static final class Chunk {
+        private final String[] SIGNATURES = new String[CHUNK_SIZE];
+        private final String[] METHOD_NAMES = new String[CHUNK_SIZE];
+        private final String[] CLASS_NAMES = new String[CHUNK_SIZE];
+        private final String[][] PARAMETER_TYPES = new String[CHUNK_SIZE][];
+        private final AtomicIntegerArray DEPTHS = new AtomicIntegerArray(CHUNK_SIZE);
+
+        private Chunk() {
+            for (int i = 0; i < CHUNK_SIZE; i++) {
+                DEPTHS.set(i, NOT_REACHED);
+            }
+        }
+    }
+
+    /**
+     * Returns the id of a signature, assigning the next free id if it was not interned before.
+     * The signature is split before the id is published, so its parts can be read by any thread the id is passed to.
+     *
+     * @param signature The signature in the format "className.methodName(parameterTypes)".
+     * @return The id of the signature.
+     */
+    public int intern(String signature) {
+        Integer id = IDS.get(signature);
+        if (id != null) {
+            return id;
+        }
+        return IDS.computeIfAbsent(signature, key -> {
+            int newId = nextId.getAndIncrement();
+            Chunk chunk = getOrCreateChunk(newId >>> CHUNK_BITS);
+            int index = newId & CHUNK_MASK;
+            chunk.SIGNATURES[index] = key;
+            chunk.METHOD_NAMES[index] = MethodSignatures.extractMethodName(key);
+            chunk.CLASS_NAMES[index] = MethodSignatures.extractClassName(key);
+            chunk.PARAMETER_TYPES[index] = MethodSignatures.extractParameterTypes(key);
+            return newId;
+        });
+    }
+
+    /**
+     * Returns the number of interned signatures.
+     *
+     * @return The number of signatures.
+     */
+    public int size() {
+        return nextId.get();
+    }
+
+    /**
+     * Returns the signature with the given id.
+     *
+     * @param id The id of the signature.
+     * @return The signature.
+     */
+    public String getSignature(int id) {
+        return getChunk(id).SIGNATURES[id & CHUNK_MASK];
+    }
+
+    /**
+     * Returns the method name of the signature with the given id.
+     *
+     * @param id The id of the signature.
+     * @return The method name.
+     */
+    public String getMethodName(int id) {
+        return getChunk(id).METHOD_NAMES[id & CHUNK_MASK];
+    }
+
+    /**
+     * Returns the class name of the signature with the given id.
+     *
+     * @param id The id of the signature.
+     * @return The class name.
+     */
+    public String getClassName(int id) {
+        return getChunk(id).CLASS_NAMES[id & CHUNK_MASK];
+    }
+
+    /**
+     * Returns the parameter types of the signature with the given id.
+     *
+     * @param id The id of the signature.
+     * @return The parameter types, shared with the table and not to be modified.
+     */
+    public String[] getParameterTypes(int id) {
+        return getChunk(id).PARAMETER_TYPES[id & CHUNK_MASK];
+    }
+
+    /**
+     * Returns the depth at which the search reached the method with the given id.
+     *
+     * @param id The id of the method.
+     * @return The depth, or -1 if the method was not reached.
+     */
+    public int getDepth(int id) {
+        return getChunk(id).DEPTHS.get(id & CHUNK_MASK);
+    }
+
+    /**
+     * Records the depth at which the search reached a method, unless it was already reached at the same or a lower depth.
+     *
+     * @param id    The id of the method.
+     * @param depth The depth.
+     * @return True if the method was not reached before or only at a higher depth, false otherwise.
+     */
+    public boolean markReachedBelow(int id, int depth) {
+        AtomicIntegerArray depths = getChunk(id).DEPTHS;
+        int index = id & CHUNK_MASK;
+        while (true) {
+            int current = depths.get(index);
+            if (current != NOT_REACHED && current <= depth) {
+                return false;
+            }
+            if (depths.compareAndSet(index, current, depth)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Records the depth at which the search reached a method, unless it was reached before.
+     *
+     * @param id    The id of the method.
+     * @param depth The depth.
+     * @return True if the method was not reached before, false otherwise.
+     */
+    public boolean markReached(int id, int depth) {
+        return getChunk(id).DEPTHS.compareAndSet(id & CHUNK_MASK, NOT_REACHED, depth);
+    }
+
+    /**
+     * Returns the ids of all methods reached at the given depth, in ascending order.
+     *
+     * @param depth The depth.
+     * @return The ids.
+     */
+    public int[] getReachedAt(int depth) {
+        int count = size();
+        int[] reached = new int[16];
+        int reachedCount = 0;
+        for (int id = 0; id < count; id++) {
+            if (getDepth(id) == depth) {
+                if (reachedCount == reached.length) {
+                    reached = Arrays.copyOf(reached, reachedCount * 2);
+                }
+                reached[reachedCount++] = id;
+            }
+        }
+        return Arrays.copyOf(reached, reachedCount);
+    }
+
+    /**
+     * Returns a copy of the depths of all methods.
+     *
+     * @return The depths indexed by id.
+     */
+    public int[] snapshotDepths() {
+        int[] snapshot = new int[size()];
+        for (int id = 0; id < snapshot.length; id++) {
+            snapshot[id] = getDepth(id);
+        }
+        return snapshot;
+    }
+
+    /**
+     * Restores the depths from a snapshot. Methods interned after the snapshot are marked as not reached.
+     *
+     * @param snapshot The depths returned by {@link #snapshotDepths()}.
+     */
+    public void restoreDepths(int[] snapshot) {
+        int count = size();
+        for (int id = 0; id < count; id++) {
+            getChunk(id).DEPTHS.set(id & CHUNK_MASK, id < snapshot.length ? snapshot[id] : NOT_REACHED);
+        }
+    }
+
+    /**
+     * Removes all signatures and depths.
+     */
+    public synchronized void clear() {
+        IDS.clear();
+        nextId.set(0);
+        CHUNKS = new Chunk[0];
+    }
+
+    /**
+     * Returns the chunk holding the data of an id that was interned.
+     *
+     * @param id The id.
+     * @return The chunk.
+     */
+    private Chunk getChunk(int id) {
+        return CHUNKS[id >>> CHUNK_BITS];
+    }
+
+    /**
+     * Returns the chunk with the given index, allocating it and the chunks before it if needed.
+     *
+     * @param chunkIndex The index of the chunk.
+     * @return The chunk.
+     */
+    private Chunk getOrCreateChunk(int chunkIndex) {
+        Chunk[] current = CHUNKS;
+        if (chunkIndex < current.length) {
+            return current[chunkIndex];
+        }
+        synchronized (this) {
+            current = CHUNKS;
+            if (chunkIndex >= current.length) {
+                Chunk[] grown = Arrays.copyOf(current, chunkIndex + 1);
+                for (int i = current.length; i < grown.length; i++) {
+                    grown[i] = new Chunk();
+                }
+                CHUNKS = grown;
+                current = grown;
+            }
+            return current[chunkIndex];
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package com.your.projectroot;
+
+import java.util.*;
+
+/**
+ * Aho-Corasick matcher finding the occurrences of many identifiers in a text in a single pass.
+ * Only whole words are reported, i.e. occurrences that are not preceded or followed by a Java identifier character.
+ * The automaton is immutable once built, so it can be shared by threads scanning different texts.
+ */
+public final class MultiWordMatcher {
+
+    private static final int ROOT = 0;
+
+    private final String[] WORDS;
+    private final char[][] LABELS;
+    private final int[][] TARGETS;
+    private final int[] FAILURE_LINKS;
+    private final int[] OUTPUTS;
+    private final int[] DICTIONARY_LINKS;
+
+    /**
+     * Receives the occurrences of the words.
+     */
+    @FunctionalInterface
+    public interface MatchConsumer {
+        /**
+         * Called for every whole-word occurrence, in the order of their end offsets.
+         *
+         * @param word  The matched word.
+         * @param start The offset of the occurrence in the text.
+         */
+        void accept(String word, int start);
+    }
+
+    /**
+     * Builds the automaton of the given words. Empty words are ignored.
+     *
+     * @param words The words to be matched.
+     */
+    public MultiWordMatcher(Collection<String> words) {
+        WORDS = words.stream().filter(word -> !word.isEmpty()).distinct().toArray(String[]::new);
+        List<TreeMap<Character, Integer>> children = new ArrayList<>();
+        List<Integer> outputs = new ArrayList<>();
+        children.add(new TreeMap<>());
+        outputs.add(-1);
+        for (int wordIndex = 0; wordIndex < WORDS.length; wordIndex++) {
+            int node = ROOT;
+            for (char c : WORDS[wordIndex].toCharArray()) {
+                Integer child = children.get(node).get(c);
+                if (child == null) {
+                    child = children.size();
+                    children.add(new TreeMap<>());
+                    outputs.add(-1);
+                    children.get(node).put(c, child);
+                }
+                node = child;
+            }
+            outputs.set(node, wordIndex);
+        }
+
+        int nodeCount = children.size();
+        LABELS = new char[nodeCount][];
+        TARGETS = new int[nodeCount][];
+        FAILURE_LINKS = new int[nodeCount];
+        OUTPUTS = new int[nodeCount];
+        DICTIONARY_LINKS = new int[nodeCount];
+        for (int node = 0; node < nodeCount; node++) {
+            TreeMap<Character, Integer> nodeChildren = children.get(node);
+            LABELS[node] = new char[nodeChildren.size()];
+            TARGETS[node] = new int[nodeChildren.size()];
+            int i = 0;
+            for (Map.Entry<Character, Integer> entry : nodeChildren.entrySet()) {
+                LABELS[node][i] = entry.getKey();
+                TARGETS[node][i++] = entry.getValue();
+            }
+            OUTPUTS[node] = outputs.get(node);
+        }
+
+        // Failure links in breadth-first order, so the links of shallower nodes are known
+        Deque<Integer> queue = new ArrayDeque<>();
+        for (int child : TARGETS[ROOT]) {
+            queue.add(child);
+        }
+        while (!queue.isEmpty()) {
+            int node = queue.poll();
+            for (int i = 0; i < LABELS[node].length; i++) {
+                int child = TARGETS[node][i];
+                int fallback = FAILURE_LINKS[node];
+                int next = getTransition(fallback, LABELS[node][i]);
+                while (next < 0 && fallback != ROOT) {
+                    fallback = FAILURE_LINKS[fallback];
+                    next = getTransition(fallback, LABELS[node][i]);
+                }
+                FAILURE_LINKS[child] = next < 0 ? ROOT : next;
+                int failure = FAILURE_LINKS[child];
+                DICTIONARY_LINKS[child] = OUTPUTS[failure] >= 0 ? failure : DICTIONARY_LINKS[failure];
+                queue.add(child);
+            }
+        }
+    }
+
+    /**
+     * Checks if there are no words to match.
+     *
+     * @return True if the matcher was built without words.
+     */
+    public boolean isEmpty() {
+        return WORDS.length == 0;
+    }
+
+    /**
+     * Reports every whole-word occurrence of the words in the text.
+     *
+     * @param text     The text to scan.
+     * @param consumer The consumer of the occurrences.
+     */
+    public void forEachMatch(CharSequence text, MatchConsumer consumer) {
+        int state = ROOT;
+        for (int offset = 0; offset < text.length(); offset++) {
+            char c = text.charAt(offset);
+            int next = getTransition(state, c);
+            while (next < 0 && state != ROOT) {
+                state = FAILURE_LINKS[state];
+                next = getTransition(state, c);
+            }
+            state = next < 0 ? ROOT : next;
+
+            boolean endsWord = offset + 1 == text.length() || !Character.isJavaIdentifierPart(text.charAt(offset + 1));
+            if (!endsWord) {
+                continue;
+            }
+            for (int node = OUTPUTS[state] >= 0 ? state : DICTIONARY_LINKS[state]; node != ROOT; node = DICTIONARY_LINKS[node]) {
+                String word = WORDS[OUTPUTS[node]];
+                int start = offset + 1 - word.length();
+                if (start == 0 || !Character.isJavaIdentifierPart(text.charAt(start - 1))) {
+                    consumer.accept(word, start);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the child of a node reached with a character.
+     *
+     * @param node The node.
+     * @param c    The character.
+     * @return The child, or -1 if the node has no transition for the character.
+     */
+    private int getTransition(int node, char c) {
+        int index = Arrays.binarySearch(LABELS[node], c);
+        return index >= 0 ? TARGETS[node][index] : -1;
+    }
+}
@@ -1,16 +1,23 @@
 package com.your.projectroot;
 
+import com.intellij.concurrency.JobLauncher;
+import com.intellij.ide.highlighter.JavaFileType;
+import com.intellij.openapi.application.ReadAction;
+import com.intellij.openapi.fileTypes.FileTypeRegistry;
+import com.intellij.openapi.progress.ProgressIndicator;
 import com.intellij.openapi.project.Project;
-import com.intellij.psi.PsiElement;
-import com.intellij.psi.PsiMethod;
+import com.intellij.openapi.util.text.StringUtil;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.*;
+import com.intellij.psi.impl.cache.CacheManager;
 import com.intellij.psi.search.GlobalSearchScope;
-import com.intellij.psi.search.PsiSearchHelper;
-import com.intellij.psi.search.TextOccurenceProcessor;
 import com.intellij.psi.search.UsageSearchContext;
+import com.intellij.psi.util.PsiTreeUtil;
+import com.intellij.util.indexing.FileBasedIndex;
+import org.jetbrains.annotations.NotNull;
 
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.Set;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Utility class for finding usages of private methods within a project.
@@ -19,34 +26,198 @@ public class PrivateMethodUsageFinder {
 
     /**
      * Finds test methods that use the given set of private methods within a project.
+     * All method names are gathered into one batch: the candidate files are the files containing a test
+     * that references one of the names according to the {@link TestReferenceIndex}, and the Java files containing
+     * one of the names in a string literal according to the word index. Every candidate file is then traversed once,
+     * in parallel, matching all names at the same time with a {@link MultiWordMatcher}, so that reflective accesses
+     * like "getDeclaredMethod(\"helper\", int.class)" or "Foo#helper" are found as well.
+     * The indices are keyed by name only, so every hit is checked against the class declaring the method:
+     * a reference must resolve to a method of that name in the class, and a name in a string literal only counts
+     * if the same test method also names the class or uses it, e.g. in a class literal.
+     * Must be called outside a read action, in smart mode.
      *
-     * @param project       The project in which to search for private method usages.
+     * @param project        The project in which to search for private method usages.
      * @param privateMethods The set of private methods to find usages for.
+     * @param indicator      The progress indicator of the search.
      * @return A set of PsiMethods representing the test methods that use the private methods.
      */
-    public static Set<PsiMethod> findPrivateMethodUsages(Project project, Set<PsiMethod> privateMethods) {
-        Set<PsiMethod> testMethodsUsingPrivateMethods = new HashSet<>();
-        PsiSearchHelper searchHelper = PsiSearchHelper.getInstance(project);
+    public static Set<PsiMethod> findPrivateMethodUsages(Project project, Set<PsiMethod> privateMethods,
+                                                         ProgressIndicator indicator) {
+        Set<PsiMethod> testMethodsUsingPrivateMethods = ConcurrentHashMap.newKeySet();
+        Map<String, Set<String>> classesByMethodName = ReadAction.compute(() -> {
+            Map<String, Set<String>> classes = new HashMap<>();
+            for (PsiMethod privateMethod : privateMethods) {
+                PsiClass containingClass = privateMethod.isValid() ? privateMethod.getContainingClass() : null;
+                String className = containingClass == null ? null : containingClass.getQualifiedName();
+                if (className != null) {
+                    classes.computeIfAbsent(privateMethod.getName(), key -> new HashSet<>()).add(className);
+                }
+            }
+            return classes;
+        });
+        if (classesByMethodName.isEmpty()) {
+            return testMethodsUsingPrivateMethods;
+        }
+
+        List<VirtualFile> candidateFiles = ReadAction.nonBlocking(() -> findCandidateFiles(project, classesByMethodName.keySet()))
+                .inSmartMode(project)
+                .wrapProgress(indicator)
+                .executeSynchronously();
+
+        MultiWordMatcher matcher = new MultiWordMatcher(classesByMethodName.keySet());
+        JobLauncher.getInstance().invokeConcurrentlyUnderProgress(candidateFiles, indicator, file -> {
+            ReadAction.nonBlocking(() -> {
+                        findTestsInFile(project, file, classesByMethodName, matcher, testMethodsUsingPrivateMethods);
+                        return null;
+                    })
+                    .inSmartMode(project)
+                    .wrapProgress(indicator)
+                    .executeSynchronously();
+            return true;
+        });
+        indicator.checkCanceled();
+        return testMethodsUsingPrivateMethods;
+    }
+
+    /**
+     * Finds the files that may contain tests using one of the names, with index lookups only.
+     * Must be called in a read action.
+     *
+     * @param project     The project in which to search.
+     * @param methodNames The names of the private methods.
+     * @return The candidate files.
+     */
+    private static List<VirtualFile> findCandidateFiles(Project project, Set<String> methodNames) {
         GlobalSearchScope searchScope = GlobalSearchScope.projectScope(project);
+        Set<VirtualFile> candidateFiles = new LinkedHashSet<>();
+        FileBasedIndex.getInstance().processFilesContainingAnyKey(TestReferenceIndex.NAME, methodNames, searchScope,
+                null, null, candidateFiles::add);
 
-        HashMap<String, PsiMethod> privateMethodNames = new HashMap<>();
-        for (PsiMethod privateMethod : privateMethods) {
-            privateMethodNames.put(privateMethod.getName(), privateMethod);
+        CacheManager cacheManager = CacheManager.getInstance(project);
+        FileTypeRegistry fileTypeRegistry = FileTypeRegistry.getInstance();
+        for (String methodName : methodNames) {
+            for (VirtualFile file : cacheManager.getVirtualFilesWithWord(methodName, UsageSearchContext.IN_STRINGS, searchScope, true)) {
+                if (fileTypeRegistry.isFileOfType(file, JavaFileType.INSTANCE)) {
+                    candidateFiles.add(file);
+                }
+            }
         }
+        return new ArrayList<>(candidateFiles);
+    }
 
-        for (String methodName : privateMethodNames.keySet()) {
-            TextOccurenceProcessor processor = (element, offsetInElement) -> {
+    /**
+     * Collects the test methods of a file that use one of the private methods, either through a reference
+     * resolving to it or through its name inside a string literal of a test that also names its class.
+     * Must be called in a read action.
+     *
+     * @param project             The project containing the file.
+     * @param file                The candidate file.
+     * @param classesByMethodName The qualified names of the classes declaring each private method name.
+     * @param matcher             The matcher of the names.
+     * @param collector           The set receiving the test methods.
+     */
+    private static void findTestsInFile(Project project, VirtualFile file, Map<String, Set<String>> classesByMethodName,
+                                        MultiWordMatcher matcher, Set<PsiMethod> collector) {
+        PsiFile psiFile = file.isValid() ? PsiManager.getInstance(project).findFile(file) : null;
+        if (psiFile == null) {
+            return;
+        }
+        Map<String, List<Integer>> fileData = FileBasedIndex.getInstance().getFileData(TestReferenceIndex.NAME, file, project);
+        classesByMethodName.forEach((methodName, classNames) -> {
+            for (int offset : fileData.getOrDefault(methodName, Collections.emptyList())) {
+                PsiMethod testMethod = PsiTreeUtil.getParentOfType(psiFile.findElementAt(offset), PsiMethod.class, false);
+                if (testMethod != null && CustomUtil.isTestMethod(testMethod)
+                        && referencesMethod(testMethod, methodName, classNames)) {
+                    collector.add(testMethod);
+                }
+            }
+        });
 
-                if (element.getText().contains(methodName)) {
-                    PsiElement parent = element.getParent();
-                    if (parent instanceof PsiMethod psiMethod && CustomUtil.isTestMethod(psiMethod)) {
-                        testMethodsUsingPrivateMethods.add(psiMethod);
+        matcher.forEachMatch(psiFile.getViewProvider().getContents(), (word, start) -> {
+            PsiLiteralExpression literal = PsiTreeUtil.getParentOfType(psiFile.findElementAt(start), PsiLiteralExpression.class, false);
+            PsiMethod testMethod = literal == null ? null : PsiTreeUtil.getParentOfType(literal, PsiMethod.class);
+            if (testMethod != null && CustomUtil.isTestMethod(testMethod)
+                    && namesClass(testMethod, classesByMethodName.get(word))) {
+                collector.add(testMethod);
+            }
+        });
+    }
+
+    /**
+     * Checks if a method contains a reference resolving to a method of the given name declared by one of the classes.
+     *
+     * @param method     The method to search.
+     * @param methodName The name of the referenced method.
+     * @param classNames The qualified names of the classes declaring it.
+     * @return True if such a reference exists, false otherwise.
+     */
+    private static boolean referencesMethod(PsiMethod method, String methodName, Set<String> classNames) {
+        boolean[] found = new boolean[1];
+        method.accept(new JavaRecursiveElementWalkingVisitor() {
+            @Override
+            public void visitReferenceExpression(@NotNull PsiReferenceExpression expression) {
+                super.visitReferenceExpression(expression);
+                if (methodName.equals(expression.getReferenceName())
+                        && expression.resolve() instanceof PsiMethod referenced
+                        && referenced.getContainingClass() != null
+                        && classNames.contains(referenced.getContainingClass().getQualifiedName())) {
+                    found[0] = true;
+                    stopWalking();
+                }
+            }
+        });
+        return found[0];
+    }
+
+    /**
+     * Checks if a method names one of the classes, either through a reference resolving to it, which includes
+     * class literals, or through a string literal holding its qualified or binary name, its simple name,
+     * or a member of it like "Foo#helper".
+     *
+     * @param method     The method to search.
+     * @param classNames The qualified names of the classes.
+     * @return True if one of the classes is named, false otherwise.
+     */
+    private static boolean namesClass(PsiMethod method, Set<String> classNames) {
+        boolean[] found = new boolean[1];
+        method.accept(new JavaRecursiveElementWalkingVisitor() {
+            @Override
+            public void visitReferenceElement(@NotNull PsiJavaCodeReferenceElement reference) {
+                super.visitReferenceElement(reference);
+                check(reference);
+            }
+
+            @Override
+            public void visitReferenceExpression(@NotNull PsiReferenceExpression expression) {
+                super.visitReferenceExpression(expression);
+                check(expression);
+            }
+
+            @Override
+            public void visitLiteralExpression(@NotNull PsiLiteralExpression expression) {
+                if (expression.getValue() instanceof String value) {
+                    String name = value.replace('$', '.');
+                    for (String className : classNames) {
+                        String simpleName = StringUtil.getShortName(className);
+                        if (name.contains(className) || name.equals(simpleName) || name.startsWith(simpleName + "#")) {
+                            found();
+                            return;
+                        }
                     }
                 }
-                return true; // Continue searching
-            };
-            searchHelper.processElementsWithWord(processor, searchScope, methodName, UsageSearchContext.IN_STRINGS, true);
-        }
-        return testMethodsUsingPrivateMethods;
+            }
+
+            private void check(PsiJavaCodeReferenceElement reference) {
+                if (reference.resolve() instanceof PsiClass psiClass && classNames.contains(psiClass.getQualifiedName())) {
+                    found();
+                }
+            }
+
+            private void found() {
+                found[0] = true;
+                stopWalking();
+            }
+        });
+        return found[0];
     }
 }
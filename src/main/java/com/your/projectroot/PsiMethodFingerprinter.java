@@ -0,0 +1,205 @@
+package com.your.projectroot;
+
+import com.intellij.openapi.editor.Document;
+import com.intellij.psi.*;
+import com.intellij.psi.util.PsiTreeUtil;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Fingerprints the methods of a file from its PSI tree, so the working copy does not have to be re-read
+ * and re-parsed with JavaParser. Signatures and body hashes are computed exactly like for the JavaParser side,
+ * so both sides can be compared. Must be called under a read action.
+ */
+public class PsiMethodFingerprinter extends JavaRecursiveElementVisitor {
+
+    private final Document document;
+    private final String className;
+    private final ChangedLineRanges.LineFilter lineFilter;
+    private final Map<String, MethodFingerprints.Fingerprint> fingerprints = new HashMap<>();
+    private boolean unsupported;
+
+    private PsiMethodFingerprinter(Document document, String className, ChangedLineRanges.LineFilter lineFilter) {
+        this.document = document;
+        this.className = className;
+        this.lineFilter = lineFilter;
+    }
+
+    /**
+     * Fingerprints the methods of a file whose declaration overlaps the given lines.
+     *
+     * @param file       The PSI of the file, committed to the document.
+     * @param document   The document of the file.
+     * @param className  The name of the class declared by the file.
+     * @param lineFilter The filter selecting the lines of the methods to fingerprint.
+     * @return A map of method signatures to fingerprints, or null if the file contains syntax that cannot be
+     * fingerprinted exactly like JavaParser does.
+     */
+    public static Map<String, MethodFingerprints.Fingerprint> fingerprint(PsiJavaFile file, Document document, String className,
+                                                                          ChangedLineRanges.LineFilter lineFilter) {
+        if (PsiTreeUtil.hasErrorElements(file)) {
+            return null;
+        }
+        PsiMethodFingerprinter fingerprinter = new PsiMethodFingerprinter(document, className, lineFilter);
+        file.accept(fingerprinter);
+        return fingerprinter.unsupported ? null : fingerprinter.fingerprints;
+    }
+
+    @Override
+    public void visitElement(PsiElement element) {
+        if (!unsupported) {
+            super.visitElement(element);
+        }
+    }
+
+    /**
+     * Visits the nested classes first and then fingerprints the methods of the class,
+     * in the same order as the JavaParser visitor.
+     *
+     * @param aClass The class being visited.
+     */
+    @Override
+    public void visitClass(PsiClass aClass) {
+        super.visitClass(aClass);
+        if (unsupported || !isClassOrInterface(aClass)) {
+            return;
+        }
+        for (PsiMethod method : PsiTreeUtil.getChildrenOfTypeAsList(aClass, PsiMethod.class)) {
+            if (!method.isConstructor()) {
+                fingerprintMethod(method);
+            }
+        }
+    }
+
+    /**
+     * Checks if a class corresponds to a JavaParser ClassOrInterfaceDeclaration.
+     *
+     * @param aClass The class to be checked.
+     * @return True if the class is a named class or interface, false for enums, records, annotations,
+     * anonymous classes and type parameters.
+     */
+    private static boolean isClassOrInterface(PsiClass aClass) {
+        return !(aClass instanceof PsiAnonymousClass) && !(aClass instanceof PsiTypeParameter)
+                && !aClass.isEnum() && !aClass.isRecord() && !aClass.isAnnotationType();
+    }
+
+    /**
+     * Adds the fingerprint of a method if its declaration overlaps the selected lines.
+     *
+     * @param method The method to be fingerprinted.
+     */
+    private void fingerprintMethod(PsiMethod method) {
+        int beginLine = document.getLineNumber(method.getModifierList().getTextRange().getStartOffset()) + 1;
+        int endLine = document.getLineNumber(Math.max(0, method.getTextRange().getEndOffset() - 1)) + 1;
+        if (!lineFilter.overlaps(beginLine, endLine)) {
+            return;
+        }
+
+        List<String> parameterTypes = new ArrayList<>();
+        for (PsiParameter parameter : method.getParameterList().getParameters()) {
+            String parameterType = renderParameterType(parameter);
+            if (parameterType == null) {
+                unsupported = true;
+                return;
+            }
+            parameterTypes.add(parameterType);
+        }
+        String methodSignature = MethodSignatures.getSignOfMethodDeclaration(method.getName(), parameterTypes, className);
+        long bodyHash = hashBody(method.getBody());
+        if (!unsupported) {
+            fingerprints.put(methodSignature, new MethodFingerprints.Fingerprint(bodyHash, beginLine, endLine));
+        }
+    }
+
+    /**
+     * Renders a parameter type the way JavaParser's {@code CallableDeclaration.Signature} does:
+     * annotations and the type arguments of the type are dropped, and varargs are rendered as an array.
+     *
+     * @param parameter The parameter.
+     * @return The rendered type, or null if it cannot be rendered exactly.
+     */
+    private static String renderParameterType(PsiParameter parameter) {
+        PsiTypeElement typeElement = parameter.getTypeElement();
+        if (typeElement == null || PsiTreeUtil.findChildOfType(typeElement, PsiAnnotation.class) != null) {
+            return null;
+        }
+        PsiType type = parameter.getType();
+        int dimensions = type.getArrayDimensions();
+        PsiType componentType = type.getDeepComponentType();
+        if (componentType instanceof PsiPrimitiveType primitiveType) {
+            return primitiveType.getName() + "[]".repeat(dimensions);
+        }
+
+        PsiJavaCodeReferenceElement reference = typeElement.getInnermostComponentReferenceElement();
+        if (reference == null || (dimensions > 0 && hasTypeArguments(reference))) {
+            // Type arguments of array component types are kept by JavaParser
+            return null;
+        }
+        StringBuilder rendered = new StringBuilder(reference.getReferenceName());
+        PsiElement qualifier = reference.getQualifier();
+        while (qualifier instanceof PsiJavaCodeReferenceElement qualifierReference) {
+            if (hasTypeArguments(qualifierReference)) {
+                // Type arguments of an outer type are kept by JavaParser
+                return null;
+            }
+            rendered.insert(0, qualifierReference.getReferenceName() + ".");
+            qualifier = qualifierReference.getQualifier();
+        }
+        return qualifier == null ? rendered + "[]".repeat(dimensions) : null;
+    }
+
+    /**
+     * Checks if a reference has explicit type arguments.
+     *
+     * @param reference The reference to be checked.
+     * @return True if the reference has type arguments, false otherwise.
+     */
+    private static boolean hasTypeArguments(PsiJavaCodeReferenceElement reference) {
+        PsiReferenceParameterList parameterList = reference.getParameterList();
+        return parameterList != null && parameterList.getTypeParameterElements().length > 0;
+    }
+
+    /**
+     * Computes the normalized hash of a method body from its PSI leaves with the {@link MethodBodyHasher}.
+     *
+     * @param body The body of the method, or null if the method has no body.
+     * @return The hash of the body, or 0 if the method has no body.
+     */
+    private long hashBody(PsiCodeBlock body) {
+        if (body == null) {
+            return 0;
+        }
+        MethodBodyHasher hasher = new MethodBodyHasher();
+        appendTokens(body, hasher);
+        return hasher.getHash();
+    }
+
+    /**
+     * Appends the leaves of an element to the hasher. Whitespace and comments only count as separators.
+     *
+     * @param element The element whose leaves are appended.
+     * @param hasher  The hasher.
+     */
+    private void appendTokens(PsiElement element, MethodBodyHasher hasher) {
+        if (element instanceof PsiWhiteSpace || element instanceof PsiComment) {
+            hasher.separator();
+            return;
+        }
+        PsiElement child = element.getFirstChild();
+        if (child == null) {
+            String text = element.getText();
+            if (text.contains("\\u")) {
+                // Unicode escapes may be translated by JavaParser
+                unsupported = true;
+            }
+            hasher.append(text);
+            return;
+        }
+        for (; child != null; child = child.getNextSibling()) {
+            appendTokens(child, hasher);
+        }
+    }
+}
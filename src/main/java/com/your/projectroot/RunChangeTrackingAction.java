@@ -3,6 +3,9 @@ package com.your.projectroot;
 import com.intellij.notification.*;
 import com.intellij.openapi.actionSystem.AnAction;
 import com.intellij.openapi.actionSystem.AnActionEvent;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.progress.Task;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.ui.Messages;
 import org.jetbrains.annotations.NotNull;
@@ -10,7 +13,7 @@ import org.jetbrains.annotations.NotNull;
 /**
  * This class represents an action that tracks code changes and runs tests based on user-specified depth levels.
  * When the action is performed, it prompts the user to input the depth level for method usage search,
- * then initiates the change tracking process and displays a notification.
+ * then runs the change tracking process in a cancellable background task and displays a notification.
  */
 public class RunChangeTrackingAction extends AnAction {
 
@@ -57,28 +60,52 @@ public class RunChangeTrackingAction extends AnAction {
     }
 
     /**
-     * Tracks changes and runs tests, then displays a notification.
+     * Tracks changes and runs tests in a background task, then displays a notification.
+     * In watch mode, the affected tests precomputed by the {@link ChangeTrackingWatcher} are run when they are up to date.
      *
      * @param project The IntelliJ project.
      * @param depth   The depth level for method usage search.
      */
     private void trackChangesAndNotify(Project project, int depth) {
         final ChangeTrackingService changeTrackingService = project.getService(ChangeTrackingService.class);
-        changeTrackingService.trackChangesAndRunTests(depth);
-        displayNotification(project);
+        final ChangeTrackingSettings settings = project.getService(ChangeTrackingSettings.class);
+        final ChangeTrackingWatcher watcher = project.getService(ChangeTrackingWatcher.class);
+        ProgressManager.getInstance().run(new Task.Backgroundable(project, "Tracking changes", true) {
+            private int testCount;
+
+            @Override
+            public void run(@NotNull ProgressIndicator indicator) {
+                // In watch mode the affected tests are usually computed already
+                ChangeTrackingService.AffectedTests affectedTests = settings.isWatchMode() ? watcher.getAffectedTests(depth) : null;
+                if (affectedTests != null) {
+                    testCount = changeTrackingService.runAffectedTests(affectedTests, indicator);
+                } else {
+                    testCount = changeTrackingService.trackChangesAndRunTests(depth, indicator);
+                }
+                if (settings.isWatchMode()) {
+                    watcher.start(settings.getWatchDepth());
+                }
+            }
+
+            @Override
+            public void onSuccess() {
+                displayNotification(project, testCount);
+            }
+        });
     }
 
     /**
      * Displays a notification.
      *
-     * @param project The IntelliJ project.
+     * @param project   The IntelliJ project.
+     * @param testCount The number of tests that were started.
      */
-    private void displayNotification(Project project) {
+    private void displayNotification(Project project, int testCount) {
         final NotificationGroup notificationGroup = NotificationGroupManager.getInstance().getNotificationGroup("CustomNotifications");
         if (notificationGroup != null) {
             final Notification notification = notificationGroup.createNotification(
                     "Change tracking",
-                    "Tracking changes and finding method usages",
+                    testCount == 0 ? "No tests are affected by the changes" : "Running " + testCount + " affected tests",
                     NotificationType.INFORMATION
             );
             Notifications.Bus.notify(notification, project);
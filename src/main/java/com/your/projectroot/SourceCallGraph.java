@@ -0,0 +1,340 @@
+package com.your.projectroot;
+
+import com.github.javaparser.JavaParser;
+import com.github.javaparser.ParseResult;
+import com.github.javaparser.ParserConfiguration;
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.ImportDeclaration;
+import com.github.javaparser.ast.Node;
+import com.github.javaparser.ast.body.ClassOrInterfaceDeclaration;
+import com.github.javaparser.ast.body.MethodDeclaration;
+import com.github.javaparser.ast.expr.AnnotationExpr;
+import com.github.javaparser.ast.expr.MethodCallExpr;
+import com.github.javaparser.ast.expr.MethodReferenceExpr;
+import com.github.javaparser.resolution.declarations.ResolvedMethodDeclaration;
+import com.github.javaparser.symbolsolver.JavaSymbolSolver;
+import com.github.javaparser.symbolsolver.resolution.typesolvers.CombinedTypeSolver;
+import com.github.javaparser.symbolsolver.resolution.typesolvers.JavaParserTypeSolver;
+import com.github.javaparser.symbolsolver.resolution.typesolvers.ReflectionTypeSolver;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.stream.Stream;
+
+/**
+ * Reverse call graph of a source tree, built with JavaParser and its symbol solver, for use outside the IDE.
+ * Uses the same "className.methodName(parameterTypes)" signatures as the plugin, where the class name
+ * is the package followed by the name of the file declaring the method.
+ * Calls that cannot be resolved, e.g. into library types, and calls of abstract methods are linked
+ * to every method with the same name and number of parameters, so that no caller is missed.
+ * Methods that are no longer declared, e.g. those of a deleted file, are called by the unresolved calls with their name.
+ */
+public final class SourceCallGraph {
+
+    private static final String JUNIT_TEST_ANNOTATION = "org.junit.jupiter.api.Test";
+
+    private final Map<String, Set<String>> CALLERS = new HashMap<>();
+    private final Map<String, Set<String>> UNRESOLVED_CALLERS_BY_NAME = new HashMap<>();
+    private final Map<String, List<DeclaredMethod>> METHODS_BY_NAME = new HashMap<>();
+    private final Set<String> TEST_METHODS = new HashSet<>();
+    private final Map<Path, String> CLASS_NAMES = new HashMap<>();
+    private int unresolvedCalls;
+
+    /**
+     * A method declared in the source roots, indexed by its name.
+     *
+     * @param signature The signature of the method.
+     * @param arity     The number of parameters.
+     * @param varargs   Whether the last parameter is a varargs parameter.
+     */
+    private record DeclaredMethod(String signature, int arity, boolean varargs) {
+        /**
+         * Checks if a call with the given number of arguments may call this method.
+         *
+         * @param argumentCount The number of arguments, or -1 if unknown.
+         * @return True if the method accepts the number of arguments.
+         */
+        private boolean accepts(int argumentCount) {
+            return argumentCount < 0 || argumentCount == arity || (varargs && argumentCount >= arity - 1);
+        }
+    }
+
+    private SourceCallGraph() {
+    }
+
+    /**
+     * Builds the call graph of all Java files in the given source roots.
+     * The declarations are collected in a first pass, so that unresolved calls can be linked by name in the second.
+     *
+     * @param sourceRoots The source roots, e.g. "src/main/java" and "src/test/java".
+     * @return The call graph.
+     * @throws IOException If a source root cannot be listed.
+     */
+    public static SourceCallGraph build(List<Path> sourceRoots) throws IOException {
+        CombinedTypeSolver typeSolver = new CombinedTypeSolver(new ReflectionTypeSolver());
+        for (Path sourceRoot : sourceRoots) {
+            typeSolver.add(new JavaParserTypeSolver(sourceRoot));
+        }
+        ParserConfiguration configuration = new ParserConfiguration()
+                .setLanguageLevel(ParserConfiguration.LanguageLevel.JAVA_17)
+                .setSymbolResolver(new JavaSymbolSolver(typeSolver));
+        JavaParser parser = new JavaParser(configuration);
+
+        List<CompilationUnit> compilationUnits = new ArrayList<>();
+        for (Path sourceRoot : sourceRoots) {
+            List<Path> files;
+            try (Stream<Path> paths = Files.walk(sourceRoot)) {
+                files = paths.filter(path -> path.toString().endsWith(".java")).toList();
+            }
+            for (Path file : files) {
+                ParseResult<CompilationUnit> result = parser.parse(file);
+                result.getResult().ifPresentOrElse(compilationUnits::add,
+                        () -> System.err.println("Cannot parse " + file));
+            }
+        }
+
+        SourceCallGraph callGraph = new SourceCallGraph();
+        for (CompilationUnit compilationUnit : compilationUnits) {
+            callGraph.collectDeclarations(compilationUnit);
+        }
+        for (CompilationUnit compilationUnit : compilationUnits) {
+            callGraph.collectCalls(compilationUnit);
+        }
+        if (callGraph.unresolvedCalls > 0) {
+            System.err.println(callGraph.unresolvedCalls + " calls could not be resolved and were linked by name");
+        }
+        return callGraph;
+    }
+
+    /**
+     * Returns the signatures of the methods calling the given method.
+     * If the method is not declared in the source roots, e.g. because its file was deleted, the calls to it
+     * cannot be resolved, so the callers are the methods making an unresolved call with its name.
+     *
+     * @param calleeSignature The signature of the called method.
+     * @return The signatures of its callers, or an empty set if none are known.
+     */
+    public Set<String> getCallers(String calleeSignature) {
+        Set<String> callers = CALLERS.getOrDefault(calleeSignature, Collections.emptySet());
+        String methodName = MethodSignatures.extractMethodName(calleeSignature);
+        if (isDeclared(calleeSignature, methodName)) {
+            return callers;
+        }
+        Set<String> unresolvedCallers = UNRESOLVED_CALLERS_BY_NAME.getOrDefault(methodName, Collections.emptySet());
+        if (callers.isEmpty()) {
+            return unresolvedCallers;
+        }
+        Set<String> allCallers = new HashSet<>(callers);
+        allCallers.addAll(unresolvedCallers);
+        return allCallers;
+    }
+
+    /**
+     * Checks if a method is a JUnit 5 test method.
+     *
+     * @param signature The signature of the method.
+     * @return True if the method is annotated with @Test, false otherwise.
+     */
+    public boolean isTestMethod(String signature) {
+        return TEST_METHODS.contains(signature);
+    }
+
+    /**
+     * Returns the class name the methods of a source file are reported under.
+     *
+     * @param file The path of the source file.
+     * @return The qualified class name, or null if the file is not part of the source roots or cannot be parsed.
+     */
+    public String getClassName(Path file) {
+        return CLASS_NAMES.get(file.toAbsolutePath().normalize());
+    }
+
+    /**
+     * Checks if a method is declared in the source roots.
+     *
+     * @param signature  The signature of the method.
+     * @param methodName The name of the method.
+     * @return True if a method with the signature is declared, false otherwise.
+     */
+    private boolean isDeclared(String signature, String methodName) {
+        for (DeclaredMethod method : METHODS_BY_NAME.getOrDefault(methodName, Collections.emptyList())) {
+            if (method.signature().equals(signature)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Records the methods and test methods declared by a compilation unit.
+     *
+     * @param compilationUnit The compilation unit.
+     */
+    private void collectDeclarations(CompilationUnit compilationUnit) {
+        String className = getQualifiedClassName(compilationUnit);
+        compilationUnit.getStorage().ifPresent(storage -> CLASS_NAMES.put(storage.getPath().toAbsolutePath().normalize(), className));
+        for (MethodDeclaration method : compilationUnit.findAll(MethodDeclaration.class)) {
+            if (!(method.getParentNode().orElse(null) instanceof ClassOrInterfaceDeclaration)) {
+                continue;
+            }
+            String signature = MethodSignatures.getSignOfMethodDeclaration(method.getSignature(), className);
+            boolean varargs = method.getParameters().isNonEmpty() && method.getParameters().getLast().orElseThrow().isVarArgs();
+            METHODS_BY_NAME.computeIfAbsent(method.getNameAsString(), key -> new ArrayList<>())
+                    .add(new DeclaredMethod(signature, method.getParameters().size(), varargs));
+            if (isTestMethod(method, compilationUnit)) {
+                TEST_METHODS.add(signature);
+            }
+        }
+    }
+
+    /**
+     * Records the calls and method references made by the methods of a compilation unit.
+     *
+     * @param compilationUnit The compilation unit.
+     */
+    private void collectCalls(CompilationUnit compilationUnit) {
+        String className = getQualifiedClassName(compilationUnit);
+        for (MethodCallExpr call : compilationUnit.findAll(MethodCallExpr.class)) {
+            String caller = getEnclosingMethodSignature(call, className);
+            if (caller != null) {
+                addCall(caller, resolve(call), call.getNameAsString(), call.getArguments().size());
+            }
+        }
+        for (MethodReferenceExpr reference : compilationUnit.findAll(MethodReferenceExpr.class)) {
+            String caller = getEnclosingMethodSignature(reference, className);
+            if (caller != null) {
+                addCall(caller, resolve(reference), reference.getIdentifier(), -1);
+            }
+        }
+    }
+
+    /**
+     * Links a caller to the called method. Unresolved and abstract methods are linked to every method
+     * with the same name accepting the number of arguments.
+     *
+     * @param caller     The signature of the calling method.
+     * @param callee     The resolved called method, or null if it cannot be resolved.
+     * @param methodName The name of the called method.
+     * @param arity      The number of arguments, or -1 if unknown.
+     */
+    private void addCall(String caller, ResolvedMethodDeclaration callee, String methodName, int arity) {
+        String calleeSignature = callee == null ? null : getSignature(callee);
+        if (calleeSignature != null) {
+            CALLERS.computeIfAbsent(calleeSignature, key -> new HashSet<>()).add(caller);
+            if (!callee.isAbstract()) {
+                return;
+            }
+        } else {
+            unresolvedCalls++;
+            UNRESOLVED_CALLERS_BY_NAME.computeIfAbsent(methodName, key -> new HashSet<>()).add(caller);
+        }
+        for (DeclaredMethod candidate : METHODS_BY_NAME.getOrDefault(methodName, Collections.emptyList())) {
+            if (candidate.accepts(arity)) {
+                CALLERS.computeIfAbsent(candidate.signature(), key -> new HashSet<>()).add(caller);
+            }
+        }
+    }
+
+    /**
+     * Resolves a method call.
+     *
+     * @param call The method call.
+     * @return The called method, or null if it cannot be resolved.
+     */
+    private static ResolvedMethodDeclaration resolve(MethodCallExpr call) {
+        try {
+            return call.resolve();
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Resolves a method reference.
+     *
+     * @param reference The method reference.
+     * @return The referenced method, or null if it cannot be resolved.
+     */
+    private static ResolvedMethodDeclaration resolve(MethodReferenceExpr reference) {
+        try {
+            return reference.resolve();
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Returns the signature of a resolved method declared in the source roots.
+     *
+     * @param method The resolved method.
+     * @return The signature, or null if the method is not declared in source, e.g. in a library.
+     */
+    private static String getSignature(ResolvedMethodDeclaration method) {
+        Optional<MethodDeclaration> declaration = method.toAst(MethodDeclaration.class);
+        if (declaration.isEmpty()) {
+            return null;
+        }
+        return declaration.get().findCompilationUnit()
+                .map(compilationUnit -> MethodSignatures.getSignOfMethodDeclaration(
+                        declaration.get().getSignature(), getQualifiedClassName(compilationUnit)))
+                .orElse(null);
+    }
+
+    /**
+     * Returns the signature of the method of a class or interface enclosing a node.
+     *
+     * @param node      The node.
+     * @param className The class name of the file containing the node.
+     * @return The signature, or null if the node is not inside such a method, e.g. in a field initializer.
+     */
+    private static String getEnclosingMethodSignature(Node node, String className) {
+        Optional<MethodDeclaration> method = node.findAncestor(MethodDeclaration.class);
+        while (method.isPresent() && !(method.get().getParentNode().orElse(null) instanceof ClassOrInterfaceDeclaration)) {
+            method = method.get().findAncestor(MethodDeclaration.class);
+        }
+        return method.map(declaration -> MethodSignatures.getSignOfMethodDeclaration(declaration.getSignature(), className))
+                .orElse(null);
+    }
+
+    /**
+     * Returns the package of a compilation unit followed by the name of its file, like the plugin does.
+     *
+     * @param compilationUnit The compilation unit.
+     * @return The qualified class name.
+     */
+    private static String getQualifiedClassName(CompilationUnit compilationUnit) {
+        String className = compilationUnit.getStorage()
+                .map(storage -> MethodSignatures.getClassNameFromFilePath(storage.getFileName()))
+                .orElseGet(() -> compilationUnit.getPrimaryTypeName().orElse(""));
+        return compilationUnit.getPackageDeclaration()
+                .map(packageDeclaration -> packageDeclaration.getNameAsString() + "." + className)
+                .orElse(className);
+    }
+
+    /**
+     * Checks if a method is annotated with the JUnit 5 @Test annotation.
+     *
+     * @param method          The method.
+     * @param compilationUnit The compilation unit declaring the method.
+     * @return True if the method is a test method, false otherwise.
+     */
+    private static boolean isTestMethod(MethodDeclaration method, CompilationUnit compilationUnit) {
+        for (AnnotationExpr annotation : method.getAnnotations()) {
+            String name = annotation.getNameAsString();
+            if (name.equals(JUNIT_TEST_ANNOTATION)) {
+                return true;
+            }
+            if (name.equals("Test")) {
+                for (ImportDeclaration importDeclaration : compilationUnit.getImports()) {
+                    String imported = importDeclaration.getNameAsString();
+                    if (importDeclaration.isAsterisk() ? imported.equals("org.junit.jupiter.api") : imported.equals(JUNIT_TEST_ANNOTATION)) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,197 @@
+package com.your.projectroot;
+
+import com.github.javaparser.JavaParser;
+import com.github.javaparser.Range;
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.body.ClassOrInterfaceDeclaration;
+import com.github.javaparser.ast.body.MethodDeclaration;
+import com.github.javaparser.ast.visitor.VoidVisitorAdapter;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Fingerprints the methods of a Java source text with the {@link MethodBoundaryScanner} or JavaParser,
+ * and compares the fingerprints of two versions of a file.
+ * It does not depend on the IntelliJ platform, so it is shared by the plugin and the {@link ChangeTrackingCli}.
+ */
+public final class SourceMethodFingerprinter {
+
+    private SourceMethodFingerprinter() {
+    }
+
+    /**
+     * Fingerprints the methods whose declaration overlaps the given lines with the {@link MethodBoundaryScanner}.
+     *
+     * @param className  The name of the class declared by the file.
+     * @param content    The content of the file.
+     * @param lineFilter The filter selecting the lines of the methods to fingerprint.
+     * @return The fingerprints of the selected methods, or null if the scanner cannot handle the content.
+     */
+    public static MethodFingerprints scan(String className, String content, ChangedLineRanges.LineFilter lineFilter) {
+        List<MethodBoundaryScanner.ScannedMethod> methods = MethodBoundaryScanner.scan(content, className);
+        if (methods == null) {
+            return null;
+        }
+        int[] lineStarts = computeLineStarts(content);
+        Map<String, MethodFingerprints.Fingerprint> methodsMap = new HashMap<>();
+        for (MethodBoundaryScanner.ScannedMethod method : methods) {
+            int beginLine = getLineNumber(lineStarts, method.declarationStart());
+            int endLine = getLineNumber(lineStarts, Math.max(method.declarationStart(), method.bodyEnd() - 1));
+            if (lineFilter.overlaps(beginLine, endLine)) {
+                methodsMap.put(method.signature(), new MethodFingerprints.Fingerprint(method.bodyHash(), beginLine, endLine));
+            }
+        }
+        return MethodFingerprints.of(methodsMap);
+    }
+
+    /**
+     * Fingerprints the methods whose declaration overlaps the given lines with JavaParser.
+     *
+     * @param className  The name of the class declared by the file.
+     * @param content    The content of the file.
+     * @param lineFilter The filter selecting the lines of the methods to fingerprint.
+     * @return The fingerprints of the selected methods, or null if the content cannot be parsed.
+     */
+    public static MethodFingerprints parse(String className, String content, ChangedLineRanges.LineFilter lineFilter) {
+        CompilationUnit compilationUnit = parseContent(new JavaParser(), content);
+        if (compilationUnit == null) {
+            return null;
+        }
+        return MethodFingerprints.of(extractMethodsToMap(compilationUnit, className, lineFilter));
+    }
+
+    /**
+     * Compares the methods in the old and new versions of a file by merging their sorted fingerprint tables.
+     * Methods that were added, removed or whose body hash differs are added to the changes.
+     *
+     * @param oldFingerprints The fingerprints of the old version.
+     * @param newFingerprints The fingerprints of the new version.
+     * @param changes         The set receiving the signatures of the changed methods.
+     */
+    public static void collectChangedMethods(MethodFingerprints oldFingerprints, MethodFingerprints newFingerprints,
+                                             Set<String> changes) {
+        int oldIndex = 0;
+        int newIndex = 0;
+        while (oldIndex < oldFingerprints.size() || newIndex < newFingerprints.size()) {
+            int order;
+            if (oldIndex == oldFingerprints.size()) {
+                order = 1;
+            } else if (newIndex == newFingerprints.size()) {
+                order = -1;
+            } else {
+                order = oldFingerprints.getSignature(oldIndex).compareTo(newFingerprints.getSignature(newIndex));
+            }
+
+            if (order < 0) {
+                // Removed method
+                changes.add(oldFingerprints.getSignature(oldIndex++));
+            } else if (order > 0) {
+                // Added method
+                changes.add(newFingerprints.getSignature(newIndex++));
+            } else {
+                if (oldFingerprints.getBodyHash(oldIndex) != newFingerprints.getBodyHash(newIndex)) {
+                    changes.add(newFingerprints.getSignature(newIndex));
+                }
+                oldIndex++;
+                newIndex++;
+            }
+        }
+    }
+
+    /**
+     * Computes the offsets at which the lines of the content start.
+     *
+     * @param content The content of the file.
+     * @return The sorted start offsets of all lines.
+     */
+    private static int[] computeLineStarts(String content) {
+        int lineCount = 1;
+        for (int i = 0; i < content.length(); i++) {
+            if (content.charAt(i) == '\n') {
+                lineCount++;
+            }
+        }
+        int[] lineStarts = new int[lineCount];
+        int line = 1;
+        for (int i = 0; i < content.length(); i++) {
+            if (content.charAt(i) == '\n') {
+                lineStarts[line++] = i + 1;
+            }
+        }
+        return lineStarts;
+    }
+
+    /**
+     * Returns the 1-based line number of an offset.
+     *
+     * @param lineStarts The sorted start offsets of all lines.
+     * @param offset     The offset in the content.
+     * @return The number of the line containing the offset.
+     */
+    private static int getLineNumber(int[] lineStarts, int offset) {
+        int index = Arrays.binarySearch(lineStarts, offset);
+        return index >= 0 ? index + 1 : -index - 1;
+    }
+
+    /**
+     * Parses the content of a file into a CompilationUnit. The content is parsed as a string,
+     * so that token positions and hashes do not depend on the platform charset.
+     *
+     * @param parser The JavaParser instance.
+     * @param content The content to be parsed.
+     * @return The parsed CompilationUnit.
+     */
+    private static CompilationUnit parseContent(JavaParser parser, String content) {
+        return parser.parse(content).getResult().orElse(null);
+    }
+
+    /**
+     * Extracts methods from the compilation unit and maps their signatures to their fingerprints.
+     * The hashes are computed while visiting the compilation unit, so it can be discarded right afterwards.
+     * Only the bodies of methods overlapping the selected lines are hashed.
+     *
+     * @param compilationUnit The compilation unit to extract methods from.
+     * @param className       The name of the class containing the methods.
+     * @param lineFilter      The filter selecting the lines of the methods to keep.
+     * @return A map of method signatures to fingerprints.
+     */
+    private static Map<String, MethodFingerprints.Fingerprint> extractMethodsToMap(CompilationUnit compilationUnit, String className,
+                                                                                   ChangedLineRanges.LineFilter lineFilter) {
+        Map<String, MethodFingerprints.Fingerprint> methodsMap = new HashMap<>();
+        compilationUnit.accept(new MethodVisitor(className, lineFilter), methodsMap);
+        return methodsMap;
+    }
+
+    /**
+     * Visitor class for fingerprinting the method declarations of a compilation unit.
+     */
+    private static class MethodVisitor extends VoidVisitorAdapter<Map<String, MethodFingerprints.Fingerprint>> {
+        private final String className;
+        private final ChangedLineRanges.LineFilter lineFilter;
+
+        private MethodVisitor(String className, ChangedLineRanges.LineFilter lineFilter) {
+            this.className = className;
+            this.lineFilter = lineFilter;
+        }
+
+        @Override
+        public void visit(ClassOrInterfaceDeclaration classOrInterfaceDeclaration,
+                          Map<String, MethodFingerprints.Fingerprint> collector) {
+            super.visit(classOrInterfaceDeclaration, collector);
+            classOrInterfaceDeclaration.getMembers().forEach(member -> {
+                if (member instanceof MethodDeclaration method) {
+                    Range range = method.getRange().orElse(Range.range(1, 1, Integer.MAX_VALUE, 1));
+                    if (lineFilter.overlaps(range.begin.line, range.end.line)) {
+                        String methodSignature = MethodSignatures.getSignOfMethodDeclaration(method.getSignature(), className);
+                        collector.put(methodSignature, new MethodFingerprints.Fingerprint(
+                                MethodBodyHasher.hashBody(method), range.begin.line, range.end.line));
+                    }
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.your.projectroot;
+
+import com.intellij.execution.testframework.sm.runner.SMTRunnerEventsAdapter;
+import com.intellij.execution.testframework.sm.runner.SMTestProxy;
+import com.intellij.openapi.project.Project;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Records the duration and outcome of every finished JUnit test of the project in the {@link TestHistoryStore},
+ * whether it was run by the plugin or by the user.
+ */
+public class TestHistoryListener extends SMTRunnerEventsAdapter {
+
+    private static final String JAVA_TEST_PROTOCOL = "java:test://";
+
+    private final Project project;
+
+    /**
+     * Constructs a TestHistoryListener for the specified project.
+     *
+     * @param project The IntelliJ project instance.
+     */
+    public TestHistoryListener(Project project) {
+        this.project = project;
+    }
+
+    @Override
+    public void onTestFinished(@NotNull SMTestProxy test) {
+        Long duration = test.getDuration();
+        if (duration == null || test.isIgnored() || !test.isLeaf()) {
+            return;
+        }
+        String testName = getTestName(test.getLocationUrl());
+        if (testName != null) {
+            project.getService(TestHistoryStore.class).record(testName, duration, test.isDefect());
+        }
+    }
+
+    /**
+     * Converts the location of a JUnit test to the "className,methodName" pattern format.
+     * The invocations of parameterized tests are recorded under their method.
+     *
+     * @param locationUrl The location, e.g. "java:test://com.example.FooTest/testBar".
+     * @return The test name, or null if the location is not a JUnit test method.
+     */
+    static String getTestName(String locationUrl) {
+        if (locationUrl == null || !locationUrl.startsWith(JAVA_TEST_PROTOCOL)) {
+            return null;
+        }
+        String location = locationUrl.substring(JAVA_TEST_PROTOCOL.length());
+        int separator = location.lastIndexOf('/');
+        if (separator <= 0) {
+            return null;
+        }
+        String methodName = location.substring(separator + 1);
+        int parametersStart = methodName.indexOf('[');
+        if (parametersStart < 0) {
+            parametersStart = methodName.indexOf('(');
+        }
+        if (parametersStart >= 0) {
+            methodName = methodName.substring(0, parametersStart);
+        }
+        return methodName.isEmpty() ? null : location.substring(0, separator) + "," + methodName;
+    }
+}
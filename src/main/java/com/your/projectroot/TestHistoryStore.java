@@ -0,0 +1,233 @@
+package com.your.projectroot;
+
+import com.intellij.openapi.Disposable;
+import com.intellij.openapi.application.PathManager;
+import com.intellij.openapi.components.Service;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.project.Project;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * Per-test history of durations and failures, fed by the {@link TestHistoryListener} and persisted
+ * in the IDE system directory. Used to order the selected tests so that failures surface as early as possible:
+ * tests that failed in their last run come first, then the tests with the highest failure rate per expected second.
+ * JUnit decides the order of the tests within one run configuration, so {@link IntelliJTestRunner} applies this order
+ * by splitting the tests into forks that are launched one after the other.
+ * Tests are identified by "className,methodName", the pattern format of the JUnit configurations.
+ */
+@Service(Service.Level.PROJECT)
+public final class TestHistoryStore implements Disposable {
+
+    private static final Logger logger = Logger.getInstance(TestHistoryStore.class);
+    private static final int FORMAT_VERSION = 1;
+    private static final double SMOOTHING = 0.3;
+    private static final double UNKNOWN_FAILURE_RATE = 0.5;
+    private static final long UNKNOWN_DURATION_MILLIS = 1000;
+    private static final int MAX_ENTRIES = 50_000;
+
+    private final Path storageFile;
+    private final Map<String, TestRecord> RECORDS = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, TestRecord> eldest) {
+            return size() > MAX_ENTRIES;
+        }
+    };
+    private boolean loaded;
+
+    /**
+     * The history of one test.
+     *
+     * @param durationMillis The smoothed duration of the test.
+     * @param failureRate    The smoothed rate of failed runs, between 0 and 1.
+     * @param lastRunFailed  Whether the last run of the test failed.
+     */
+    private record TestRecord(double durationMillis, double failureRate, boolean lastRunFailed) {
+    }
+
+    /**
+     * Constructs a TestHistoryStore for the specified project.
+     *
+     * @param project The IntelliJ project instance.
+     */
+    public TestHistoryStore(Project project) {
+        this(Path.of(PathManager.getSystemPath(), "projectRoot", "testHistory", project.getLocationHash() + ".bin"));
+    }
+
+    /**
+     * Constructs a TestHistoryStore persisted to the specified file.
+     *
+     * @param storageFile The file the history is loaded from and saved to.
+     */
+    TestHistoryStore(Path storageFile) {
+        this.storageFile = storageFile;
+    }
+
+    /**
+     * Records the result of a test run. Durations and failure rates are smoothed exponentially,
+     * so recent runs weigh more than old ones.
+     *
+     * @param test           The test as "className,methodName".
+     * @param durationMillis The duration of the run.
+     * @param failed         Whether the run failed.
+     */
+    public synchronized void record(String test, long durationMillis, boolean failed) {
+        loadIfNeeded();
+        TestRecord previous = RECORDS.get(test);
+        double failure = failed ? 1 : 0;
+        TestRecord updated = previous == null
+                ? new TestRecord(durationMillis, failure, failed)
+                : new TestRecord(smooth(previous.durationMillis(), durationMillis), smooth(previous.failureRate(), failure), failed);
+        RECORDS.put(test, updated);
+    }
+
+    /**
+     * Checks if the last recorded run of a test failed.
+     *
+     * @param test The test as "className,methodName".
+     * @return True if the test failed in its last run, false if it passed or has no history.
+     */
+    public synchronized boolean hasFailedLastRun(String test) {
+        loadIfNeeded();
+        TestRecord record = RECORDS.get(test);
+        return record != null && record.lastRunFailed();
+    }
+
+    /**
+     * Orders tests so that failures are found as early as possible and cuts the tail exceeding a time budget.
+     * Tests without history are expected to fail often and to take the median duration of the known tests.
+     *
+     * @param tests        The tests as "className,methodName".
+     * @param budgetMillis The time budget of the run, or 0 for no budget. The first test is always kept.
+     * @return The tests to run, in the order they should run.
+     */
+    public synchronized List<String> orderTests(Collection<String> tests, long budgetMillis) {
+        loadIfNeeded();
+        long defaultDuration = getMedianDuration(tests);
+        Map<String, Double> priorities = new HashMap<>();
+        Map<String, Double> durations = new HashMap<>();
+        for (String test : tests) {
+            TestRecord record = RECORDS.get(test);
+            double duration = Math.max(1, record == null ? defaultDuration : record.durationMillis());
+            double failureRate = record == null ? UNKNOWN_FAILURE_RATE : record.failureRate();
+            durations.put(test, duration);
+            // Tests that just failed are the most likely to fail again
+            priorities.put(test, (record != null && record.lastRunFailed() ? 1 : 0) + failureRate / duration);
+        }
+
+        List<String> ordered = new ArrayList<>(tests);
+        ordered.sort(Comparator.comparing((String test) -> priorities.get(test)).reversed());
+        if (budgetMillis <= 0) {
+            return ordered;
+        }
+        List<String> withinBudget = new ArrayList<>();
+        double expectedMillis = 0;
+        for (String test : ordered) {
+            expectedMillis += durations.get(test);
+            if (!withinBudget.isEmpty() && expectedMillis > budgetMillis) {
+                break;
+            }
+            withinBudget.add(test);
+        }
+        return withinBudget;
+    }
+
+    /**
+     * Saves the history to disk when the project is closed.
+     */
+    @Override
+    public synchronized void dispose() {
+        if (loaded) {
+            saveToDisk();
+        }
+    }
+
+    /**
+     * Returns the median smoothed duration of the given tests that have a history.
+     *
+     * @param tests The tests.
+     * @return The median duration, or a default if none of the tests has a history.
+     */
+    private long getMedianDuration(Collection<String> tests) {
+        List<Double> knownDurations = new ArrayList<>();
+        for (String test : tests) {
+            TestRecord record = RECORDS.get(test);
+            if (record != null) {
+                knownDurations.add(record.durationMillis());
+            }
+        }
+        if (knownDurations.isEmpty()) {
+            return UNKNOWN_DURATION_MILLIS;
+        }
+        Collections.sort(knownDurations);
+        return Math.round(knownDurations.get(knownDurations.size() / 2));
+    }
+
+    /**
+     * Moves a smoothed value towards a new observation.
+     *
+     * @param previous    The previous smoothed value.
+     * @param observation The new observation.
+     * @return The updated smoothed value.
+     */
+    private static double smooth(double previous, double observation) {
+        return previous + SMOOTHING * (observation - previous);
+    }
+
+    /**
+     * Loads the persisted history on first access.
+     */
+    private void loadIfNeeded() {
+        if (!loaded) {
+            loaded = true;
+            loadFromDisk();
+        }
+    }
+
+    /**
+     * Loads the persisted history, if any. Entries are stored from least to most recently used.
+     */
+    private void loadFromDisk() {
+        if (!Files.exists(storageFile)) {
+            return;
+        }
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(storageFile)))) {
+            if (input.readInt() != FORMAT_VERSION) {
+                logger.info("Ignoring test history stored with an older format");
+                return;
+            }
+            int entryCount = input.readInt();
+            for (int i = 0; i < entryCount; i++) {
+                String test = input.readUTF();
+                RECORDS.put(test, new TestRecord(input.readDouble(), input.readDouble(), input.readBoolean()));
+            }
+        } catch (IOException e) {
+            logger.info("Cannot load test history", e);
+            RECORDS.clear();
+        }
+    }
+
+    /**
+     * Persists the history to the IDE system directory.
+     */
+    private void saveToDisk() {
+        try {
+            Files.createDirectories(storageFile.getParent());
+            try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(storageFile)))) {
+                output.writeInt(FORMAT_VERSION);
+                output.writeInt(RECORDS.size());
+                for (Map.Entry<String, TestRecord> entry : RECORDS.entrySet()) {
+                    output.writeUTF(entry.getKey());
+                    output.writeDouble(entry.getValue().durationMillis());
+                    output.writeDouble(entry.getValue().failureRate());
+                    output.writeBoolean(entry.getValue().lastRunFailed());
+                }
+            }
+        } catch (IOException e) {
+            logger.info("Cannot save test history", e);
+        }
+    }
+}
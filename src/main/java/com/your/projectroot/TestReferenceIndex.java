@@ -0,0 +1,159 @@
+package com.your.projectroot;
+
+import com.intellij.ide.highlighter.JavaFileType;
+import com.intellij.openapi.util.text.StringUtil;
+import com.intellij.psi.*;
+import com.intellij.util.indexing.*;
+import com.intellij.util.io.DataExternalizer;
+import com.intellij.util.io.DataInputOutputUtil;
+import com.intellij.util.io.EnumeratorStringDescriptor;
+import com.intellij.util.io.KeyDescriptor;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * File-based index mapping the identifiers referenced by JUnit 5 test methods to the test methods referencing them.
+ * The keys are the names of referenced methods and fields, and string literals that are valid identifiers,
+ * which covers members accessed through reflection. The values are the offsets of the name identifiers
+ * of the referencing test methods in the file.
+ * Test methods are recognized from their annotation and the imports of the file, without resolving anything,
+ * since an index may only depend on the content of the indexed file.
+ */
+public class TestReferenceIndex extends FileBasedIndexExtension<String, List<Integer>> {
+
+    public static final ID<String, List<Integer>> NAME = ID.create("com.your.projectroot.TestReferenceIndex");
+
+    private static final String JUNIT_PACKAGE = "org.junit.jupiter.api";
+    private static final String JUNIT_TEST_ANNOTATION = JUNIT_PACKAGE + ".Test";
+
+    @Override
+    public @NotNull ID<String, List<Integer>> getName() {
+        return NAME;
+    }
+
+    @Override
+    public @NotNull DataIndexer<String, List<Integer>, FileContent> getIndexer() {
+        return inputData -> {
+            if (!(inputData.getPsiFile() instanceof PsiJavaFile javaFile)) {
+                return Collections.emptyMap();
+            }
+            Map<String, List<Integer>> referencingTests = new HashMap<>();
+            javaFile.accept(new JavaRecursiveElementWalkingVisitor() {
+                @Override
+                public void visitMethod(@NotNull PsiMethod method) {
+                    if (isTestMethod(method, javaFile)) {
+                        collectReferences(method, referencingTests);
+                    } else {
+                        super.visitMethod(method);
+                    }
+                }
+            });
+            return referencingTests;
+        };
+    }
+
+    @Override
+    public @NotNull KeyDescriptor<String> getKeyDescriptor() {
+        return EnumeratorStringDescriptor.INSTANCE;
+    }
+
+    @Override
+    public @NotNull DataExternalizer<List<Integer>> getValueExternalizer() {
+        return new DataExternalizer<>() {
+            @Override
+            public void save(@NotNull DataOutput out, List<Integer> offsets) throws IOException {
+                DataInputOutputUtil.writeINT(out, offsets.size());
+                for (int offset : offsets) {
+                    DataInputOutputUtil.writeINT(out, offset);
+                }
+            }
+
+            @Override
+            public List<Integer> read(@NotNull DataInput in) throws IOException {
+                int size = DataInputOutputUtil.readINT(in);
+                List<Integer> offsets = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                    offsets.add(DataInputOutputUtil.readINT(in));
+                }
+                return offsets;
+            }
+        };
+    }
+
+    @Override
+    public int getVersion() {
+        return 1;
+    }
+
+    @Override
+    public FileBasedIndex.@NotNull InputFilter getInputFilter() {
+        return new DefaultFileTypeSpecificInputFilter(JavaFileType.INSTANCE);
+    }
+
+    @Override
+    public boolean dependsOnFileContent() {
+        return true;
+    }
+
+    /**
+     * Adds the identifiers referenced by a test method to the index data.
+     *
+     * @param testMethod       The test method.
+     * @param referencingTests The index data, mapping identifiers to the offsets of the tests referencing them.
+     */
+    private static void collectReferences(PsiMethod testMethod, Map<String, List<Integer>> referencingTests) {
+        int testOffset = testMethod.getTextOffset();
+        testMethod.accept(new JavaRecursiveElementWalkingVisitor() {
+            @Override
+            public void visitReferenceExpression(@NotNull PsiReferenceExpression expression) {
+                super.visitReferenceExpression(expression);
+                addReference(expression.getReferenceName());
+            }
+
+            @Override
+            public void visitLiteralExpression(@NotNull PsiLiteralExpression expression) {
+                if (expression.getValue() instanceof String value && StringUtil.isJavaIdentifier(value)) {
+                    addReference(value);
+                }
+            }
+
+            private void addReference(String identifier) {
+                if (identifier == null) {
+                    return;
+                }
+                List<Integer> offsets = referencingTests.computeIfAbsent(identifier, key -> new ArrayList<>());
+                if (offsets.isEmpty() || offsets.get(offsets.size() - 1) != testOffset) {
+                    offsets.add(testOffset);
+                }
+            }
+        });
+    }
+
+    /**
+     * Checks if a method is annotated with the JUnit 5 @Test annotation, using only the imports of its file.
+     *
+     * @param method   The method.
+     * @param javaFile The file declaring the method.
+     * @return True if the method is a test method, false otherwise.
+     */
+    private static boolean isTestMethod(PsiMethod method, PsiJavaFile javaFile) {
+        for (PsiAnnotation annotation : method.getModifierList().getAnnotations()) {
+            PsiJavaCodeReferenceElement reference = annotation.getNameReferenceElement();
+            String name = reference == null ? null : reference.getText();
+            if (JUNIT_TEST_ANNOTATION.equals(name)) {
+                return true;
+            }
+            PsiImportList importList = javaFile.getImportList();
+            if ("Test".equals(name) && importList != null
+                    && (importList.findSingleClassImportStatement(JUNIT_TEST_ANNOTATION) != null
+                    || importList.findOnDemandImportStatement(JUNIT_PACKAGE) != null)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,255 @@
+package com.your.projectroot;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs {@link ChangeTrackingCli} on a throwaway git repository with a base branch and checks the selected tests
+ * for changes committed on top of it, uncommitted changes, and added, renamed and deleted files.
+ * Only needs JGit and JavaParser, like the CI task running the CLI.
+ */
+public class ChangeTrackingCliTest {
+
+    private static final String CALCULATOR = "src/main/java/com/example/Calculator.java";
+    private static final String CALCULATOR_TEST = "src/test/java/com/example/CalculatorTest.java";
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void committedChangeSelectsTheTestsCallingTheMethod() throws Exception {
+        Path repo = createBaseRepository();
+        write(repo, CALCULATOR, calculator("a + b", "a - b").replace("return a + b;", "return b + a;"));
+        commit(repo, "Swap operands");
+
+        assertEquals(List.of("com.example.CalculatorTest.addsNumbers"), runCli(repo));
+    }
+
+    @Test
+    public void uncommittedChangeSelectsTheTestsCallingTheMethod() throws Exception {
+        Path repo = createBaseRepository();
+        write(repo, CALCULATOR, calculator("a + b", "a - b - 0"));
+
+        assertEquals(List.of("com.example.CalculatorTest.subtractsNumbers"), runCli(repo));
+    }
+
+    @Test
+    public void unchangedBranchSelectsNoTests() throws Exception {
+        Path repo = createBaseRepository();
+
+        assertEquals(List.of(), runCli(repo));
+    }
+
+    @Test
+    public void addedFilesAreFullyChanged() throws Exception {
+        Path repo = createBaseRepository();
+        write(repo, "src/main/java/com/example/Greeter.java", """
+                package com.example;
+
+                public class Greeter {
+                    public String greet(String name) {
+                        return "Hello " + name;
+                    }
+                }
+                """);
+        write(repo, "src/test/java/com/example/GreeterTest.java", """
+                package com.example;
+
+                import org.junit.jupiter.api.Test;
+
+                public class GreeterTest {
+                    @Test
+                    public void greetsByName() {
+                        new Greeter().greet("Ada");
+                    }
+                }
+                """);
+        commit(repo, "Add greeter");
+
+        assertEquals(List.of("com.example.GreeterTest.greetsByName"), runCli(repo));
+    }
+
+    @Test
+    public void renamedFilesAreFullyChanged() throws Exception {
+        Path repo = createBaseRepository();
+        String renamed = "src/test/java/com/example/ArithmeticTest.java";
+        write(repo, renamed, calculatorTest().replace("CalculatorTest", "ArithmeticTest"));
+        Files.delete(repo.resolve(CALCULATOR_TEST));
+        commit(repo, "Rename calculator test");
+
+        assertEquals(List.of("com.example.ArithmeticTest.addsNumbers", "com.example.ArithmeticTest.subtractsNumbers"),
+                runCli(repo));
+    }
+
+    @Test
+    public void deletedFilesSelectTheTestsStillCallingThem() throws Exception {
+        Path repo = createBaseRepository();
+        Files.delete(repo.resolve(CALCULATOR));
+        commit(repo, "Delete calculator");
+
+        assertEquals(List.of("com.example.CalculatorTest.addsNumbers", "com.example.CalculatorTest.subtractsNumbers"),
+                runCli(repo));
+    }
+
+    @Test
+    public void uncommittedDeletionSelectsTheTestsStillCallingTheFile() throws Exception {
+        Path repo = createBaseRepository();
+        Files.delete(repo.resolve(CALCULATOR));
+
+        assertEquals(List.of("com.example.CalculatorTest.addsNumbers", "com.example.CalculatorTest.subtractsNumbers"),
+                runCli(repo));
+    }
+
+    @Test
+    public void depthLimitsTheCallersThatAreFollowed() throws Exception {
+        Path repo = createBaseRepository();
+        write(repo, CALCULATOR, calculator("a + b", "a - b").replace("return a + b;", "return b + a;"));
+        commit(repo, "Swap operands");
+
+        assertEquals(List.of(), runCli(repo, "--depth", "0"));
+    }
+
+    @Test
+    public void invalidArgumentsAreRejected() {
+        assertEquals(2, ChangeTrackingCli.run(new String[]{"--base", "main"}));
+        assertEquals(2, ChangeTrackingCli.run(new String[]{"--repo", tempDir.toString(), "--depth", "deep"}));
+        assertEquals(2, ChangeTrackingCli.run(new String[]{"--repo"}));
+    }
+
+    @Test
+    public void unknownBaseRefIsNotAnalyzed() throws Exception {
+        Path repo = createBaseRepository();
+
+        assertEquals(3, ChangeTrackingCli.run(new String[]{"--repo", repo.toString(), "--base", "missing"}));
+    }
+
+    /**
+     * Creates a repository with a calculator and its tests, committed on the "base" branch,
+     * and checks out a branch "feature" pointing to the same commit.
+     *
+     * @return The directory of the repository.
+     * @throws IOException     If a file cannot be written.
+     * @throws GitAPIException If the repository cannot be created.
+     */
+    private Path createBaseRepository() throws IOException, GitAPIException {
+        Path repo = tempDir.resolve("repo");
+        try (Git git = Git.init().setDirectory(repo.toFile()).setInitialBranch("base").call()) {
+            write(repo, CALCULATOR, calculator("a + b", "a - b"));
+            write(repo, CALCULATOR_TEST, calculatorTest());
+            commit(repo, "Add calculator");
+            git.checkout().setCreateBranch(true).setName("feature").call();
+        }
+        return repo;
+    }
+
+    /**
+     * Runs the CLI against the "base" branch and returns the selected tests.
+     *
+     * @param repo           The directory of the repository.
+     * @param additionalArgs Further command line arguments.
+     * @return The lines of the output file.
+     * @throws IOException If the output file cannot be read.
+     */
+    private List<String> runCli(Path repo, String... additionalArgs) throws IOException {
+        Path output = tempDir.resolve("affected-tests.txt");
+        String[] args = new String[6 + additionalArgs.length];
+        args[0] = "--repo";
+        args[1] = repo.toString();
+        args[2] = "--base";
+        args[3] = "base";
+        args[4] = "--output";
+        args[5] = output.toString();
+        System.arraycopy(additionalArgs, 0, args, 6, additionalArgs.length);
+        assertEquals(0, ChangeTrackingCli.run(args));
+        return Files.readAllLines(output, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Stages all changes of the working tree, including deletions, and commits them.
+     *
+     * @param repo    The directory of the repository.
+     * @param message The commit message.
+     * @throws IOException     If the repository cannot be opened.
+     * @throws GitAPIException If the changes cannot be committed.
+     */
+    private static void commit(Path repo, String message) throws IOException, GitAPIException {
+        try (Git git = Git.open(repo.toFile())) {
+            git.add().addFilepattern(".").call();
+            git.add().setUpdate(true).addFilepattern(".").call();
+            git.commit().setMessage(message).setAuthor("Test", "test@example.com")
+                    .setCommitter("Test", "test@example.com").setSign(false).call();
+        }
+    }
+
+    /**
+     * Writes a file of the repository, creating its directories.
+     *
+     * @param repo         The directory of the repository.
+     * @param relativePath The path of the file relative to the repository.
+     * @param content      The content of the file.
+     * @throws IOException If the file cannot be written.
+     */
+    private static void write(Path repo, String relativePath, String content) throws IOException {
+        Path file = repo.resolve(relativePath);
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, content, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Returns the source of the calculator.
+     *
+     * @param sum        The expression returned by add.
+     * @param difference The expression returned by subtract.
+     * @return The source.
+     */
+    private static String calculator(String sum, String difference) {
+        return """
+                package com.example;
+
+                public class Calculator {
+                    public int add(int a, int b) {
+                        return %s;
+                    }
+
+                    public int subtract(int a, int b) {
+                        return %s;
+                    }
+                }
+                """.formatted(sum, difference);
+    }
+
+    /**
+     * Returns the source of the tests of the calculator, one test per method.
+     *
+     * @return The source.
+     */
+    private static String calculatorTest() {
+        return """
+                package com.example;
+
+                import org.junit.jupiter.api.Test;
+
+                public class CalculatorTest {
+                    @Test
+                    public void addsNumbers() {
+                        new Calculator().add(1, 2);
+                    }
+
+                    @Test
+                    public void subtractsNumbers() {
+                        new Calculator().subtract(2, 1);
+                    }
+                }
+                """;
+    }
+}
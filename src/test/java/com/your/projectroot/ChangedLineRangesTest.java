@@ -0,0 +1,68 @@
+package com.your.projectroot;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests of the changed hunks computed by {@link ChangedLineRanges}, in particular pure insertions and deletions,
+ * which only overlap a range of lines if they lie strictly inside it.
+ */
+public class ChangedLineRangesTest {
+
+    @Test
+    public void identicalContentHasNoChanges() {
+        ChangedLineRanges changedLines = ChangedLineRanges.compute("a\nb\n", "a\nb\n");
+        assertTrue(changedLines.isEmpty());
+        assertFalse(changedLines.overlapsOld(1, 2));
+        assertFalse(changedLines.overlapsNew(1, 2));
+    }
+
+    @Test
+    public void modifiedLineOverlapsOnlyItsRange() {
+        ChangedLineRanges changedLines = ChangedLineRanges.compute("a\nb\nc\n", "a\nB\nc\n");
+        assertFalse(changedLines.isEmpty());
+        assertTrue(changedLines.overlapsOld(2, 2));
+        assertTrue(changedLines.overlapsNew(1, 3));
+        assertFalse(changedLines.overlapsNew(1, 1));
+        assertFalse(changedLines.overlapsNew(3, 3));
+    }
+
+    @Test
+    public void insertionOverlapsTheRangeItIsInsertedInto() {
+        ChangedLineRanges changedLines = ChangedLineRanges.compute("a\nb\nc\nd\n", "a\nb\nX\nc\nd\n");
+        // Inserted between old lines 2 and 3
+        assertTrue(changedLines.overlapsOld(2, 3));
+        assertFalse(changedLines.overlapsOld(3, 4), "Insertion right before the range");
+        assertFalse(changedLines.overlapsOld(1, 2), "Insertion right after the range");
+        assertTrue(changedLines.overlapsNew(3, 3));
+        assertFalse(changedLines.overlapsNew(4, 5));
+    }
+
+    @Test
+    public void deletionOverlapsTheRangeItIsRemovedFrom() {
+        ChangedLineRanges changedLines = ChangedLineRanges.compute("a\nb\nc\nd\n", "a\nd\n");
+        assertTrue(changedLines.overlapsOld(2, 2));
+        assertTrue(changedLines.overlapsOld(3, 4));
+        assertFalse(changedLines.overlapsOld(4, 4));
+        // Removed between new lines 1 and 2
+        assertTrue(changedLines.overlapsNew(1, 2));
+        assertFalse(changedLines.overlapsNew(2, 2));
+        assertFalse(changedLines.overlapsNew(1, 1));
+    }
+
+    @Test
+    public void changedLastLineWithoutNewline() {
+        ChangedLineRanges changedLines = ChangedLineRanges.compute("a\nb", "a\nc");
+        assertTrue(changedLines.overlapsNew(2, 2));
+        assertFalse(changedLines.overlapsNew(1, 1));
+    }
+
+    @Test
+    public void appendedLinesOverlapTheEndOfTheFile() {
+        ChangedLineRanges changedLines = ChangedLineRanges.compute("a\n", "a\nb\nc\n");
+        assertTrue(changedLines.overlapsNew(2, 3));
+        assertFalse(changedLines.overlapsNew(1, 1));
+        assertFalse(changedLines.overlapsOld(1, 1), "Lines appended after the last line of the range");
+    }
+}
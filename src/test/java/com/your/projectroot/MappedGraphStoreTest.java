@@ -0,0 +1,142 @@
+package com.your.projectroot;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Round trips of {@link MappedGraphStore}: the strings, values and relations written by the builder are read back
+ * from the mapped file, stores from another version or HEAD are rejected, and every write creates a new generation.
+ */
+public class MappedGraphStoreTest {
+
+    private static final int VERSION = 7;
+    private static final String HEAD = "0123456789abcdef0123456789abcdef01234567";
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void readsBackStringsValuesAndRelations() throws IOException {
+        MappedGraphStore.Builder builder = new MappedGraphStore.Builder(2);
+        builder.addEdge(0, "b.B.callee()", "a.A.caller(int)");
+        builder.addEdge(0, "b.B.callee()", "c.C.other(String[])");
+        builder.setValue("/src/A.java", 42);
+        builder.addEdge(1, "/src/A.java", "a.A.caller(int)");
+        builder.add("z.Unused.method()");
+        Path file = tempDir.resolve("store.bin");
+        builder.write(file, VERSION, HEAD);
+
+        MappedGraphStore store = MappedGraphStore.open(file, VERSION, HEAD);
+        assertNotNull(store);
+        assertEquals(HEAD, store.getHead());
+        assertEquals(5, store.size());
+        assertEquals(Set.of("a.A.caller(int)", "c.C.other(String[])"), store.getTargets(0, "b.B.callee()"));
+        assertEquals(Set.of(), store.getTargets(1, "b.B.callee()"));
+        assertEquals(Set.of("a.A.caller(int)"), store.getTargets(1, "/src/A.java"));
+        assertEquals(Set.of(), store.getTargets(0, "missing"));
+
+        int fileId = store.findId("/src/A.java");
+        assertEquals("/src/A.java", store.getString(fileId));
+        assertEquals(42, store.getValue(fileId));
+        assertEquals(MappedGraphStore.NO_VALUE, store.getValue(store.findId("z.Unused.method()")));
+        assertEquals(-1, store.findId("a.A.caller(long)"));
+    }
+
+    @Test
+    public void stringsAreSortedByTheirUtf8Bytes() throws IOException {
+        List<String> values = List.of("zeta", "Ärger", "alpha", "", "größe", "Alpha", "日本");
+        MappedGraphStore.Builder builder = new MappedGraphStore.Builder(0);
+        values.forEach(builder::add);
+        Path file = tempDir.resolve("store.bin");
+        builder.write(file, VERSION, "");
+
+        MappedGraphStore store = MappedGraphStore.open(file, VERSION, "");
+        assertNotNull(store);
+        for (String value : values) {
+            assertEquals(value, store.getString(store.findId(value)));
+        }
+        for (int id = 1; id < store.size(); id++) {
+            assertTrue(compareUtf8(store.getString(id - 1), store.getString(id)) < 0);
+        }
+    }
+
+    @Test
+    public void onlyStringsWithValuesAreReported() throws IOException {
+        MappedGraphStore.Builder builder = new MappedGraphStore.Builder(1);
+        builder.addEdge(0, "callee()", "caller()");
+        builder.setValue("/src/B.java", 2);
+        builder.setValue("/src/A.java", 0);
+        Path file = tempDir.resolve("store.bin");
+        builder.write(file, VERSION, HEAD);
+
+        MappedGraphStore store = MappedGraphStore.open(file, VERSION, HEAD);
+        assertNotNull(store);
+        List<String> withValue = new ArrayList<>();
+        store.forEachIdWithValue(id -> withValue.add(store.getString(id)));
+        assertEquals(List.of("/src/A.java", "/src/B.java"), withValue);
+    }
+
+    @Test
+    public void rejectsOtherVersionOrHead() throws IOException {
+        Path file = tempDir.resolve("store.bin");
+        assertNull(MappedGraphStore.open(file, VERSION, HEAD));
+
+        MappedGraphStore.Builder builder = new MappedGraphStore.Builder(1);
+        builder.addEdge(0, "callee()", "caller()");
+        builder.write(file, VERSION, HEAD);
+
+        assertNull(MappedGraphStore.open(file, VERSION + 1, HEAD));
+        assertNull(MappedGraphStore.open(file, VERSION, "fedcba9876543210fedcba9876543210fedcba98"));
+        assertNull(MappedGraphStore.open(file, VERSION, ""));
+        MappedGraphStore anyHead = MappedGraphStore.open(file, VERSION, null);
+        assertNotNull(anyHead);
+        assertEquals(HEAD, anyHead.getHead());
+    }
+
+    @Test
+    public void writeCreatesNewGenerationWhileOldOneIsMapped() throws IOException {
+        Path file = tempDir.resolve("store.bin");
+        MappedGraphStore.Builder first = new MappedGraphStore.Builder(1);
+        first.addEdge(0, "callee()", "first()");
+        first.write(file, VERSION, HEAD);
+        MappedGraphStore firstStore = MappedGraphStore.open(file, VERSION, HEAD);
+        assertNotNull(firstStore);
+
+        MappedGraphStore.Builder second = new MappedGraphStore.Builder(1);
+        second.addEdge(0, "callee()", "second()");
+        second.write(file, VERSION, HEAD);
+
+        MappedGraphStore secondStore = MappedGraphStore.open(file, VERSION, HEAD);
+        assertNotNull(secondStore);
+        assertEquals(Set.of("second()"), secondStore.getTargets(0, "callee()"));
+        // The old buffer stays readable until it is dropped
+        assertEquals(Set.of("first()"), firstStore.getTargets(0, "callee()"));
+        assertFalse(Files.exists(file));
+        try (Stream<Path> files = Files.list(tempDir)) {
+            assertTrue(files.noneMatch(path -> path.getFileName().toString().endsWith(".tmp")));
+        }
+    }
+
+    /**
+     * Compares two strings by their UTF-8 bytes, the order of the string table.
+     *
+     * @param first  The first string.
+     * @param second The second string.
+     * @return A negative number, zero or a positive number if the first string is less than, equal to or greater than the second.
+     */
+    private static int compareUtf8(String first, String second) {
+        return Arrays.compareUnsigned(first.getBytes(StandardCharsets.UTF_8), second.getBytes(StandardCharsets.UTF_8));
+    }
+}
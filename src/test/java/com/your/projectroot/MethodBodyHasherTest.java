@@ -0,0 +1,85 @@
+package com.your.projectroot;
+
+import com.github.javaparser.StaticJavaParser;
+import com.github.javaparser.ast.body.MethodDeclaration;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests of the whitespace- and comment-insensitive body hash of {@link MethodBodyHasher}.
+ */
+public class MethodBodyHasherTest {
+
+    @Test
+    public void formattingAndCommentsDoNotChangeTheHash() {
+        long hash = hashBody("int sum(int a, int b) { int c = a + b; return c; }");
+        long reformatted = hashBody("int sum(int a, int b) {\n"
+                + "    // the sum\n"
+                + "    int c = a   +   b; /* cached */\n"
+                + "\n"
+                + "    return c;\n"
+                + "}");
+        assertEquals(hash, reformatted);
+    }
+
+    @Test
+    public void changedBodyChangesTheHash() {
+        assertNotEquals(hashBody("int sum(int a, int b) { return a + b; }"),
+                hashBody("int sum(int a, int b) { return a - b; }"));
+    }
+
+    @Test
+    public void changedStringLiteralChangesTheHash() {
+        assertNotEquals(hashBody("String name() { return \"a b\"; }"),
+                hashBody("String name() { return \"a  b\"; }"));
+    }
+
+    @Test
+    public void whitespaceBetweenIdentifiersIsSignificant() {
+        assertNotEquals(hashBody("Object create() { return new Foo(); }"),
+                hashBody("Object create() { return newFoo(); }"));
+    }
+
+    @Test
+    public void whitespaceBetweenOperatorsIsSignificant() {
+        assertNotEquals(hashBody("int negate(int y) { return - -y; }"),
+                hashBody("int negate(int y) { return --y; }"));
+    }
+
+    @Test
+    public void methodWithoutBodyHashesToZero() {
+        assertEquals(0L, hashBody("abstract int size();"));
+    }
+
+    @Test
+    public void appendingRegionsMatchesAppendingTokens() {
+        MethodBodyHasher tokens = new MethodBodyHasher();
+        tokens.append("return");
+        tokens.separator();
+        tokens.append("x");
+        tokens.append(";");
+
+        MethodBodyHasher regions = new MethodBodyHasher();
+        String text = "  return   x;";
+        regions.append(text, 2, 8);
+        regions.separator();
+        regions.append(text, 11, 12);
+        regions.separator();
+        regions.append(text, 12, 13);
+        regions.append(text, 13, 13);
+
+        assertEquals(tokens.getHash(), regions.getHash());
+    }
+
+    /**
+     * Parses a method declaration and hashes its body.
+     *
+     * @param method The source of the method.
+     * @return The hash of the body.
+     */
+    private static long hashBody(String method) {
+        MethodDeclaration declaration = StaticJavaParser.parseMethodDeclaration(method);
+        return MethodBodyHasher.hashBody(declaration);
+    }
+}
@@ -0,0 +1,176 @@
+package com.your.projectroot;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests that the {@link MethodBoundaryScanner} finds the same methods, signatures and body hashes as JavaParser,
+ * and that it gives up on the constructs it cannot handle.
+ */
+public class MethodBoundaryScannerTest {
+
+    private static final String CLASS_NAME = "com.example.Sample";
+
+    @Test
+    public void matchesJavaParserOnPlainMethods() {
+        assertSameAsParser("package com.example;\n"
+                + "\n"
+                + "public class Sample {\n"
+                + "    private int count;\n"
+                + "\n"
+                + "    public Sample(int count) {\n"
+                + "        this.count = count;\n"
+                + "    }\n"
+                + "\n"
+                + "    /** Returns the count. */\n"
+                + "    public int getCount() {\n"
+                + "        return count;\n"
+                + "    }\n"
+                + "\n"
+                + "    @Deprecated\n"
+                + "    protected static synchronized void reset(int[] values, String name) throws Exception {\n"
+                + "        count();\n"
+                + "    }\n"
+                + "\n"
+                + "    private static int count() { return 0; }\n"
+                + "}\n");
+    }
+
+    @Test
+    public void matchesJavaParserOnGenericAndVarargsParameters() {
+        assertSameAsParser("package com.example;\n"
+                + "\n"
+                + "import java.util.*;\n"
+                + "\n"
+                + "public class Sample<T extends Comparable<T>> {\n"
+                + "    public <K, V> Map<K, List<V>> group(Map<K, List<V>> input, java.util.function.Function<? super V, K> key) {\n"
+                + "        return new HashMap<>();\n"
+                + "    }\n"
+                + "\n"
+                + "    public T max(T first, T... others) {\n"
+                + "        return first;\n"
+                + "    }\n"
+                + "\n"
+                + "    String join(List<? extends CharSequence> parts, String[] separators, int... indexes) {\n"
+                + "        return \"\";\n"
+                + "    }\n"
+                + "}\n");
+    }
+
+    @Test
+    public void matchesJavaParserWithBracesInLiteralsAndComments() {
+        assertSameAsParser("package com.example;\n"
+                + "\n"
+                + "public class Sample {\n"
+                + "    String braces() {\n"
+                + "        // a comment with a brace {\n"
+                + "        char open = '{';\n"
+                + "        /* } */\n"
+                + "        return \"}{\" + open;\n"
+                + "    }\n"
+                + "\n"
+                + "    Runnable lambda() {\n"
+                + "        return () -> { new Object() { @Override public String toString() { return \"x\"; } }; };\n"
+                + "    }\n"
+                + "}\n");
+    }
+
+    @Test
+    public void matchesJavaParserOnNestedClassesAndInterfaces() {
+        assertSameAsParser("package com.example;\n"
+                + "\n"
+                + "public class Sample {\n"
+                + "    void outer() {\n"
+                + "    }\n"
+                + "\n"
+                + "    static class Inner {\n"
+                + "        void inner(int value) {\n"
+                + "            System.out.println(value);\n"
+                + "        }\n"
+                + "    }\n"
+                + "\n"
+                + "    interface Callback {\n"
+                + "        void call(String argument);\n"
+                + "\n"
+                + "        default void callTwice(String argument) {\n"
+                + "            call(argument);\n"
+                + "            call(argument);\n"
+                + "        }\n"
+                + "    }\n"
+                + "}\n");
+    }
+
+    @Test
+    public void matchesJavaParserOnNonAsciiSources() {
+        assertSameAsParser("package com.example;\n"
+                + "\n"
+                + "public class Sample {\n"
+                + "    String grüße(String naïve) {\n"
+                + "        return \"Grüße, \" + naïve + \" – ✓\";\n"
+                + "    }\n"
+                + "\n"
+                + "    int größe() {\n"
+                + "        return \"日本語\".length();\n"
+                + "    }\n"
+                + "}\n");
+    }
+
+    @Test
+    public void givesUpOnEnums() {
+        assertNull(MethodBoundaryScanner.scan("package com.example;\n"
+                + "\n"
+                + "public enum Sample {\n"
+                + "    A, B;\n"
+                + "\n"
+                + "    int code() {\n"
+                + "        return ordinal();\n"
+                + "    }\n"
+                + "}\n", CLASS_NAME));
+    }
+
+    @Test
+    public void givesUpOnGenericArrays() {
+        assertNull(MethodBoundaryScanner.scan("public class Sample {\n"
+                + "    void join(java.util.List<String>[] parts) {\n"
+                + "    }\n"
+                + "}\n", CLASS_NAME));
+    }
+
+    @Test
+    public void givesUpOnUnterminatedComments() {
+        assertNull(MethodBoundaryScanner.scan("public class Sample {\n    /* open\n}\n", CLASS_NAME));
+    }
+
+    @Test
+    public void reportsBodyRanges() {
+        String content = "public class Sample {\n    int one() { return 1; }\n}\n";
+        List<MethodBoundaryScanner.ScannedMethod> methods = MethodBoundaryScanner.scan(content, CLASS_NAME);
+        assertNotNull(methods);
+        assertEquals(1, methods.size());
+        MethodBoundaryScanner.ScannedMethod method = methods.get(0);
+        assertEquals(CLASS_NAME + ".one()", method.signature());
+        assertEquals(content.indexOf("int one"), method.declarationStart());
+        assertEquals(content.indexOf("{ return"), method.bodyStart());
+        assertEquals(content.indexOf("}\n}") + 1, method.bodyEnd());
+    }
+
+    /**
+     * Checks that the scanner handles the content and fingerprints the same methods as JavaParser.
+     *
+     * @param content The content of the file.
+     */
+    private static void assertSameAsParser(String content) {
+        MethodFingerprints scanned = SourceMethodFingerprinter.scan(CLASS_NAME, content, (beginLine, endLine) -> true);
+        MethodFingerprints parsed = SourceMethodFingerprinter.parse(CLASS_NAME, content, (beginLine, endLine) -> true);
+        assertNotNull(scanned, "The scanner gave up");
+        assertNotNull(parsed, "JavaParser cannot parse the content");
+        assertEquals(parsed.size(), scanned.size(), "Number of methods");
+        for (int i = 0; i < parsed.size(); i++) {
+            assertEquals(parsed.getSignature(i), scanned.getSignature(i));
+            assertEquals(parsed.getBodyHash(i), scanned.getBodyHash(i), "Body hash of " + parsed.getSignature(i));
+        }
+    }
+}
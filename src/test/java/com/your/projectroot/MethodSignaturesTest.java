@@ -0,0 +1,84 @@
+package com.your.projectroot;
+
+import com.github.javaparser.StaticJavaParser;
+import com.github.javaparser.ast.body.MethodDeclaration;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests of the signature helpers in {@link MethodSignatures}, in particular of parameter types with type arguments,
+ * arrays and varargs, whose commas and brackets must not be mistaken for the structure of the signature.
+ */
+public class MethodSignaturesTest {
+
+    @Test
+    public void declarationSignatureUsesErasedParameterTypes() {
+        MethodDeclaration method = StaticJavaParser.parseMethodDeclaration(
+                "void put(java.util.Map<String, Integer> values, int... keys) {}");
+        String fromSignature = MethodSignatures.getSignOfMethodDeclaration(method.getSignature(), "com.example.Store");
+        String fromParts = MethodSignatures.getSignOfMethodDeclaration("put",
+                List.of("java.util.Map", "int[]"), "com.example.Store");
+        assertEquals("com.example.Store.put(java.util.Map, int[])", fromSignature);
+        assertEquals(fromSignature, fromParts);
+    }
+
+    @Test
+    public void splitsQualifiedSignature() {
+        String signature = "com.example.Store.put(Map<String, Integer>, int)";
+        assertEquals("com.example.Store", MethodSignatures.extractClassName(signature));
+        assertEquals("put", MethodSignatures.extractMethodName(signature));
+    }
+
+    @Test
+    public void qualifiedParameterTypesDoNotAffectClassName() {
+        String signature = "com.example.Store.put(java.util.Map<java.lang.String, java.lang.Integer>)";
+        assertEquals("com.example.Store", MethodSignatures.extractClassName(signature));
+        assertEquals("put", MethodSignatures.extractMethodName(signature));
+    }
+
+    @Test
+    public void commasInsideTypeArgumentsDoNotSplitParameters() {
+        assertArrayEquals(new String[]{"Map<String, List<Integer>>", "int"},
+                MethodSignatures.extractParameterTypes("Store.put(Map<String, List<Integer>>, int)"));
+        assertArrayEquals(new String[]{"Map<String, Map<String, Integer>>"},
+                MethodSignatures.extractParameterTypes("Store.putAll(Map<String, Map<String, Integer>>)"));
+    }
+
+    @Test
+    public void extractsArrayAndVarargsParameters() {
+        assertArrayEquals(new String[]{"String[]", "int[][]", "Object..."},
+                MethodSignatures.extractParameterTypes("Store.load(String[], int[][], Object...)"));
+    }
+
+    @Test
+    public void signatureWithoutParametersHasNoParameterTypes() {
+        assertEquals(0, MethodSignatures.extractParameterTypes("Store.clear()").length);
+        assertEquals(0, MethodSignatures.extractParameterTypes("Store.clear").length);
+    }
+
+    @Test
+    public void normalizesTypeArgumentsQualifiersAndVarargs() {
+        assertEquals("List", MethodSignatures.normalizeParameterType("java.util.List<java.lang.String>"));
+        assertEquals("Map", MethodSignatures.normalizeParameterType("Map<String, List<Integer>>"));
+        assertEquals("List[]", MethodSignatures.normalizeParameterType("java.util.List<String>..."));
+        assertEquals("String[]", MethodSignatures.normalizeParameterType("String..."));
+        assertEquals("int[][]", MethodSignatures.normalizeParameterType("int[][]"));
+        assertEquals("Entry", MethodSignatures.normalizeParameterType("Map.Entry<K, V>"));
+    }
+
+    @Test
+    public void varargsMatchesArrayOfTheSameType() {
+        assertEquals(MethodSignatures.normalizeParameterType("String[]"), MethodSignatures.normalizeParameterType("String..."));
+        assertEquals(MethodSignatures.normalizeParameterType("java.util.List[]"),
+                MethodSignatures.normalizeParameterType("List<? extends Number>..."));
+    }
+
+    @Test
+    public void classNameFromFilePathDropsDirectoriesAndExtension() {
+        assertEquals("Store", MethodSignatures.getClassNameFromFilePath("src/main/java/com/example/Store.java"));
+        assertEquals("Store", MethodSignatures.getClassNameFromFilePath("Store.java"));
+    }
+}
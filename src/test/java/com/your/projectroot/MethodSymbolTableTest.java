@@ -0,0 +1,134 @@
+package com.your.projectroot;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests of the signature interning and depth bookkeeping of {@link MethodSymbolTable}.
+ */
+public class MethodSymbolTableTest {
+
+    @Test
+    public void internsSignaturesToDenseIds() {
+        MethodSymbolTable table = new MethodSymbolTable();
+        int first = table.intern("com.example.A.run(int, List<String>)");
+        int second = table.intern("com.example.B.stop()");
+        assertEquals(0, first);
+        assertEquals(1, second);
+        assertEquals(first, table.intern("com.example.A.run(int, List<String>)"));
+        assertEquals(2, table.size());
+
+        assertEquals("com.example.A.run(int, List<String>)", table.getSignature(first));
+        assertEquals("run", table.getMethodName(first));
+        assertEquals("com.example.A", table.getClassName(first));
+        assertArrayEquals(new String[]{"int", "List<String>"}, table.getParameterTypes(first));
+        assertArrayEquals(new String[0], table.getParameterTypes(second));
+    }
+
+    @Test
+    public void markReachedBelowOnlyAcceptsLowerDepths() {
+        MethodSymbolTable table = new MethodSymbolTable();
+        int id = table.intern("com.example.A.run()");
+        assertEquals(-1, table.getDepth(id));
+
+        assertTrue(table.markReachedBelow(id, 2));
+        assertFalse(table.markReachedBelow(id, 2), "Same depth");
+        assertFalse(table.markReachedBelow(id, 3), "Higher depth");
+        assertTrue(table.markReachedBelow(id, 1), "Lower depth");
+        assertEquals(1, table.getDepth(id));
+        assertTrue(table.markReachedBelow(id, 0));
+        assertEquals(0, table.getDepth(id));
+    }
+
+    @Test
+    public void markReachedOnlyAcceptsTheFirstDepth() {
+        MethodSymbolTable table = new MethodSymbolTable();
+        int id = table.intern("com.example.A.run()");
+        assertTrue(table.markReached(id, 2));
+        assertFalse(table.markReached(id, 1));
+        assertEquals(2, table.getDepth(id));
+    }
+
+    @Test
+    public void reportsTheMethodsReachedAtADepth() {
+        MethodSymbolTable table = new MethodSymbolTable();
+        for (int i = 0; i < 5; i++) {
+            table.intern("com.example.A.m" + i + "()");
+        }
+        table.markReached(3, 1);
+        table.markReached(0, 1);
+        table.markReached(4, 2);
+        assertArrayEquals(new int[]{0, 3}, table.getReachedAt(1));
+        assertArrayEquals(new int[]{4}, table.getReachedAt(2));
+        assertArrayEquals(new int[0], table.getReachedAt(0));
+    }
+
+    @Test
+    public void restoresDepthsFromASnapshot() {
+        MethodSymbolTable table = new MethodSymbolTable();
+        int first = table.intern("com.example.A.first()");
+        table.markReachedBelow(first, 1);
+        int[] snapshot = table.snapshotDepths();
+
+        table.markReachedBelow(first, 0);
+        int second = table.intern("com.example.A.second()");
+        table.markReachedBelow(second, 2);
+
+        table.restoreDepths(snapshot);
+        assertEquals(1, table.getDepth(first));
+        assertEquals(-1, table.getDepth(second), "Interned after the snapshot");
+    }
+
+    @Test
+    public void growsBeyondOneChunkAndClears() {
+        MethodSymbolTable table = new MethodSymbolTable();
+        for (int i = 0; i < 5000; i++) {
+            assertEquals(i, table.intern("com.example.A.m" + i + "()"));
+        }
+        assertEquals("m4321", table.getMethodName(4321));
+        assertTrue(table.markReached(4999, 3));
+
+        table.clear();
+        assertEquals(0, table.size());
+        assertEquals(0, table.intern("com.example.A.m4999()"));
+        assertEquals(-1, table.getDepth(0));
+    }
+
+    @Test
+    public void internsConcurrentlyWithoutDuplicateIds() throws Exception {
+        MethodSymbolTable table = new MethodSymbolTable();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<int[]>> results = new ArrayList<>();
+            for (int thread = 0; thread < 8; thread++) {
+                results.add(executor.submit(() -> {
+                    int[] ids = new int[3000];
+                    for (int i = 0; i < ids.length; i++) {
+                        ids[i] = table.intern("com.example.A.m" + i + "()");
+                        table.markReachedBelow(ids[i], i % 7);
+                    }
+                    return ids;
+                }));
+            }
+            int[] expected = results.get(0).get();
+            for (Future<int[]> result : results) {
+                assertArrayEquals(expected, result.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(3000, table.size());
+        for (int i = 0; i < 3000; i++) {
+            int id = table.intern("com.example.A.m" + i + "()");
+            assertEquals("com.example.A.m" + i + "()", table.getSignature(id));
+            assertEquals(i % 7, table.getDepth(id));
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.your.projectroot;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests of the whole-word occurrences reported by {@link MultiWordMatcher}, in particular of words that overlap
+ * or share prefixes and suffixes, and of the identifier characters bounding a word.
+ */
+public class MultiWordMatcherTest {
+
+    @Test
+    public void findsAllWordsInOnePass() {
+        MultiWordMatcher matcher = new MultiWordMatcher(List.of("parse", "render", "flush"));
+        assertEquals(List.of("render@0", "parse@10", "render@16"),
+                findMatches(matcher, "render(); parse(render);"));
+    }
+
+    @Test
+    public void wordsSharingAPrefixAreMatchedSeparately() {
+        MultiWordMatcher matcher = new MultiWordMatcher(List.of("run", "runAll", "runAllTests"));
+        assertEquals(List.of("runAll@0", "run@7", "runAllTests@13"),
+                findMatches(matcher, "runAll(run); runAllTests();"));
+    }
+
+    @Test
+    public void wordsInsideLongerIdentifiersAreIgnored() {
+        MultiWordMatcher matcher = new MultiWordMatcher(List.of("helper", "per", "help"));
+        assertEquals(List.of("helper@0", "per@7"), findMatches(matcher, "helper per helpers superhelp"));
+    }
+
+    @Test
+    public void identifierCharactersBoundWords() {
+        MultiWordMatcher matcher = new MultiWordMatcher(List.of("run"));
+        assertEquals(List.of(), findMatches(matcher, "_run run_ $run run$ run1 ärun"));
+        assertEquals(List.of("run@0", "run@4", "run@8", "run@14", "run@19"),
+                findMatches(matcher, "run(run.run) \"run\" run"));
+    }
+
+    @Test
+    public void suffixWordsAreReportedThroughDictionaryLinks() {
+        MultiWordMatcher matcher = new MultiWordMatcher(List.of("foo.bar", "bar"));
+        assertEquals(List.of("foo.bar@0", "bar@4"), findMatches(matcher, "foo.bar"));
+    }
+
+    @Test
+    public void failureLinksContinueInAnotherWord() {
+        MultiWordMatcher matcher = new MultiWordMatcher(List.of("a.b.d", "b.c"));
+        assertEquals(List.of("b.c@2"), findMatches(matcher, "a.b.c"));
+        assertEquals(List.of("a.b.d@0"), findMatches(matcher, "a.b.d"));
+    }
+
+    @Test
+    public void repeatedAndAdjacentOccurrencesAreAllReported() {
+        MultiWordMatcher matcher = new MultiWordMatcher(List.of("ab"));
+        assertEquals(List.of("ab@0", "ab@3", "ab@6"), findMatches(matcher, "ab ab ab abab"));
+    }
+
+    @Test
+    public void emptyAndDuplicateWordsAreIgnored() {
+        assertTrue(new MultiWordMatcher(List.of()).isEmpty());
+        assertTrue(new MultiWordMatcher(List.of("")).isEmpty());
+
+        MultiWordMatcher matcher = new MultiWordMatcher(List.of("", "load", "load"));
+        assertFalse(matcher.isEmpty());
+        assertEquals(List.of("load@0"), findMatches(matcher, "load"));
+        assertEquals(List.of(), findMatches(matcher, ""));
+    }
+
+    /**
+     * Collects the occurrences reported by a matcher.
+     *
+     * @param matcher The matcher.
+     * @param text    The text to scan.
+     * @return The occurrences as "word@start", in the order they were reported.
+     */
+    private static List<String> findMatches(MultiWordMatcher matcher, String text) {
+        List<String> matches = new ArrayList<>();
+        matcher.forEachMatch(text, (word, start) -> matches.add(word + "@" + start));
+        return matches;
+    }
+}
@@ -0,0 +1,117 @@
+package com.your.projectroot;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests of the order and time budget cutoff computed by {@link TestHistoryStore#orderTests},
+ * and of the history persisted between sessions.
+ */
+public class TestHistoryStoreTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testsThatFailedLastRunComeFirst() {
+        TestHistoryStore store = createStore();
+        store.record("A,passes", 10, false);
+        store.record("A,fails", 5000, true);
+
+        assertEquals(List.of("A,fails", "A,passes"), store.orderTests(List.of("A,passes", "A,fails"), 0));
+        assertTrue(store.hasFailedLastRun("A,fails"));
+        assertFalse(store.hasFailedLastRun("A,passes"));
+        assertFalse(store.hasFailedLastRun("A,unknown"));
+    }
+
+    @Test
+    public void higherFailureRatePerDurationComesFirst() {
+        TestHistoryStore store = createStore();
+        // Both failed once and passed since, so they have the same failure rate
+        store.record("A,slow", 1000, true);
+        store.record("A,slow", 1000, false);
+        store.record("A,fast", 100, true);
+        store.record("A,fast", 100, false);
+        store.record("A,stable", 100, false);
+
+        assertEquals(List.of("A,fast", "A,slow", "A,stable"),
+                store.orderTests(List.of("A,stable", "A,slow", "A,fast"), 0));
+    }
+
+    @Test
+    public void testsWithoutHistoryComeBeforeStableTests() {
+        TestHistoryStore store = createStore();
+        store.record("A,stable", 100, false);
+
+        assertEquals(List.of("A,new", "A,stable"), store.orderTests(List.of("A,stable", "A,new"), 0));
+    }
+
+    @Test
+    public void lastRunDecidesWhetherTestFailed() {
+        TestHistoryStore store = createStore();
+        store.record("A,flaky", 100, true);
+        store.record("A,flaky", 100, false);
+
+        assertFalse(store.hasFailedLastRun("A,flaky"));
+    }
+
+    @Test
+    public void budgetCutsTheTestsExpectedToRunAfterIt() {
+        TestHistoryStore store = createStore();
+        for (String test : List.of("A,first", "A,second", "A,third")) {
+            store.record(test, 100, false);
+        }
+
+        List<String> tests = List.of("A,first", "A,second", "A,third");
+        assertEquals(List.of("A,first", "A,second"), store.orderTests(tests, 250));
+        assertEquals(tests, store.orderTests(tests, 300));
+        assertEquals(tests, store.orderTests(tests, 0));
+    }
+
+    @Test
+    public void budgetAlwaysKeepsTheFirstTest() {
+        TestHistoryStore store = createStore();
+        store.record("A,slow", 5000, false);
+        store.record("A,slower", 9000, false);
+
+        assertEquals(List.of("A,slow"), store.orderTests(List.of("A,slow", "A,slower"), 10));
+    }
+
+    @Test
+    public void testsWithoutHistoryTakeTheMedianDurationWithinBudget() {
+        TestHistoryStore store = createStore();
+        store.record("A,short", 100, false);
+        store.record("A,medium", 200, false);
+        store.record("A,long", 300, false);
+
+        // The unknown test ranks first and is expected to take the median of 200 ms
+        List<String> ordered = store.orderTests(List.of("A,short", "A,medium", "A,long", "A,new"), 350);
+        assertEquals(List.of("A,new", "A,short"), ordered);
+    }
+
+    @Test
+    public void historySurvivesSaveAndLoad() {
+        TestHistoryStore store = createStore();
+        store.record("A,fails", 100, true);
+        store.record("A,passes", 100, false);
+        store.dispose();
+
+        TestHistoryStore reloaded = createStore();
+        assertTrue(reloaded.hasFailedLastRun("A,fails"));
+        assertEquals(List.of("A,fails", "A,passes"), reloaded.orderTests(List.of("A,passes", "A,fails"), 0));
+    }
+
+    /**
+     * Creates a store persisted in the temporary directory.
+     *
+     * @return The store.
+     */
+    private TestHistoryStore createStore() {
+        return new TestHistoryStore(tempDir.resolve("testHistory.bin"));
+    }
+}